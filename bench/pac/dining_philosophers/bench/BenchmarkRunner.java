@@ -0,0 +1,208 @@
+package pac.dining_philosophers.bench;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Minimal benchmark harness. Every benchmark runs warm-up iterations followed by measured iterations of a fixed
+ * duration on a given number of threads and reports the throughput in operations per second. The results are
+ * written in the JSON format of JMH, so they can be compared by the usual tooling.
+ *
+ * @author Claudia Panoch
+ */
+public class BenchmarkRunner
+{
+
+    /**
+     * A single benchmarked operation.
+     */
+    public interface Operation
+    {
+
+        /**
+         * Runs the operation once.
+         *
+         * @param thread The index of the benchmark thread running the operation.
+         * @throws Exception Thrown if the operation failed.
+         */
+        void run(int thread) throws Exception;
+
+    }
+
+    /**
+     * The number of warm-up iterations.
+     */
+    private final int warmupIterations;
+
+    /**
+     * The number of measured iterations.
+     */
+    private final int measurementIterations;
+
+    /**
+     * The duration of one iteration in milliseconds.
+     */
+    private final long iterationTime;
+
+    /**
+     * The results as JSON objects.
+     */
+    private final List<String> results = new ArrayList<>();
+
+    /**
+     * Creates a new harness.
+     *
+     * @param warmupIterations The number of warm-up iterations.
+     * @param measurementIterations The number of measured iterations.
+     * @param iterationTime The duration of one iteration in milliseconds.
+     */
+    public BenchmarkRunner(final int warmupIterations, final int measurementIterations, final long iterationTime)
+    {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationTime = iterationTime;
+    }
+
+    /**
+     * Runs a benchmark and keeps its result.
+     *
+     * @param benchmark The name of the benchmark.
+     * @param parameters The parameters of the benchmark as alternating names and values.
+     * @param threads The number of threads running the operation concurrently.
+     * @param operation The operation.
+     * @throws Exception Thrown if the operation failed.
+     */
+    public void run(final String benchmark, final String[] parameters, final int threads, final Operation operation) throws Exception
+    {
+        for (int iteration = 0; iteration < this.warmupIterations; ++iteration)
+        {
+            this.iteration(threads, operation);
+        }
+        final double[] scores = new double[this.measurementIterations];
+        for (int iteration = 0; iteration < this.measurementIterations; ++iteration)
+        {
+            scores[iteration] = this.iteration(threads, operation);
+        }
+        double sum = 0;
+        for (final double iterationScore : scores)
+        {
+            sum += iterationScore;
+        }
+        final double score = sum / scores.length;
+        double squaredDeviations = 0;
+        for (final double iterationScore : scores)
+        {
+            squaredDeviations += (iterationScore - score) * (iterationScore - score);
+        }
+        final double error = scores.length > 1 ? Math.sqrt(squaredDeviations / (scores.length - 1)) : Double.NaN;
+        System.err.printf(Locale.ROOT, "%-40s %-40s %16.1f ops/s%n", benchmark, String.join(" ", parameters), score);
+
+        final StringBuilder json = new StringBuilder();
+        json.append("{\"benchmark\":\"").append(benchmark).append("\",\"mode\":\"thrpt\",\"threads\":").append(threads);
+        json.append(",\"params\":{");
+        for (int parameter = 0; parameter < parameters.length; parameter += 2)
+        {
+            json.append(parameter > 0 ? "," : "").append('"').append(parameters[parameter]).append("\":\"").append(parameters[parameter + 1]).append('"');
+        }
+        json.append("},\"primaryMetric\":{");
+        json.append(String.format(Locale.ROOT, "\"score\":%.3f,\"scoreError\":%s,\"scoreUnit\":\"ops/s\",\"rawData\":[%s]",
+                score, Double.isNaN(error) ? "\"NaN\"" : String.format(Locale.ROOT, "%.3f", error), this.join(scores)));
+        json.append("}}");
+        this.results.add(json.toString());
+    }
+
+    /**
+     * Writes all results as JSON array.
+     *
+     * @param out The output.
+     */
+    public void writeResults(final PrintStream out)
+    {
+        out.println("[");
+        for (int result = 0; result < this.results.size(); ++result)
+        {
+            out.println("  " + this.results.get(result) + (result < this.results.size() - 1 ? "," : ""));
+        }
+        out.println("]");
+    }
+
+    /**
+     * Runs one iteration.
+     *
+     * @param threads The number of threads running the operation concurrently.
+     * @param operation The operation.
+     * @return The throughput in operations per second.
+     * @throws Exception Thrown if the operation failed.
+     */
+    private double iteration(final int threads, final Operation operation) throws Exception
+    {
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final CyclicBarrier barrier = new CyclicBarrier(threads + 1);
+        final long[] operations = new long[threads];
+        final Exception[] failure = new Exception[1];
+        final Thread[] workers = new Thread[threads];
+        for (int worker = 0; worker < threads; ++worker)
+        {
+            final int thread = worker;
+            workers[worker] = new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    long count = 0;
+                    try
+                    {
+                        barrier.await();
+                        while (running.get())
+                        {
+                            operation.run(thread);
+                            ++count;
+                        }
+                    }
+                    catch (final Exception e)
+                    {
+                        failure[0] = e;
+                    }
+                    operations[thread] = count;
+                }
+            });
+            workers[worker].start();
+        }
+        barrier.await();
+        final long start = System.nanoTime();
+        Thread.sleep(this.iterationTime);
+        running.set(false);
+        for (final Thread worker : workers)
+        {
+            worker.join();
+        }
+        final long elapsed = System.nanoTime() - start;
+        if (failure[0] != null)
+        {
+            throw failure[0];
+        }
+        return Arrays.stream(operations).sum() * 1e9 / elapsed;
+    }
+
+    /**
+     * Joins raw scores to a JSON list.
+     *
+     * @param scores The scores.
+     * @return The JSON list content.
+     */
+    private String join(final double[] scores)
+    {
+        final StringBuilder list = new StringBuilder();
+        for (int score = 0; score < scores.length; ++score)
+        {
+            list.append(score > 0 ? "," : "").append(String.format(Locale.ROOT, "%.3f", scores[score]));
+        }
+        return list.toString();
+    }
+
+}
@@ -0,0 +1,168 @@
+package pac.dining_philosophers.bench;
+
+import pac.dining_philosophers.model.entities.Fork;
+import pac.dining_philosophers.model.entities.Philosopher;
+import pac.dining_philosophers.model.states.ExecutionMode;
+import pac.dining_philosophers.model.states.ForkType;
+import pac.dining_philosophers.model.states.PhilosopherState;
+import pac.dining_philosophers.model.states.SimulationState;
+
+import java.io.PrintStream;
+
+/**
+ * Micro benchmarks of the hot paths of the simulation:
+ * fork contention, philosopher state transitions and dead-lock detection.
+ * The JSON results are written to the file given as first argument, or to the standard output.
+ *
+ * @author Claudia Panoch
+ */
+public final class HotPathBenchmarks
+{
+
+    /**
+     * The contending thread counts for the fork benchmark.
+     */
+    private static final int[] THREAD_COUNTS = new int[] { 1, 2, 4, 8, 16 };
+
+    /**
+     * The seat counts for the dead-lock detection benchmark.
+     */
+    private static final int[] SEAT_COUNTS = new int[] { 5, 50, 500, 1000, 5000, 10000 };
+
+    /**
+     * The number of state transitions between two drains of the log.
+     */
+    private static final int LOG_DRAIN_INTERVAL = 1024;
+
+    /**
+     * Keeps benchmark results alive, so the compiler can not drop the benchmarked code.
+     */
+    private static volatile boolean sink;
+
+    /**
+     * Private constructor for static utility classes.
+     */
+    private HotPathBenchmarks() { }
+
+    /**
+     * Runs all benchmarks.
+     *
+     * @param arguments The optional output file for the JSON results.
+     * @throws Exception Thrown if a benchmark failed.
+     */
+    public static void main(final String... arguments) throws Exception
+    {
+        final BenchmarkRunner runner = new BenchmarkRunner(3, 5, 1000);
+        forkContention(runner);
+        stateTransition(runner);
+        deadlockDetection(runner);
+        if (arguments.length > 0)
+        {
+            try (final PrintStream out = new PrintStream(arguments[0], "UTF-8"))
+            {
+                runner.writeResults(out);
+            }
+        }
+        else
+        {
+            runner.writeResults(System.out);
+        }
+    }
+
+    /**
+     * Fork.get() and Fork.put() of one fork shared by contending threads.
+     *
+     * @param runner The harness.
+     * @throws Exception Thrown if the benchmark failed.
+     */
+    private static void forkContention(final BenchmarkRunner runner) throws Exception
+    {
+        for (final ForkType forkType : ForkType.values())
+        {
+
+            /* Skip fork types that can not be created here, like remote forks without a fork manager. */
+            if (!forkType.isAvailable())
+            {
+                continue;
+            }
+            for (final int threads : THREAD_COUNTS)
+            {
+                final Fork fork = forkType.create(0);
+                runner.run("fork.getPut", new String[] { "forkType", forkType.name(), "threads", Integer.toString(threads) }, threads, new BenchmarkRunner.Operation()
+                {
+                    @Override
+                    public void run(final int thread) throws Exception
+                    {
+                        fork.get();
+                        fork.put();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Philosopher.setPhilosopherState() including its notification and log entry.
+     *
+     * @param runner The harness.
+     * @throws Exception Thrown if the benchmark failed.
+     */
+    private static void stateTransition(final BenchmarkRunner runner) throws Exception
+    {
+        final SimulationState simulationState = stoppedSimulation(1);
+        final Philosopher philosopher = simulationState.getPhilosopher(0);
+        final PhilosopherState[] states = PhilosopherState.values();
+        final int[] transitions = new int[1];
+        runner.run("philosopher.setPhilosopherState", new String[0], 1, new BenchmarkRunner.Operation()
+        {
+            @Override
+            public void run(final int thread)
+            {
+                philosopher.setPhilosopherState(states[transitions[0] % states.length]);
+                if (++transitions[0] % LOG_DRAIN_INTERVAL == 0)
+                {
+                    sink = simulationState.getLog().isEmpty();
+                }
+            }
+        });
+    }
+
+    /**
+     * SimulationState.isDeadlocked() at growing seat counts.
+     *
+     * @param runner The harness.
+     * @throws Exception Thrown if the benchmark failed.
+     */
+    private static void deadlockDetection(final BenchmarkRunner runner) throws Exception
+    {
+        for (final int seats : SEAT_COUNTS)
+        {
+            final SimulationState simulationState = stoppedSimulation(seats);
+            runner.run("simulation.isDeadlocked", new String[] { "seats", Integer.toString(seats) }, 1, new BenchmarkRunner.Operation()
+            {
+                @Override
+                public void run(final int thread)
+                {
+                    sink = simulationState.isDeadlocked();
+                }
+            });
+        }
+    }
+
+    /**
+     * Creates a simulation with a complete table whose philosophers do not run.
+     *
+     * @param seats The number of philosophers.
+     * @return The simulation.
+     */
+    private static SimulationState stoppedSimulation(final int seats)
+    {
+        final SimulationState simulationState = new SimulationState();
+        simulationState.setExecutionMode(ExecutionMode.DISCRETE_EVENT);
+        simulationState.changeNumberOfPhilosphers(seats);
+        simulationState.stop();
+        simulationState.getLog();
+        return simulationState;
+    }
+
+}
@@ -0,0 +1,564 @@
+package pac.dining_philosophers.controller;
+
+import pac.dining_philosophers.model.utils.ForkProtocol;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the forks of tables shared by several philosopher processes, see {@link ForkProtocol}. A single thread serves
+ * all connections with a selector: it reads every request that arrived, hands out and takes back forks, and writes
+ * the responses of a round together, so the pipelined requests of a process are answered in batches. Forks exist
+ * while they are held or awaited; every fork has a queue of waiting requests, served first come first served. A
+ * request for a fork beyond {@link ForkProtocol#MAX_FORKS} in use is a protocol error that drops the connection. When
+ * a process goes away its forks are put back and its waiting requests dropped.
+ * <p>
+ * Options, all optional: {@code --host=127.0.0.1 --port=7357}. The fork manager runs until it is killed. An address
+ * that can not be bound exits like an invalid option, a failure while serving with exit code 2.
+ *
+ * @author Claudia Panoch
+ */
+public final class ForkManager
+{
+
+    /**
+     * Exit code for a fork manager stopped by a failure while serving.
+     */
+    private static final int EXIT_FAILED = 2;
+
+    /**
+     * The size of the buffers of a connection in bytes.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * A connected philosopher process.
+     */
+    private static final class Connection
+    {
+
+        /**
+         * The channel of the connection.
+         */
+        private final SocketChannel channel;
+
+        /**
+         * The requests read but not yet handled.
+         */
+        private final ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE);
+
+        /**
+         * The responses not yet written.
+         */
+        private ByteBuffer output = ByteBuffer.allocate(BUFFER_SIZE);
+
+        /**
+         * The selection key of the channel.
+         */
+        private SelectionKey key = null;
+
+        /**
+         * True while the connection is on the list of connections with responses to write.
+         */
+        private boolean pending = false;
+
+        /**
+         * Creates a new connection.
+         *
+         * @param channel The channel of the connection.
+         */
+        private Connection(final SocketChannel channel)
+        {
+            this.channel = channel;
+        }
+
+    }
+
+    /**
+     * A request waiting for a fork.
+     */
+    private static final class Waiter
+    {
+
+        /**
+         * The connection of the request.
+         */
+        private final Connection connection;
+
+        /**
+         * The request id.
+         */
+        private final int requestId;
+
+        /**
+         * Creates a new waiting request.
+         *
+         * @param connection The connection of the request.
+         * @param requestId The request id.
+         */
+        private Waiter(final Connection connection, final int requestId)
+        {
+            this.connection = connection;
+            this.requestId = requestId;
+        }
+
+    }
+
+    /**
+     * A fork kept by the fork manager.
+     */
+    private static final class ManagedFork
+    {
+
+        /**
+         * The connection holding the fork, null if the fork is available.
+         */
+        private Connection holder = null;
+
+        /**
+         * The request the fork was granted to.
+         */
+        private int holderRequestId = 0;
+
+        /**
+         * The requests waiting for the fork, oldest first.
+         */
+        private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+
+    }
+
+    /**
+     * The selector serving all channels.
+     */
+    private final Selector selector;
+
+    /**
+     * The channel accepting new connections.
+     */
+    private final ServerSocketChannel serverChannel;
+
+    /**
+     * The connections with responses to write.
+     */
+    private final List<Connection> pendingConnections = new ArrayList<>();
+
+    /**
+     * The forks held or awaited, by their id.
+     */
+    private final Map<Integer, ManagedFork> forks = new HashMap<>();
+
+    /**
+     * Creates a new fork manager listening on the given address.
+     *
+     * @param address The address to listen on.
+     * @throws IOException Thrown if the address could not be bound.
+     */
+    public ForkManager(final InetSocketAddress address) throws IOException
+    {
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(address);
+        this.serverChannel.configureBlocking(false);
+        this.serverChannel.register(this.selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Starts a fork manager and serves the philosopher processes until it is killed.
+     *
+     * @param arguments The options, see the class description.
+     */
+    public static void main(final String... arguments)
+    {
+        String host = "127.0.0.1";
+        int port = ForkProtocol.DEFAULT_PORT;
+        try
+        {
+            for (final String argument : arguments)
+            {
+                final Option option = Option.parse(argument);
+                final String value = option.getValue();
+                switch (option.getName())
+                {
+                    case "host":
+                        host = value;
+                        break;
+                    case "port":
+                        port = Integer.parseInt(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option: " + argument);
+                }
+            }
+        }
+        catch (final IllegalArgumentException e)
+        {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: ForkManager [--host=HOST] [--port=PORT]");
+            System.exit(Option.EXIT_USAGE);
+            return;
+        }
+        final ForkManager forkManager;
+        try
+        {
+            forkManager = new ForkManager(new InetSocketAddress(host, port));
+            System.out.println("fork manager listening on " + forkManager.getAddress());
+        }
+        catch (final IOException e)
+        {
+            System.err.println("Fork manager could not listen on " + host + ":" + port + ": " + e.getMessage());
+            System.exit(Option.EXIT_USAGE);
+            return;
+        }
+        try
+        {
+            forkManager.run();
+        }
+        catch (final IOException e)
+        {
+            System.err.println("Fork manager stopped: " + e.getMessage());
+            System.exit(EXIT_FAILED);
+        }
+    }
+
+    /**
+     * Gets the address the fork manager listens on.
+     *
+     * @return The address.
+     * @throws IOException Thrown if the channel is closed.
+     */
+    public InetSocketAddress getAddress() throws IOException
+    {
+        return (InetSocketAddress) this.serverChannel.getLocalAddress();
+    }
+
+    /**
+     * Serves the connections until the thread is interrupted.
+     *
+     * @throws IOException Thrown if the selector failed.
+     */
+    public void run() throws IOException
+    {
+        try
+        {
+            while (!Thread.currentThread().isInterrupted())
+            {
+                this.selector.select();
+                final Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+                while (keys.hasNext())
+                {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid())
+                    {
+                        continue;
+                    }
+                    if (key.isAcceptable())
+                    {
+                        this.accept();
+                        continue;
+                    }
+                    final Connection connection = (Connection) key.attachment();
+                    try
+                    {
+                        if (key.isReadable())
+                        {
+                            this.read(connection);
+                        }
+                        if (key.isValid() && key.isWritable())
+                        {
+                            this.write(connection);
+                        }
+                    }
+                    catch (final IOException e)
+                    {
+                        this.disconnect(connection);
+                    }
+                }
+
+                /* Write the responses of this round, one write per connection. A lost connection hands over its forks, adding more. */
+                for (int i = 0; i < this.pendingConnections.size(); ++i)
+                {
+                    final Connection connection = this.pendingConnections.get(i);
+                    connection.pending = false;
+                    try
+                    {
+                        this.write(connection);
+                    }
+                    catch (final IOException e)
+                    {
+                        this.disconnect(connection);
+                    }
+                }
+                this.pendingConnections.clear();
+            }
+        }
+        finally
+        {
+            for (final SelectionKey key : this.selector.keys())
+            {
+                key.channel().close();
+            }
+            this.selector.close();
+        }
+    }
+
+    /**
+     * Accepts a new connection.
+     *
+     * @throws IOException Thrown if the connection could not be set up.
+     */
+    private void accept() throws IOException
+    {
+        final SocketChannel channel = this.serverChannel.accept();
+        if (channel == null)
+        {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        final Connection connection = new Connection(channel);
+        connection.key = channel.register(this.selector, SelectionKey.OP_READ, connection);
+    }
+
+    /**
+     * Reads the requests of a connection and handles every complete one.
+     *
+     * @param connection The connection.
+     * @throws IOException Thrown if the connection failed or violated the protocol.
+     */
+    private void read(final Connection connection) throws IOException
+    {
+        if (connection.channel.read(connection.input) < 0)
+        {
+            throw new IOException("Connection closed.");
+        }
+        final ByteBuffer input = connection.input;
+        input.flip();
+        while (input.remaining() >= ForkProtocol.REQUEST_SIZE)
+        {
+            final byte operation = input.get();
+            final int forkId = input.getInt();
+            final int requestId = input.getInt();
+            final ManagedFork fork = this.fork(forkId);
+            switch (operation)
+            {
+                case ForkProtocol.ACQUIRE:
+                    if (fork.holder == null)
+                    {
+                        this.grant(fork, connection, requestId);
+                    }
+                    else
+                    {
+                        fork.waiters.add(new Waiter(connection, requestId));
+                        this.respond(connection, requestId, ForkProtocol.QUEUED);
+                    }
+                    break;
+                case ForkProtocol.TRY_ACQUIRE:
+                    if (fork.holder == null)
+                    {
+                        this.grant(fork, connection, requestId);
+                    }
+                    else
+                    {
+                        this.respond(connection, requestId, ForkProtocol.REFUSED);
+                    }
+                    break;
+                case ForkProtocol.RELEASE:
+                    if (fork.holder == connection)
+                    {
+                        this.handOver(fork);
+                    }
+                    break;
+                case ForkProtocol.CANCEL:
+                    if (fork.holder == connection && fork.holderRequestId == requestId)
+                    {
+                        this.handOver(fork);
+                    }
+                    else
+                    {
+                        this.removeWaiter(fork, connection, requestId);
+                    }
+                    break;
+                default:
+                    throw new IOException("Invalid operation: " + operation);
+            }
+            if (fork.holder == null && fork.waiters.isEmpty())
+            {
+                this.forks.remove(forkId);
+            }
+        }
+        input.compact();
+    }
+
+    /**
+     * Writes the pending responses of a connection, waiting for the channel to become writable if they do not fit.
+     *
+     * @param connection The connection.
+     * @throws IOException Thrown if the connection failed.
+     */
+    private void write(final Connection connection) throws IOException
+    {
+        if (!connection.channel.isOpen())
+        {
+            return;
+        }
+        final ByteBuffer output = connection.output;
+        output.flip();
+        connection.channel.write(output);
+        final boolean complete = !output.hasRemaining();
+        output.compact();
+        connection.key.interestOps(complete ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    /**
+     * Closes a connection, puts back its forks and drops its waiting requests.
+     *
+     * @param connection The connection.
+     */
+    private void disconnect(final Connection connection)
+    {
+        connection.key.cancel();
+        try
+        {
+            connection.channel.close();
+        }
+        catch (final IOException ignored) { }
+        final Iterator<ManagedFork> forks = this.forks.values().iterator();
+        while (forks.hasNext())
+        {
+            final ManagedFork fork = forks.next();
+            final Iterator<Waiter> waiters = fork.waiters.iterator();
+            while (waiters.hasNext())
+            {
+                if (waiters.next().connection == connection)
+                {
+                    waiters.remove();
+                }
+            }
+            if (fork.holder == connection)
+            {
+                this.handOver(fork);
+            }
+            if (fork.holder == null && fork.waiters.isEmpty())
+            {
+                forks.remove();
+            }
+        }
+    }
+
+    /**
+     * Gets a fork, creating it if it is not in use.
+     *
+     * @param forkId The id of the fork.
+     * @return The fork.
+     * @throws IOException Thrown if the id is negative or too many forks are in use.
+     */
+    private ManagedFork fork(final int forkId) throws IOException
+    {
+        if (forkId < 0)
+        {
+            throw new IOException("Invalid fork: " + forkId);
+        }
+        ManagedFork fork = this.forks.get(forkId);
+        if (fork == null)
+        {
+            if (this.forks.size() >= ForkProtocol.MAX_FORKS)
+            {
+                throw new IOException("Too many forks in use for fork " + forkId);
+            }
+            fork = new ManagedFork();
+            this.forks.put(forkId, fork);
+        }
+        return fork;
+    }
+
+    /**
+     * Hands an available fork to a request.
+     *
+     * @param fork The fork.
+     * @param connection The connection of the request.
+     * @param requestId The request id.
+     */
+    private void grant(final ManagedFork fork, final Connection connection, final int requestId)
+    {
+        fork.holder = connection;
+        fork.holderRequestId = requestId;
+        this.respond(connection, requestId, ForkProtocol.GRANTED);
+    }
+
+    /**
+     * Takes back a fork and hands it to the oldest waiting request, if there is one.
+     *
+     * @param fork The fork.
+     */
+    private void handOver(final ManagedFork fork)
+    {
+        fork.holder = null;
+        final Waiter waiter = fork.waiters.poll();
+        if (waiter != null)
+        {
+            this.grant(fork, waiter.connection, waiter.requestId);
+        }
+    }
+
+    /**
+     * Drops a waiting request.
+     *
+     * @param fork The fork.
+     * @param connection The connection of the request.
+     * @param requestId The request id.
+     */
+    private void removeWaiter(final ManagedFork fork, final Connection connection, final int requestId)
+    {
+        final Iterator<Waiter> waiters = fork.waiters.iterator();
+        while (waiters.hasNext())
+        {
+            final Waiter waiter = waiters.next();
+            if (waiter.connection == connection && waiter.requestId == requestId)
+            {
+                waiters.remove();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Queues a response, written at the end of the round.
+     *
+     * @param connection The connection of the request.
+     * @param requestId The request id.
+     * @param result The result.
+     */
+    private void respond(final Connection connection, final int requestId, final byte result)
+    {
+        if (!connection.channel.isOpen())
+        {
+            return;
+        }
+        if (connection.output.remaining() < ForkProtocol.RESPONSE_SIZE)
+        {
+            final ByteBuffer grown = ByteBuffer.allocate(2 * connection.output.capacity());
+            connection.output.flip();
+            grown.put(connection.output);
+            connection.output = grown;
+        }
+        connection.output.putInt(requestId).put(result);
+        if (!connection.pending)
+        {
+            connection.pending = true;
+            this.pendingConnections.add(connection);
+        }
+    }
+
+}
@@ -0,0 +1,324 @@
+package pac.dining_philosophers.controller;
+
+import pac.dining_philosophers.model.entities.ForkManagerClient;
+import pac.dining_philosophers.model.states.AcquisitionStrategyType;
+import pac.dining_philosophers.model.states.DeadlockListener;
+import pac.dining_philosophers.model.states.DeadlockReport;
+import pac.dining_philosophers.model.states.ExecutionMode;
+import pac.dining_philosophers.model.states.ForkType;
+import pac.dining_philosophers.model.states.SimulationState;
+import pac.dining_philosophers.model.states.SimulationStatistics;
+import pac.dining_philosophers.model.states.Topology;
+import pac.dining_philosophers.model.utils.LatencyDistribution;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the simulation without a window and prints throughput and latency statistics, for long runs on machines
+ * without a display. Neither Swing nor a look &amp; feel is initialized. The statistics are also exposed through JMX.
+ * <p>
+ * Options, all optional: {@code --seats=5 --speed=1 --duration=60 --engine=platform-threads --strategy=right-then-left
+ * --forks=lock --clock-rate=1 --interval=0 --seed=N --trace=FILE --fork-manager=HOST:PORT --fork-base=0 --topology=ring
+ * --degree=4 --fork-gap=500 --carrier-threads=N}. The duration and the interval are given in seconds of wall clock
+ * time, an interval of 0 only prints the summary. The clock rate paces engines with a virtual clock, 0 runs them as
+ * fast as possible. The seed of the random timings is printed, so a run can be repeated; without the option every run
+ * gets a new one. With a trace file every state and fork change is recorded, the trace can be replayed in the window
+ * later. Remote forks are kept by a {@link ForkManager} at the given address; processes started with the same fork base
+ * share their forks. A run whose fork manager can not be reached any more ends early. The degree is the number of forks per seat of a torus, which must be even, or of a random graph and
+ * the number of rings of several rings. The fork gap between taking two forks is given in milliseconds. The carrier threads bound the threads
+ * virtual threads run on, by default the scheduler uses one per processor. To compare many settings in one batch use
+ * the {@link ParameterSweep}.
+ *
+ * @author Claudia Panoch
+ */
+public final class HeadlessRunner
+{
+
+    /**
+     * Exit code for a dead-locked simulation.
+     */
+    private static final int EXIT_DEADLOCKED = 2;
+
+    /**
+     * Exit code for a run stopped by a lost fork manager.
+     */
+    private static final int EXIT_FORK_MANAGER_LOST = 3;
+
+    /**
+     * Private constructor for static utility classes.
+     */
+    private HeadlessRunner() { }
+
+    /**
+     * Runs the simulation for the given duration and prints the statistics.
+     *
+     * @param arguments The options, see the class description.
+     */
+    public static void main(final String... arguments)
+    {
+        System.setProperty("java.awt.headless", "true");
+        final PrintStream out = System.out;
+        int seats = 5;
+        int speed = 1;
+        double duration = 60;
+        double interval = 0;
+        double clockRate = 1;
+        ExecutionMode executionMode = ExecutionMode.PLATFORM_THREADS;
+        AcquisitionStrategyType acquisitionStrategyType = AcquisitionStrategyType.RIGHT_THEN_LEFT;
+        ForkType forkType = ForkType.LOCK;
+        Topology topology = Topology.RING;
+        int degree = 4;
+        long folkGapTime = SimulationState.DEFAULT_FOLK_GAP_TIME;
+        Long seed = null;
+        Path tracePath = null;
+        Integer carrierThreads = null;
+        try
+        {
+            for (final String argument : arguments)
+            {
+                final Option option = Option.parse(argument);
+                final String value = option.getValue();
+                switch (option.getName())
+                {
+                    case "seats":
+                        seats = Integer.parseInt(value);
+                        break;
+                    case "speed":
+                        speed = Integer.parseInt(value);
+                        break;
+                    case "duration":
+                        duration = Double.parseDouble(value);
+                        break;
+                    case "interval":
+                        interval = Double.parseDouble(value);
+                        break;
+                    case "clock-rate":
+                        clockRate = Double.parseDouble(value);
+                        break;
+                    case "engine":
+                        executionMode = Option.parseConstant(ExecutionMode.class, value);
+                        break;
+                    case "strategy":
+                        acquisitionStrategyType = Option.parseConstant(AcquisitionStrategyType.class, value);
+                        break;
+                    case "forks":
+                        forkType = Option.parseConstant(ForkType.class, value);
+                        break;
+                    case "seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    case "trace":
+                        tracePath = Paths.get(value);
+                        break;
+                    case "topology":
+                        topology = Option.parseConstant(Topology.class, value);
+                        break;
+                    case "degree":
+                        degree = Integer.parseInt(value);
+                        break;
+                    case "fork-gap":
+                        folkGapTime = Long.parseLong(value);
+                        break;
+                    case "carrier-threads":
+                        carrierThreads = Integer.parseInt(value);
+                        break;
+                    case "fork-manager":
+                        System.setProperty(ForkManagerClient.ADDRESS_PROPERTY, value);
+                        break;
+                    case "fork-base":
+                        System.setProperty(ForkManagerClient.FORK_BASE_PROPERTY, Integer.toString(Integer.parseInt(value)));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option: " + argument);
+                }
+            }
+            if (seats < 1 || speed < 1 || duration <= 0 || interval < 0 || degree < 1 || folkGapTime < 0 || (carrierThreads != null && carrierThreads < 1))
+            {
+                throw new IllegalArgumentException("Seats, speed, duration, degree and carrier threads must be positive, the fork gap not negative.");
+            }
+            if (!executionMode.isAvailable())
+            {
+                throw new IllegalArgumentException("Execution mode not available: " + executionMode.getName());
+            }
+            if (!forkType.isAvailable())
+            {
+                throw new IllegalArgumentException("Fork type not available: " + forkType.getName());
+            }
+            if (!executionMode.supports(acquisitionStrategyType))
+            {
+                throw new IllegalArgumentException("Execution mode " + executionMode.getName() + " does not support the strategy " + acquisitionStrategyType.getName());
+            }
+            if (!executionMode.supports(forkType))
+            {
+                throw new IllegalArgumentException("Execution mode " + executionMode.getName() + " does not support the fork type " + forkType.getName());
+            }
+            if (!topology.supports(degree))
+            {
+                throw new IllegalArgumentException("Topology " + topology.getName() + " does not support the degree " + degree);
+            }
+        }
+        catch (final IllegalArgumentException e)
+        {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: HeadlessRunner [--seats=N] [--speed=N] [--duration=SECONDS] [--engine=MODE] [--strategy=STRATEGY] [--forks=TYPE] [--clock-rate=RATE] [--interval=SECONDS] [--seed=N] [--trace=FILE] [--fork-manager=HOST:PORT] [--fork-base=N] [--topology=TOPOLOGY] [--degree=N] [--fork-gap=MS] [--carrier-threads=N]");
+            System.exit(Option.EXIT_USAGE);
+            return;
+        }
+
+        /* Set up the simulation, the carrier threads before the first virtual thread starts. */
+        if (carrierThreads != null)
+        {
+            ExecutionMode.setCarrierThreads(carrierThreads);
+        }
+        final SimulationState simulationState = new SimulationState();
+        simulationState.setSpeed(speed);
+        simulationState.setExecutionMode(executionMode);
+        simulationState.setAcquisitionStrategyType(acquisitionStrategyType);
+        simulationState.setForkType(forkType);
+        simulationState.setTopology(topology);
+        simulationState.setTopologyDegree(degree);
+        simulationState.setFolkGapTime(folkGapTime);
+        simulationState.setVirtualClockRate(clockRate);
+        simulationState.setSeed(seed);
+        SimulationStatistics.register(simulationState);
+        simulationState.addDeadlockListener(new DeadlockListener()
+        {
+            @Override
+            public void deadlocked(final DeadlockReport deadlockReport)
+            {
+                out.printf(Locale.ROOT, "dead-lock: %d philosophers after %.3f s%n", deadlockReport.getSeats().length, simulationState.getElapsedTime() / 1e9);
+            }
+        });
+        final CountDownLatch forkManagerLost = new CountDownLatch(1);
+        simulationState.addObserver(new Observer()
+        {
+            @Override
+            public void update(final Observable observable, final Object argument)
+            {
+                if (argument instanceof IOException)
+                {
+                    System.err.println(((IOException) argument).getMessage());
+                    forkManagerLost.countDown();
+                }
+            }
+        });
+        out.printf(Locale.ROOT, "seats: %d, speed: %d, engine: %s, strategy: %s, forks: %s%n", seats, speed, executionMode.getName(), acquisitionStrategyType.getName(), forkType.getName());
+
+        /* Run for the duration, reporting progress. */
+        final long wallClockStart = System.nanoTime();
+        final long durationNanos = (long) (duration * TimeUnit.SECONDS.toNanos(1));
+        final long intervalNanos = interval > 0 ? (long) (interval * TimeUnit.SECONDS.toNanos(1)) : durationNanos;
+        if (tracePath != null)
+        {
+            try
+            {
+                simulationState.startTrace(tracePath);
+            }
+            catch (final IOException e)
+            {
+                System.err.println("Trace could not be created: " + e.getMessage());
+                System.exit(Option.EXIT_USAGE);
+                return;
+            }
+        }
+        try
+        {
+            simulationState.changeNumberOfPhilosphers(seats);
+        }
+        catch (final IllegalStateException e)
+        {
+            System.err.println("Fork manager could not be reached: " + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()));
+            System.exit(Option.EXIT_USAGE);
+            return;
+        }
+        out.printf(Locale.ROOT, "seed: %d, topology: %s, degree: %d, forks: %d%n", simulationState.getSeed(), topology.getName(), degree, simulationState.getForks().length);
+        try
+        {
+            long elapsed;
+            while ((elapsed = System.nanoTime() - wallClockStart) < durationNanos)
+            {
+                final long remaining = durationNanos - elapsed;
+                if (forkManagerLost.await(Math.min(remaining, intervalNanos - elapsed % intervalNanos), TimeUnit.NANOSECONDS))
+                {
+                    break;
+                }
+                if (interval > 0 && System.nanoTime() - wallClockStart < durationNanos)
+                {
+                    printStatistics(out, simulationState, System.nanoTime() - wallClockStart);
+                }
+            }
+        }
+        catch (final InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        /* Summary. */
+        out.println("summary");
+        printStatistics(out, simulationState, System.nanoTime() - wallClockStart);
+        printLatencies(out, "wait", simulationState.getWaitTimeDistribution());
+        printLatencies(out, "hold", simulationState.getHoldTimeDistribution());
+        out.printf(Locale.ROOT, "fairness: %.4f%n", simulationState.getFairnessIndex());
+        simulationState.stop();
+        try
+        {
+            simulationState.stopTrace();
+        }
+        catch (final IOException e)
+        {
+            System.err.println("Trace could not be completed: " + e.getMessage());
+        }
+        if (simulationState.getForkManagerError() != null)
+        {
+            System.exit(EXIT_FORK_MANAGER_LOST);
+        }
+        System.exit(simulationState.isDeadlocked() ? EXIT_DEADLOCKED : 0);
+    }
+
+    /**
+     * Prints a line of statistics.
+     *
+     * @param out The output.
+     * @param simulationState The simulation.
+     * @param wallClockTime The wall clock time since the start in nanoseconds.
+     */
+    private static void printStatistics(final PrintStream out, final SimulationState simulationState, final long wallClockTime)
+    {
+        out.printf(Locale.ROOT, "wall: %.1f s, simulated: %.1f s, meals: %d, throughput: %.2f meals/s (%.3f per seat), average wait: %.1f ms, deadlocked: %s%n",
+                wallClockTime / 1e9,
+                simulationState.getElapsedTime() / 1e9,
+                simulationState.getAcquisitionStrategy().getMeals(),
+                simulationState.getMealsPerSecond(),
+                simulationState.getMealsPerSecond() / simulationState.getPhilosophers().length,
+                simulationState.getAverageWaitTime(),
+                simulationState.isDeadlocked());
+    }
+
+    /**
+     * Prints the percentiles of a latency distribution.
+     *
+     * @param out The output.
+     * @param name The name of the latency.
+     * @param distribution The distribution.
+     */
+    private static void printLatencies(final PrintStream out, final String name, final LatencyDistribution distribution)
+    {
+        out.printf(Locale.ROOT, "%s: count %d, mean %.1f ms, p50 %.1f ms, p99 %.1f ms, p999 %.1f ms, max %.1f ms%n",
+                name,
+                distribution.getCount(),
+                distribution.getMean() / 1e6,
+                distribution.getValueAtPercentile(50) / 1e6,
+                distribution.getValueAtPercentile(99) / 1e6,
+                distribution.getValueAtPercentile(99.9) / 1e6,
+                distribution.getMaximum() / 1e6);
+    }
+
+}
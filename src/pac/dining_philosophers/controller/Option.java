@@ -0,0 +1,97 @@
+package pac.dining_philosophers.controller;
+
+import java.util.Locale;
+
+/**
+ * A single option of the command line tools, given as {@code --name=value}. Shared by the {@link HeadlessRunner}, the
+ * {@link ParameterSweep} and the {@link ForkManager}, so all of them read their options the same way.
+ *
+ * @author Claudia Panoch
+ */
+final class Option
+{
+
+    /**
+     * Exit code for invalid options.
+     */
+    static final int EXIT_USAGE = 1;
+
+    /**
+     * Prefix of all options.
+     */
+    private static final String OPTION_PREFIX = "--";
+
+    /**
+     * The name of the option, without the prefix.
+     */
+    private final String name;
+
+    /**
+     * The value of the option.
+     */
+    private final String value;
+
+    /**
+     * Creates a new option.
+     *
+     * @param name The name of the option, without the prefix.
+     * @param value The value of the option.
+     */
+    private Option(final String name, final String value)
+    {
+        this.name = name;
+        this.value = value;
+    }
+
+    /**
+     * Splits a command line argument into the name and the value of the option.
+     *
+     * @param argument The argument.
+     * @return The option.
+     * @throws IllegalArgumentException Thrown if the argument is not of the form {@code --name=value}.
+     */
+    static Option parse(final String argument)
+    {
+        final int separator = argument.indexOf('=');
+        if (!argument.startsWith(OPTION_PREFIX) || separator < 0)
+        {
+            throw new IllegalArgumentException("Invalid option: " + argument);
+        }
+        return new Option(argument.substring(OPTION_PREFIX.length(), separator), argument.substring(separator + 1));
+    }
+
+    /**
+     * Parses a constant of an enumeration. Case, dashes and blanks are ignored, so the names shown in the window work.
+     *
+     * @param type The enumeration.
+     * @param value The option value.
+     * @param <E> The type of the enumeration.
+     * @return The constant.
+     * @throws IllegalArgumentException Thrown if the enumeration has no such constant.
+     */
+    static <E extends Enum<E>> E parseConstant(final Class<E> type, final String value)
+    {
+        return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT).replace('-', '_').replace(' ', '_'));
+    }
+
+    /**
+     * Gets the name of the option.
+     *
+     * @return The name, without the prefix.
+     */
+    String getName()
+    {
+        return this.name;
+    }
+
+    /**
+     * Gets the value of the option.
+     *
+     * @return The value.
+     */
+    String getValue()
+    {
+        return this.value;
+    }
+
+}
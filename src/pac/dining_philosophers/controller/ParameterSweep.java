@@ -0,0 +1,699 @@
+package pac.dining_philosophers.controller;
+
+import pac.dining_philosophers.model.states.AcquisitionStrategyType;
+import pac.dining_philosophers.model.states.DeadlockListener;
+import pac.dining_philosophers.model.states.DeadlockReport;
+import pac.dining_philosophers.model.states.ExecutionMode;
+import pac.dining_philosophers.model.states.ForkType;
+import pac.dining_philosophers.model.states.SimulationState;
+import pac.dining_philosophers.model.states.Topology;
+import pac.dining_philosophers.model.utils.LatencyDistribution;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a simulation for every combination of the given settings and writes one CSV row per run, for capacity
+ * planning without moving the controls of the window by hand. Every run has a simulation of its own; the runs are
+ * spread over a work-stealing pool, so several tables run side by side. Neither Swing nor JMX is initialized.
+ * <p>
+ * Options, all optional, lists are separated by commas: {@code --seats=1..10000 --speeds=1 --fork-gaps=500
+ * --engines=platform-threads --strategies=right-then-left --forks=lock --topologies=ring --degrees=4 --duration=10
+ * --clock-rate=1 --seed=N --parallelism=N --output=FILE}. Seats are taken from the seat counts of the window, a range
+ * A..B selects the counts between A and B. The enumerations accept {@code all} for every constant available in this
+ * process. Fork gaps are given in milliseconds, the duration of a run in seconds of wall clock time. A run ends early
+ * at its first dead-lock. With a seed every run draws the same timings, without one every run gets a new seed, which
+ * is written to the report. The parallelism is the number of tables running at once, by default the number of
+ * processors. The report goes to standard output unless a file is given, progress goes to standard error.
+ * <p>
+ * The degree is ignored by a ring, so rings run once with the first degree. A torus needs an even degree, odd degrees
+ * are skipped for it, just like strategies and fork types an engine can not use are skipped for that engine.
+ *
+ * @author Claudia Panoch
+ */
+public final class ParameterSweep
+{
+
+    /**
+     * The option value for every constant of an enumeration.
+     */
+    private static final String ALL = "all";
+
+    /**
+     * The separator of a range of seat counts.
+     */
+    private static final String RANGE = "..";
+
+    /**
+     * Exit code for a report that could not be written.
+     */
+    private static final int EXIT_OUTPUT = 3;
+
+    /**
+     * The header of the report.
+     */
+    private static final String HEADER = "seats,speed,fork_gap_ms,engine,strategy,forks,topology,degree,seed,"
+            + "simulated_s,meals,meals_per_s,meals_per_s_per_seat,"
+            + "wait_p50_ms,wait_p99_ms,wait_p999_ms,wait_max_ms,hold_p50_ms,hold_p99_ms,hold_p999_ms,hold_max_ms,"
+            + "fairness,deadlocked,time_to_deadlock_s";
+
+    /**
+     * The settings of a single run.
+     */
+    private static final class Run
+    {
+
+        /**
+         * The number of seats.
+         */
+        private final int seats;
+
+        /**
+         * The simulation speed.
+         */
+        private final int speed;
+
+        /**
+         * The gap between taking two forks in milliseconds.
+         */
+        private final long folkGapTime;
+
+        /**
+         * The way the philosophers are executed.
+         */
+        private final ExecutionMode executionMode;
+
+        /**
+         * The strategy used to get the forks.
+         */
+        private final AcquisitionStrategyType acquisitionStrategyType;
+
+        /**
+         * The implementation of the forks.
+         */
+        private final ForkType forkType;
+
+        /**
+         * The way the forks are shared.
+         */
+        private final Topology topology;
+
+        /**
+         * The degree of the topology.
+         */
+        private final int degree;
+
+        /**
+         * Creates the settings of a run.
+         *
+         * @param seats The number of seats.
+         * @param speed The simulation speed.
+         * @param folkGapTime The gap between taking two forks in milliseconds.
+         * @param executionMode The way the philosophers are executed.
+         * @param acquisitionStrategyType The strategy used to get the forks.
+         * @param forkType The implementation of the forks.
+         * @param topology The way the forks are shared.
+         * @param degree The degree of the topology.
+         */
+        private Run(final int seats, final int speed, final long folkGapTime, final ExecutionMode executionMode, final AcquisitionStrategyType acquisitionStrategyType, final ForkType forkType, final Topology topology, final int degree)
+        {
+            this.seats = seats;
+            this.speed = speed;
+            this.folkGapTime = folkGapTime;
+            this.executionMode = executionMode;
+            this.acquisitionStrategyType = acquisitionStrategyType;
+            this.forkType = forkType;
+            this.topology = topology;
+            this.degree = degree;
+        }
+
+        /**
+         * Describes the run for the progress output.
+         *
+         * @return The description.
+         */
+        @Override
+        public String toString()
+        {
+            return String.format(Locale.ROOT, "%d seats, speed %d, gap %d ms, %s, %s, %s forks, %s %d",
+                    this.seats, this.speed, this.folkGapTime, this.executionMode.getName(), this.acquisitionStrategyType.getName(), this.forkType.getName(), this.topology.getName(), this.degree);
+        }
+
+    }
+
+    /**
+     * A range of runs, split in halves until a single run is left, so idle workers steal the other halves.
+     */
+    private final class Batch extends RecursiveAction
+    {
+
+        /**
+         * Serial version of the task.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The first run of the range.
+         */
+        private final int from;
+
+        /**
+         * The end of the range, exclusive.
+         */
+        private final int to;
+
+        /**
+         * Creates a range of runs.
+         *
+         * @param from The first run of the range.
+         * @param to The end of the range, exclusive.
+         */
+        private Batch(final int from, final int to)
+        {
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Runs the single run of the range or splits the range.
+         */
+        @Override
+        protected void compute()
+        {
+            if (this.to - this.from == 1)
+            {
+                ParameterSweep.this.execute(ParameterSweep.this.runs.get(this.from));
+                return;
+            }
+            final int middle = (this.from + this.to) >>> 1;
+            invokeAll(new Batch(this.from, middle), new Batch(middle, this.to));
+        }
+
+    }
+
+    /**
+     * The runs of the sweep.
+     */
+    private final List<Run> runs;
+
+    /**
+     * The duration of a run in nanoseconds of wall clock time.
+     */
+    private final long duration;
+
+    /**
+     * The pace of engines with a virtual clock.
+     */
+    private final double clockRate;
+
+    /**
+     * The seed of every run, null for a new seed per run.
+     */
+    private final Long seed;
+
+    /**
+     * The report.
+     */
+    private final PrintStream report;
+
+    /**
+     * The number of runs finished.
+     */
+    private final AtomicInteger finished = new AtomicInteger();
+
+    /**
+     * Creates a sweep.
+     *
+     * @param runs The runs of the sweep.
+     * @param duration The duration of a run in nanoseconds of wall clock time.
+     * @param clockRate The pace of engines with a virtual clock.
+     * @param seed The seed of every run, null for a new seed per run.
+     * @param report The report.
+     */
+    private ParameterSweep(final List<Run> runs, final long duration, final double clockRate, final Long seed, final PrintStream report)
+    {
+        this.runs = runs;
+        this.duration = duration;
+        this.clockRate = clockRate;
+        this.seed = seed;
+        this.report = report;
+    }
+
+    /**
+     * Runs the sweep and writes the report.
+     *
+     * @param arguments The options, see the class description.
+     */
+    public static void main(final String... arguments)
+    {
+        System.setProperty("java.awt.headless", "true");
+        int[] seats = SimulationState.getSeatCounts();
+        int[] speeds = { 1 };
+        long[] folkGapTimes = { SimulationState.DEFAULT_FOLK_GAP_TIME };
+        List<ExecutionMode> executionModes = Arrays.asList(ExecutionMode.PLATFORM_THREADS);
+        List<AcquisitionStrategyType> acquisitionStrategyTypes = Arrays.asList(AcquisitionStrategyType.RIGHT_THEN_LEFT);
+        List<ForkType> forkTypes = Arrays.asList(ForkType.LOCK);
+        boolean allExecutionModes = false;
+        boolean allForkTypes = false;
+        List<Topology> topologies = Arrays.asList(Topology.RING);
+        int[] degrees = { 4 };
+        double duration = 10;
+        double clockRate = 1;
+        Long seed = null;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        String output = null;
+        try
+        {
+            for (final String argument : arguments)
+            {
+                final Option option = Option.parse(argument);
+                final String value = option.getValue();
+                switch (option.getName())
+                {
+                    case "seats":
+                        seats = parseSeats(value);
+                        break;
+                    case "speeds":
+                        speeds = parseIntegers(value);
+                        break;
+                    case "fork-gaps":
+                        folkGapTimes = parseLongs(value);
+                        break;
+                    case "engines":
+                        executionModes = parseConstants(ExecutionMode.class, value);
+                        allExecutionModes = ALL.equalsIgnoreCase(value.trim());
+                        break;
+                    case "strategies":
+                        acquisitionStrategyTypes = parseConstants(AcquisitionStrategyType.class, value);
+                        break;
+                    case "forks":
+                        forkTypes = parseConstants(ForkType.class, value);
+                        allForkTypes = ALL.equalsIgnoreCase(value.trim());
+                        break;
+                    case "topologies":
+                        topologies = parseConstants(Topology.class, value);
+                        break;
+                    case "degrees":
+                        degrees = parseIntegers(value);
+                        break;
+                    case "duration":
+                        duration = Double.parseDouble(value);
+                        break;
+                    case "clock-rate":
+                        clockRate = Double.parseDouble(value);
+                        break;
+                    case "seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    case "parallelism":
+                        parallelism = Integer.parseInt(value);
+                        break;
+                    case "output":
+                        output = value;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option: " + argument);
+                }
+            }
+
+            /* Constants asked for by name must be available, "all" only keeps the available ones. */
+            final List<ExecutionMode> availableModes = new ArrayList<>();
+            for (final ExecutionMode executionMode : executionModes)
+            {
+                if (executionMode.isAvailable())
+                {
+                    availableModes.add(executionMode);
+                }
+                else if (!allExecutionModes)
+                {
+                    throw new IllegalArgumentException("Execution mode not available: " + executionMode.getName());
+                }
+            }
+            executionModes = availableModes;
+            final List<ForkType> availableForkTypes = new ArrayList<>();
+            for (final ForkType forkType : forkTypes)
+            {
+                if (forkType.isAvailable())
+                {
+                    availableForkTypes.add(forkType);
+                }
+                else if (!allForkTypes)
+                {
+                    throw new IllegalArgumentException("Fork type not available: " + forkType.getName());
+                }
+            }
+            forkTypes = availableForkTypes;
+            if (min(seats) < 1 || min(speeds) < 1 || min(folkGapTimes) < 0 || min(degrees) < 1 || duration <= 0 || clockRate < 0 || parallelism < 1)
+            {
+                throw new IllegalArgumentException("Seats, speeds, degrees, duration and parallelism must be positive, fork gaps and clock rate not negative.");
+            }
+        }
+        catch (final IllegalArgumentException e)
+        {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: ParameterSweep [--seats=N,A..B] [--speeds=N,...] [--fork-gaps=MS,...] [--engines=MODE,...|all] [--strategies=STRATEGY,...|all] [--forks=TYPE,...|all] [--topologies=TOPOLOGY,...|all] [--degrees=N,...] [--duration=SECONDS] [--clock-rate=RATE] [--seed=N] [--parallelism=N] [--output=FILE]");
+            System.exit(Option.EXIT_USAGE);
+            return;
+        }
+
+        /* Every combination of the settings is a run. */
+        final List<Run> runs = new ArrayList<>();
+        for (final ExecutionMode executionMode : executionModes)
+        {
+            for (final AcquisitionStrategyType acquisitionStrategyType : acquisitionStrategyTypes)
+            {
+                if (!executionMode.supports(acquisitionStrategyType))
+                {
+                    continue;
+                }
+                for (final ForkType forkType : forkTypes)
+                {
+                    if (!executionMode.supports(forkType))
+                    {
+                        continue;
+                    }
+                    for (final Topology topology : topologies)
+                    {
+                        for (final int degree : topology == Topology.RING ? new int[] { degrees[0] } : degrees)
+                        {
+                            if (!topology.supports(degree))
+                            {
+                                continue;
+                            }
+                            for (final int seatCount : seats)
+                            {
+                                for (final int speed : speeds)
+                                {
+                                    for (final long folkGapTime : folkGapTimes)
+                                    {
+                                        runs.add(new Run(seatCount, speed, folkGapTime, executionMode, acquisitionStrategyType, forkType, topology, degree));
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        if (runs.isEmpty())
+        {
+            System.err.println("Nothing to run.");
+            System.exit(Option.EXIT_USAGE);
+            return;
+        }
+
+        /* Run the sweep. */
+        final PrintStream report;
+        try
+        {
+            report = output != null ? new PrintStream(Files.newOutputStream(Paths.get(output)), false, "UTF-8") : System.out;
+        }
+        catch (final IOException e)
+        {
+            System.err.println("Report could not be created: " + e.getMessage());
+            System.exit(EXIT_OUTPUT);
+            return;
+        }
+        System.err.printf(Locale.ROOT, "%d runs of %.1f s, %d at once%n", runs.size(), duration, parallelism);
+        report.println(HEADER);
+        final ParameterSweep sweep = new ParameterSweep(runs, (long) (duration * TimeUnit.SECONDS.toNanos(1)), clockRate, seed, report);
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try
+        {
+            pool.invoke(sweep.new Batch(0, runs.size()));
+        }
+        finally
+        {
+            pool.shutdown();
+            report.flush();
+        }
+        final boolean failed = report.checkError();
+        if (report != System.out)
+        {
+            report.close();
+        }
+        System.exit(failed ? EXIT_OUTPUT : 0);
+    }
+
+    /**
+     * Runs a simulation for the duration or until its first dead-lock and writes its row. A run whose fork manager
+     * could not be reached is reported as failed instead. The worker waits for the
+     * run without letting the pool start another worker, so the parallelism bounds the tables running at once.
+     *
+     * @param run The settings of the run.
+     */
+    private void execute(final Run run)
+    {
+        final SimulationState simulationState = new SimulationState();
+        simulationState.setSpeed(run.speed);
+        simulationState.setFolkGapTime(run.folkGapTime);
+        simulationState.setExecutionMode(run.executionMode);
+        simulationState.setAcquisitionStrategyType(run.acquisitionStrategyType);
+        simulationState.setForkType(run.forkType);
+        simulationState.setTopology(run.topology);
+        simulationState.setTopologyDegree(run.degree);
+        simulationState.setVirtualClockRate(this.clockRate);
+        simulationState.setSeed(this.seed);
+        final CountDownLatch ended = new CountDownLatch(1);
+        final AtomicLong timeToDeadlock = new AtomicLong(-1);
+        simulationState.addDeadlockListener(new DeadlockListener()
+        {
+            @Override
+            public void deadlocked(final DeadlockReport deadlockReport)
+            {
+                if (timeToDeadlock.compareAndSet(-1, simulationState.getElapsedTime()))
+                {
+                    ended.countDown();
+                }
+            }
+        });
+        simulationState.addObserver(new Observer()
+        {
+            @Override
+            public void update(final Observable observable, final Object argument)
+            {
+                if (argument instanceof IOException)
+                {
+                    ended.countDown();
+                }
+            }
+        });
+        try
+        {
+            simulationState.changeNumberOfPhilosphers(run.seats);
+            try
+            {
+                ended.await(this.duration, TimeUnit.NANOSECONDS);
+            }
+            catch (final InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            final IOException forkManagerError = simulationState.getForkManagerError();
+            if (forkManagerError != null)
+            {
+                System.err.printf(Locale.ROOT, "run failed: %s: %s%n", run, forkManagerError);
+            }
+            else
+            {
+                this.write(run, simulationState, timeToDeadlock.get());
+            }
+        }
+        catch (final RuntimeException e)
+        {
+            System.err.printf(Locale.ROOT, "run failed: %s: %s%n", run, e);
+        }
+        finally
+        {
+            simulationState.stop();
+        }
+        System.err.printf(Locale.ROOT, "%d/%d done: %s%n", this.finished.incrementAndGet(), this.runs.size(), run);
+    }
+
+    /**
+     * Writes the row of a run.
+     *
+     * @param run The settings of the run.
+     * @param simulationState The simulation of the run.
+     * @param timeToDeadlock The simulation time until the first dead-lock in nanoseconds, negative without one.
+     */
+    private void write(final Run run, final SimulationState simulationState, final long timeToDeadlock)
+    {
+        final LatencyDistribution waitTimes = simulationState.getWaitTimeDistribution();
+        final LatencyDistribution holdTimes = simulationState.getHoldTimeDistribution();
+        final double mealsPerSecond = simulationState.getMealsPerSecond();
+        final String row = String.format(Locale.ROOT, "%d,%d,%d,%s,%s,%s,%s,%d,%d,%.3f,%d,%.4f,%.6f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.4f,%s,%s",
+                run.seats,
+                run.speed,
+                run.folkGapTime,
+                run.executionMode.name().toLowerCase(Locale.ROOT),
+                run.acquisitionStrategyType.name().toLowerCase(Locale.ROOT),
+                run.forkType.name().toLowerCase(Locale.ROOT),
+                run.topology.name().toLowerCase(Locale.ROOT),
+                run.degree,
+                simulationState.getSeed(),
+                simulationState.getElapsedTime() / 1e9,
+                simulationState.getAcquisitionStrategy().getMeals(),
+                mealsPerSecond,
+                mealsPerSecond / run.seats,
+                waitTimes.getValueAtPercentile(50) / 1e6,
+                waitTimes.getValueAtPercentile(99) / 1e6,
+                waitTimes.getValueAtPercentile(99.9) / 1e6,
+                waitTimes.getMaximum() / 1e6,
+                holdTimes.getValueAtPercentile(50) / 1e6,
+                holdTimes.getValueAtPercentile(99) / 1e6,
+                holdTimes.getValueAtPercentile(99.9) / 1e6,
+                holdTimes.getMaximum() / 1e6,
+                simulationState.getFairnessIndex(),
+                timeToDeadlock >= 0,
+                timeToDeadlock >= 0 ? String.format(Locale.ROOT, "%.3f", timeToDeadlock / 1e9) : "");
+        synchronized (this.report)
+        {
+            this.report.println(row);
+            this.report.flush();
+        }
+    }
+
+    /**
+     * Parses the seat counts. A range A..B selects the seat counts of the window between A and B.
+     *
+     * @param value The option value.
+     * @return The seat counts.
+     */
+    private static int[] parseSeats(final String value)
+    {
+        final List<Integer> seats = new ArrayList<>();
+        for (final String item : value.split(","))
+        {
+            final int range = item.indexOf(RANGE);
+            if (range < 0)
+            {
+                seats.add(Integer.parseInt(item.trim()));
+                continue;
+            }
+            final int from = Integer.parseInt(item.substring(0, range).trim());
+            final int to = Integer.parseInt(item.substring(range + RANGE.length()).trim());
+            for (final int seatCount : SimulationState.getSeatCounts())
+            {
+                if (seatCount >= from && seatCount <= to)
+                {
+                    seats.add(seatCount);
+                }
+            }
+        }
+        final int[] result = new int[seats.size()];
+        for (int position = 0; position < result.length; ++position)
+        {
+            result[position] = seats.get(position);
+        }
+        if (result.length == 0)
+        {
+            throw new IllegalArgumentException("No seat counts in " + value);
+        }
+        return result;
+    }
+
+    /**
+     * Parses a list of numbers.
+     *
+     * @param value The option value.
+     * @return The numbers.
+     */
+    private static int[] parseIntegers(final String value)
+    {
+        final String[] items = value.split(",");
+        final int[] numbers = new int[items.length];
+        for (int position = 0; position < items.length; ++position)
+        {
+            numbers[position] = Integer.parseInt(items[position].trim());
+        }
+        return numbers;
+    }
+
+    /**
+     * Parses a list of long numbers.
+     *
+     * @param value The option value.
+     * @return The numbers.
+     */
+    private static long[] parseLongs(final String value)
+    {
+        final String[] items = value.split(",");
+        final long[] numbers = new long[items.length];
+        for (int position = 0; position < items.length; ++position)
+        {
+            numbers[position] = Long.parseLong(items[position].trim());
+        }
+        return numbers;
+    }
+
+    /**
+     * Parses a list of constants of an enumeration. Case, dashes and blanks are ignored, so the names shown in the
+     * window work.
+     *
+     * @param type The enumeration.
+     * @param value The option value, {@code all} for every constant.
+     * @param <E> The type of the enumeration.
+     * @return The constants.
+     */
+    private static <E extends Enum<E>> List<E> parseConstants(final Class<E> type, final String value)
+    {
+        if (ALL.equalsIgnoreCase(value.trim()))
+        {
+            return Arrays.asList(type.getEnumConstants());
+        }
+        final List<E> constants = new ArrayList<>();
+        for (final String item : value.split(","))
+        {
+            constants.add(Option.parseConstant(type, item));
+        }
+        return constants;
+    }
+
+    /**
+     * Gets the smallest of some numbers.
+     *
+     * @param numbers The numbers.
+     * @return The smallest number.
+     */
+    private static long min(final int[] numbers)
+    {
+        long min = Long.MAX_VALUE;
+        for (final int number : numbers)
+        {
+            min = Math.min(min, number);
+        }
+        return min;
+    }
+
+    /**
+     * Gets the smallest of some numbers.
+     *
+     * @param numbers The numbers.
+     * @return The smallest number.
+     */
+    private static long min(final long[] numbers)
+    {
+        long min = Long.MAX_VALUE;
+        for (final long number : numbers)
+        {
+            min = Math.min(min, number);
+        }
+        return min;
+    }
+
+}
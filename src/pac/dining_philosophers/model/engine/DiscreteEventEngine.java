@@ -0,0 +1,482 @@
+package pac.dining_philosophers.model.engine;
+
+import pac.dining_philosophers.model.entities.Fork;
+import pac.dining_philosophers.model.entities.Philosopher;
+import pac.dining_philosophers.model.states.PhilosopherState;
+import pac.dining_philosophers.model.states.SimulationState;
+import pac.dining_philosophers.model.states.WaitForGraph;
+import pac.dining_philosophers.model.strategies.AcquisitionStrategy;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the lifecycle of all philosophers as events on a priority queue with a virtual clock.
+ * A single thread processes the events, nobody really sleeps or blocks. The philosophers run through the same
+ * transitions as on the threaded engine (thinking, hungry, got right, eating) and dead-lock the same way: if every
+ * philosopher waits for a fork, no event is left and the simulation stands still.
+ * The forks are taken one after the other in the fork order of the acquisition strategy, so only strategies with a
+ * fixed order can run on events.
+ *
+ * @author Claudia Panoch
+ */
+public class DiscreteEventEngine implements SimulationEngine
+{
+
+    /**
+     * The philosopher thinks until the event is due.
+     */
+    private static final byte PHASE_THINKING = 0;
+
+    /**
+     * The philosopher holds his first fork and waits for the gap to pass, or waits for his other forks.
+     */
+    private static final byte PHASE_GOT_FIRST_FORK = 1;
+
+    /**
+     * The philosopher eats until the event is due.
+     */
+    private static final byte PHASE_EATING = 2;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * The longest time the engine waits for the wall clock without checking for a freeze, in nanoseconds.
+     */
+    private static final long FREEZE_CHECK_INTERVAL = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * The longest time to wait for the event thread to end, in nanoseconds.
+     */
+    private static final long JOIN_TIMEOUT = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Provides the timings of the simulation.
+     */
+    private final SimulationState simulationState;
+
+    /**
+     * Creates the thread processing the events.
+     */
+    private final ThreadFactory threadFactory;
+
+    /**
+     * Virtual nanoseconds per wall clock nanosecond, 0 to run as fast as possible.
+     */
+    private final double clockRate;
+
+    /**
+     * The current time of the virtual clock in nanoseconds.
+     */
+    private volatile long now = 0;
+
+    /**
+     * The thread processing the events.
+     */
+    private Thread eventThread = null;
+
+    /**
+     * Counts the meals and wait times of the table.
+     */
+    private AcquisitionStrategy acquisitionStrategy = null;
+
+    /**
+     * Tracks the forks held and awaited by the philosophers of the table.
+     */
+    private WaitForGraph waitForGraph = null;
+
+    /**
+     * The philosophers of the table.
+     */
+    private Philosopher[] philosophers = null;
+
+    /**
+     * The forks of every philosopher in the order he takes them.
+     */
+    private Fork[][] forkOrders = null;
+
+    /**
+     * The current phase of every philosopher.
+     */
+    private byte[] phases = null;
+
+    /**
+     * The virtual time every philosopher got hungry at in nanoseconds.
+     */
+    private long[] hungrySince = null;
+
+    /**
+     * The position of the fork every hungry philosopher takes next in his fork order.
+     */
+    private int[] nextForks = null;
+
+    /**
+     * The philosophers waiting for a fork, indexed by the fork.
+     */
+    private List<ArrayDeque<Philosopher>> waiters = null;
+
+    /**
+     * Binary min-heap of the due times of the pending events.
+     */
+    private long[] heapTimes = null;
+
+    /**
+     * Binary min-heap of the philosophers of the pending events.
+     */
+    private int[] heapSeats = null;
+
+    /**
+     * The number of pending events.
+     */
+    private int heapSize = 0;
+
+    /**
+     * Creates a new discrete event engine.
+     *
+     * @param simulationState Provides the timings of the simulation.
+     * @param threadFactory Creates the thread processing the events.
+     * @param clockRate Virtual nanoseconds per wall clock nanosecond, 0 to run as fast as possible.
+     */
+    public DiscreteEventEngine(final SimulationState simulationState, final ThreadFactory threadFactory, final double clockRate)
+    {
+        this.simulationState = simulationState;
+        this.threadFactory = threadFactory;
+        this.clockRate = clockRate;
+    }
+
+    /**
+     * Lets all philosophers start thinking and starts processing the events.
+     *
+     * @param philosophers The philosophers of the table, indexed by their seat.
+     */
+    @Override
+    public void start(final Philosopher[] philosophers)
+    {
+        final int count = philosophers.length;
+        final int forkCount = this.simulationState.getForks().length;
+        this.acquisitionStrategy = this.simulationState.getAcquisitionStrategy();
+        this.waitForGraph = this.simulationState.getWaitForGraph();
+        this.philosophers = philosophers;
+        this.forkOrders = new Fork[count][];
+        this.phases = new byte[count];
+        this.hungrySince = new long[count];
+        this.nextForks = new int[count];
+        this.waiters = new ArrayList<>(forkCount);
+        this.heapTimes = new long[count];
+        this.heapSeats = new int[count];
+        this.heapSize = 0;
+        for (int currentFork = 0; currentFork < forkCount; ++currentFork)
+        {
+            this.waiters.add(new ArrayDeque<Philosopher>(2));
+        }
+        for (final Philosopher philosopher : philosophers)
+        {
+            this.forkOrders[philosopher.getSeat()] = this.acquisitionStrategy.getForkOrder(philosopher);
+            if (this.forkOrders[philosopher.getSeat()] == null)
+            {
+                throw new IllegalStateException("The discrete event engine needs a strategy with a fork order.");
+            }
+        }
+        for (final Philosopher philosopher : philosophers)
+        {
+            this.think(philosopher);
+        }
+        this.eventThread = this.threadFactory.newThread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                DiscreteEventEngine.this.processEvents();
+            }
+        });
+        this.eventThread.start();
+    }
+
+    /**
+     * Stops processing the events and waits for the event thread to end.
+     */
+    @Override
+    public void stop()
+    {
+        if (this.eventThread != null)
+        {
+            this.eventThread.interrupt();
+            try
+            {
+                TimeUnit.NANOSECONDS.timedJoin(this.eventThread, JOIN_TIMEOUT);
+            }
+            catch (final InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * The pending events belong to the seats of the table, a resized table is restarted.
+     *
+     * @return Always false.
+     */
+    @Override
+    public boolean isResizable()
+    {
+        return false;
+    }
+
+    /**
+     * The discrete event engine runs on its virtual clock.
+     *
+     * @return The virtual time in nanoseconds.
+     */
+    @Override
+    public long nanoTime()
+    {
+        return this.now;
+    }
+
+    /**
+     * Processes the events in the order of their due time until the simulation is stopped or dead-locked.
+     * The whole table shares one safe point between two events, so freezing stops the virtual clock at once.
+     */
+    private void processEvents()
+    {
+        long wallClockStart = System.nanoTime();
+        final Thread currentThread = Thread.currentThread();
+        while (this.heapSize > 0 && !currentThread.isInterrupted())
+        {
+            if (this.simulationState.isFrozen())
+            {
+                final long frozenSince = System.nanoTime();
+                try
+                {
+                    this.simulationState.safePoint();
+                }
+                catch (final InterruptedException e)
+                {
+                    return;
+                }
+
+                /* Do not catch up with the wall clock time spent frozen. */
+                wallClockStart += System.nanoTime() - frozenSince;
+            }
+            final long time = this.heapTimes[0];
+
+            /* Keep pace with the wall clock if requested, a freeze ends the wait. */
+            if (this.clockRate > 0)
+            {
+                final long wallClockDue = wallClockStart + (long) (time / this.clockRate);
+                long delay;
+                while ((delay = wallClockDue - System.nanoTime()) > 0 && !currentThread.isInterrupted() && !this.simulationState.isFrozen())
+                {
+                    LockSupport.parkNanos(this, Math.min(delay, FREEZE_CHECK_INTERVAL));
+                }
+                if (this.simulationState.isFrozen())
+                {
+                    continue;
+                }
+            }
+            final int seat = this.heapSeats[0];
+            this.removeFirst();
+            this.now = time;
+            this.handle(this.philosophers[seat]);
+        }
+    }
+
+    /**
+     * Handles the due event of a philosopher.
+     *
+     * @param philosopher The philosopher.
+     */
+    private void handle(final Philosopher philosopher)
+    {
+        switch (this.phases[philosopher.getSeat()])
+        {
+            case PHASE_THINKING:
+                philosopher.setPhilosopherState(PhilosopherState.HUNGRY);
+                this.hungrySince[philosopher.getSeat()] = this.now;
+                this.nextForks[philosopher.getSeat()] = 0;
+                this.acquireNext(philosopher);
+                break;
+            case PHASE_GOT_FIRST_FORK:
+                this.acquireNext(philosopher);
+                break;
+            case PHASE_EATING:
+                for (final Fork fork : this.forkOrders[philosopher.getSeat()])
+                {
+                    this.release(fork);
+                }
+                this.acquisitionStrategy.recordMeal();
+                this.think(philosopher);
+                break;
+            default:
+                throw new IllegalStateException("Unknown phase of " + philosopher);
+        }
+    }
+
+    /**
+     * Lets the philosopher take his next fork, or eat once he holds all of them.
+     *
+     * @param philosopher The philosopher.
+     */
+    private void acquireNext(final Philosopher philosopher)
+    {
+        final int seat = philosopher.getSeat();
+        final Fork[] forks = this.forkOrders[seat];
+        if (this.nextForks[seat] < forks.length)
+        {
+            this.acquire(philosopher, forks[this.nextForks[seat]]);
+        }
+        else
+        {
+            philosopher.setPhilosopherState(PhilosopherState.EATING);
+            this.acquisitionStrategy.recordWait(this.now - this.hungrySince[seat]);
+            this.phases[seat] = PHASE_EATING;
+            this.schedule(seat, this.simulationState.eatTime(philosopher.getRandom()));
+        }
+    }
+
+    /**
+     * Lets the philosopher take the fork, or queues him until the fork is put back.
+     *
+     * @param philosopher The philosopher.
+     * @param fork The fork he needs next.
+     */
+    private void acquire(final Philosopher philosopher, final Fork fork)
+    {
+        if (fork.tryGet())
+        {
+            this.acquired(philosopher, fork);
+        }
+        else
+        {
+            this.waiters.get(fork.getIndex()).offer(philosopher);
+            this.waitForGraph.waiting(philosopher.getSeat(), fork.getIndex());
+        }
+    }
+
+    /**
+     * Continues the lifecycle of a philosopher who just got a fork.
+     *
+     * @param philosopher The philosopher.
+     * @param fork The fork he got.
+     */
+    private void acquired(final Philosopher philosopher, final Fork fork)
+    {
+        final int seat = philosopher.getSeat();
+        this.waitForGraph.acquired(seat, fork.getIndex());
+        ++this.nextForks[seat];
+        if (this.phases[seat] == PHASE_THINKING)
+        {
+            philosopher.setPhilosopherState(fork == philosopher.getRightFork() ? PhilosopherState.GOT_RIGHT_FORK : PhilosopherState.GOT_LEFT_FORK);
+            this.phases[seat] = PHASE_GOT_FIRST_FORK;
+            this.schedule(seat, this.simulationState.folkGapTime() * NANOS_PER_MILLI);
+        }
+        else
+        {
+            this.acquireNext(philosopher);
+        }
+    }
+
+    /**
+     * Puts the fork back and hands it to the next waiting philosopher.
+     *
+     * @param fork The fork.
+     */
+    private void release(final Fork fork)
+    {
+        this.waitForGraph.released(fork.getIndex());
+        fork.put();
+        final Philosopher waiter = this.waiters.get(fork.getIndex()).poll();
+        if (waiter != null && fork.tryGet())
+        {
+            this.acquired(waiter, fork);
+        }
+    }
+
+    /**
+     * Lets the philosopher think.
+     *
+     * @param philosopher The philosopher.
+     */
+    private void think(final Philosopher philosopher)
+    {
+        final int seat = philosopher.getSeat();
+        philosopher.setPhilosopherState(PhilosopherState.THINKING);
+        this.phases[seat] = PHASE_THINKING;
+        this.schedule(seat, this.simulationState.sleepTime(philosopher.getRandom()));
+    }
+
+    /**
+     * Adds an event to the queue.
+     *
+     * @param seat The philosopher of the event.
+     * @param delay The delay from now in nanoseconds.
+     */
+    private void schedule(final int seat, final long delay)
+    {
+        final long time = this.now + delay;
+        int child = this.heapSize++;
+        while (child > 0)
+        {
+            final int parent = (child - 1) >>> 1;
+            if (!this.before(time, seat, parent))
+            {
+                break;
+            }
+            this.heapTimes[child] = this.heapTimes[parent];
+            this.heapSeats[child] = this.heapSeats[parent];
+            child = parent;
+        }
+        this.heapTimes[child] = time;
+        this.heapSeats[child] = seat;
+    }
+
+    /**
+     * Removes the earliest event from the queue.
+     */
+    private void removeFirst()
+    {
+        final int last = --this.heapSize;
+        final long time = this.heapTimes[last];
+        final int seat = this.heapSeats[last];
+        int parent = 0;
+        int child;
+        while ((child = 2 * parent + 1) < last)
+        {
+            if (child + 1 < last && this.before(this.heapTimes[child + 1], this.heapSeats[child + 1], child))
+            {
+                ++child;
+            }
+            if (!this.before(this.heapTimes[child], this.heapSeats[child], last))
+            {
+                break;
+            }
+            this.heapTimes[parent] = this.heapTimes[child];
+            this.heapSeats[parent] = this.heapSeats[child];
+            parent = child;
+        }
+        this.heapTimes[parent] = time;
+        this.heapSeats[parent] = seat;
+    }
+
+    /**
+     * Orders the events by due time. Events due at the same time are ordered by seat, so runs are repeatable.
+     *
+     * @param time The due time of the event.
+     * @param seat The philosopher of the event.
+     * @param index The heap index of the event to compare with.
+     * @return True if the event is due before the other one.
+     */
+    private boolean before(final long time, final int seat, final int index)
+    {
+        return time < this.heapTimes[index] || (time == this.heapTimes[index] && seat < this.heapSeats[index]);
+    }
+
+}
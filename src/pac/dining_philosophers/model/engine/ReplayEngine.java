@@ -0,0 +1,389 @@
+package pac.dining_philosophers.model.engine;
+
+import pac.dining_philosophers.model.entities.Philosopher;
+import pac.dining_philosophers.model.states.PhilosopherState;
+import pac.dining_philosophers.model.states.SimulationState;
+import pac.dining_philosophers.model.states.Topology;
+import pac.dining_philosophers.model.states.WaitForGraph;
+import pac.dining_philosophers.model.utils.TraceEventType;
+import pac.dining_philosophers.model.utils.TraceReader;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a recorded trace instead of running the philosophers. A single thread reads the records and applies them to
+ * the table: state changes to the philosophers and fork changes and waits to the wait-for graph, so the views show the
+ * recorded run and its dead-locks. Each table is rebuilt with the topology and seed recorded before it. The clock
+ * follows the times of the records; a new table in the trace restarts it.
+ *
+ * @author Claudia Panoch
+ */
+public class ReplayEngine implements SimulationEngine
+{
+
+    /**
+     * All states, indexed by their ordinal.
+     */
+    private static final PhilosopherState[] STATES = PhilosopherState.values();
+
+    /**
+     * All topologies, indexed by their ordinal.
+     */
+    private static final Topology[] TOPOLOGIES = Topology.values();
+
+    /**
+     * The longest time the engine waits for the wall clock without checking for a freeze, in nanoseconds.
+     */
+    private static final long FREEZE_CHECK_INTERVAL = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * The longest time to wait for the replay thread to end, in nanoseconds.
+     */
+    private static final long JOIN_TIMEOUT = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * The simulation shown.
+     */
+    private final SimulationState simulationState;
+
+    /**
+     * The trace.
+     */
+    private final TraceReader traceReader;
+
+    /**
+     * Creates the thread reading the trace.
+     */
+    private final ThreadFactory threadFactory;
+
+    /**
+     * Recorded nanoseconds per wall clock nanosecond, 0 to replay as fast as possible.
+     */
+    private final double speedMultiplier;
+
+    /**
+     * The time of the replay clock in nanoseconds.
+     */
+    private volatile long now = 0;
+
+    /**
+     * The thread reading the trace.
+     */
+    private Thread replayThread = null;
+
+    /**
+     * The philosophers of the current table.
+     */
+    private Philosopher[] philosophers = null;
+
+    /**
+     * The topology of the last table read, a ring unless the trace records one.
+     */
+    private Topology topology = Topology.RING;
+
+    /**
+     * The degree of the topology of the last table read. Rings ignore it.
+     */
+    private int degree = 1;
+
+    /**
+     * The seed of the last table read.
+     */
+    private long seed = 0;
+
+    /**
+     * Creates a new replay engine.
+     *
+     * @param simulationState The simulation shown.
+     * @param traceReader The trace, positioned before its first record.
+     * @param threadFactory Creates the thread reading the trace.
+     * @param speedMultiplier Recorded nanoseconds per wall clock nanosecond, 0 to replay as fast as possible.
+     */
+    public ReplayEngine(final SimulationState simulationState, final TraceReader traceReader, final ThreadFactory threadFactory, final double speedMultiplier)
+    {
+        this.simulationState = simulationState;
+        this.traceReader = traceReader;
+        this.threadFactory = threadFactory;
+        this.speedMultiplier = speedMultiplier;
+    }
+
+    /**
+     * Reads the trace up to its first table. Only records describing the table may precede it.
+     *
+     * @return True if the trace is positioned on its first table, false if it does not start with one.
+     * @throws IOException Thrown if the trace could not be read or the table does not match its topology.
+     */
+    public boolean readFirstTable() throws IOException
+    {
+        while (this.traceReader.next())
+        {
+            if (this.traceReader.getType() == TraceEventType.TABLE)
+            {
+                this.checkTable();
+                this.now = this.traceReader.getTime();
+                return true;
+            }
+            if (!this.readTableDescription())
+            {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the topology of the last table read.
+     *
+     * @return The way the forks of the table are shared.
+     */
+    public Topology getTopology()
+    {
+        return this.topology;
+    }
+
+    /**
+     * Gets the degree of the topology of the last table read.
+     *
+     * @return The degree.
+     */
+    public int getDegree()
+    {
+        return this.degree;
+    }
+
+    /**
+     * Gets the seed of the last table read.
+     *
+     * @return The seed drawn topologies are drawn from.
+     */
+    public long getSeed()
+    {
+        return this.seed;
+    }
+
+    /**
+     * Starts replaying the trace.
+     *
+     * @param philosophers The philosophers of the first table of the trace, indexed by their seat.
+     */
+    @Override
+    public void start(final Philosopher[] philosophers)
+    {
+        this.philosophers = philosophers;
+        this.replayThread = this.threadFactory.newThread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    ReplayEngine.this.replay();
+                }
+                catch (final IOException e)
+                {
+                    ReplayEngine.this.simulationState.replayFailed(e);
+                }
+                finally
+                {
+                    try
+                    {
+                        ReplayEngine.this.traceReader.close();
+                    }
+                    catch (final IOException ignored) { }
+                }
+            }
+        });
+        this.replayThread.start();
+    }
+
+    /**
+     * Stops the replay and waits for the replay thread to end.
+     */
+    @Override
+    public void stop()
+    {
+        if (this.replayThread != null)
+        {
+            this.replayThread.interrupt();
+            try
+            {
+                TimeUnit.NANOSECONDS.timedJoin(this.replayThread, JOIN_TIMEOUT);
+            }
+            catch (final InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * A replay shows the tables of the trace, it can not be resized.
+     *
+     * @return Always false.
+     */
+    @Override
+    public boolean isResizable()
+    {
+        return false;
+    }
+
+    /**
+     * The replay engine runs on the times of the trace.
+     *
+     * @return The recorded time in nanoseconds.
+     */
+    @Override
+    public long nanoTime()
+    {
+        return this.now;
+    }
+
+    /**
+     * Applies the current record of the trace if it describes the next table.
+     *
+     * @return True if the record described the next table, false if it is of another type.
+     * @throws IOException Thrown if the record names an unknown topology.
+     */
+    private boolean readTableDescription() throws IOException
+    {
+        final int subject = this.traceReader.getSubject();
+        final int value = this.traceReader.getValue();
+        switch (this.traceReader.getType())
+        {
+            case TOPOLOGY:
+                if (subject >= TOPOLOGIES.length || value < 1)
+                {
+                    throw new IOException("The trace contains an unknown topology.");
+                }
+                this.topology = TOPOLOGIES[subject];
+                this.degree = value;
+                return true;
+            case SEED:
+                if (subject == 0)
+                {
+                    this.seed = (this.seed & 0xFFFFFFFF00000000L) | (value & 0xFFFFFFFFL);
+                }
+                else
+                {
+                    this.seed = (this.seed & 0xFFFFFFFFL) | ((long) value << Integer.SIZE);
+                }
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Checks that the forks of the current table record match the topology recorded before it.
+     *
+     * @throws IOException Thrown if the number of forks does not match.
+     */
+    private void checkTable() throws IOException
+    {
+        if (this.topology.forkCount(this.traceReader.getSubject(), this.degree) != this.traceReader.getValue())
+        {
+            throw new IOException("The forks of a table in the trace do not match its topology.");
+        }
+    }
+
+    /**
+     * Applies the records of the trace in their order until the trace ends or the replay is stopped.
+     *
+     * @throws IOException Thrown if the trace could not be read or a table does not match its topology.
+     */
+    private void replay() throws IOException
+    {
+        final Thread currentThread = Thread.currentThread();
+        long wallClockStart = System.nanoTime();
+        long traceStart = this.traceReader.getTime();
+        WaitForGraph waitForGraph = this.simulationState.getWaitForGraph();
+        while (!currentThread.isInterrupted() && this.traceReader.next())
+        {
+            final long time = this.traceReader.getTime();
+
+            /* Keep pace with the wall clock if requested, park while the simulation is frozen. */
+            for (;;)
+            {
+                if (this.simulationState.isFrozen())
+                {
+                    final long frozenSince = System.nanoTime();
+                    try
+                    {
+                        this.simulationState.safePoint();
+                    }
+                    catch (final InterruptedException e)
+                    {
+                        return;
+                    }
+                    wallClockStart += System.nanoTime() - frozenSince;
+                }
+                if (this.speedMultiplier <= 0)
+                {
+                    break;
+                }
+                final long delay = wallClockStart + (long) ((time - traceStart) / this.speedMultiplier) - System.nanoTime();
+                if (delay <= 0 || currentThread.isInterrupted())
+                {
+                    break;
+                }
+                LockSupport.parkNanos(this, Math.min(delay, FREEZE_CHECK_INTERVAL));
+            }
+            this.now = time;
+            final int subject = this.traceReader.getSubject();
+            final int value = this.traceReader.getValue();
+            switch (this.traceReader.getType())
+            {
+                case TABLE:
+                    this.checkTable();
+                    this.simulationState.setUpReplayTable(subject, this.topology, this.degree, this.seed);
+                    this.philosophers = this.simulationState.getPhilosophers();
+                    waitForGraph = this.simulationState.getWaitForGraph();
+                    wallClockStart = System.nanoTime();
+                    traceStart = time;
+                    break;
+                case STATE:
+                    if (subject < this.philosophers.length && value < STATES.length)
+                    {
+                        final Philosopher philosopher = this.philosophers[subject];
+                        if (philosopher.getPhilosopherState() == PhilosopherState.EATING && STATES[value] == PhilosopherState.THINKING)
+                        {
+                            this.simulationState.getAcquisitionStrategy().recordMeal();
+                        }
+                        philosopher.setPhilosopherState(STATES[value]);
+                    }
+                    break;
+                case FORK_ACQUIRED:
+                    if (subject < waitForGraph.getForkCount() && value < waitForGraph.getSeatCount())
+                    {
+                        waitForGraph.acquired(value, subject);
+                    }
+                    break;
+                case FORK_RELEASED:
+                    if (subject < waitForGraph.getForkCount())
+                    {
+                        waitForGraph.released(subject);
+                    }
+                    break;
+                case FORK_AWAITED:
+                    if (subject < waitForGraph.getForkCount() && value < waitForGraph.getSeatCount())
+                    {
+                        waitForGraph.waiting(value, subject);
+                    }
+                    break;
+                case WAIT_CANCELLED:
+                    if (subject < waitForGraph.getSeatCount())
+                    {
+                        waitForGraph.cancelled(subject);
+                    }
+                    break;
+                default:
+                    this.readTableDescription();
+                    break;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,53 @@
+package pac.dining_philosophers.model.engine;
+
+import pac.dining_philosophers.model.entities.Philosopher;
+
+/**
+ * Drives the lifecycle of the philosophers of a simulation.
+ *
+ * @author Claudia Panoch
+ */
+public interface SimulationEngine
+{
+
+    /**
+     * Brings all philosophers to life.
+     *
+     * @param philosophers The philosophers of the table, indexed by their seat.
+     */
+    void start(Philosopher[] philosophers);
+
+    /**
+     * Stops all philosophers and waits a bounded time for their threads to end.
+     */
+    void stop();
+
+    /**
+     * Checks if the engine can add and remove seats of a running table. By default a resized table is restarted.
+     *
+     * @return True if {@link #resize(Philosopher[])} is supported.
+     */
+    default boolean isResizable()
+    {
+        return false;
+    }
+
+    /**
+     * Takes over a resized table. Called while every philosopher of the old table is parked at his safe point; the
+     * philosophers kept from the old table keep their seat. Only called if the engine {@link #isResizable()}.
+     *
+     * @param philosophers The philosophers of the resized table, indexed by their seat.
+     */
+    default void resize(final Philosopher[] philosophers)
+    {
+        throw new UnsupportedOperationException("The engine can not resize a running table.");
+    }
+
+    /**
+     * Gets the current time of the simulation clock.
+     *
+     * @return The simulation time in nanoseconds.
+     */
+    long nanoTime();
+
+}
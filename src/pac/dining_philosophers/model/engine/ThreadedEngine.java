@@ -0,0 +1,139 @@
+package pac.dining_philosophers.model.engine;
+
+import pac.dining_philosophers.model.entities.Philosopher;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs every philosopher on its own thread. The philosophers really sleep and block on their forks.
+ *
+ * @author Claudia Panoch
+ */
+public class ThreadedEngine implements SimulationEngine
+{
+
+    /**
+     * The longest time to wait for stopped philosopher threads to end, in nanoseconds.
+     */
+    private static final long JOIN_TIMEOUT = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Creates the philosopher threads.
+     */
+    private final ThreadFactory threadFactory;
+
+    /**
+     * The threads for the philosopher objects.
+     */
+    private Thread[] philosopherThreads = new Thread[0];
+
+    /**
+     * Creates a new threaded engine.
+     *
+     * @param threadFactory Creates the philosopher threads.
+     */
+    public ThreadedEngine(final ThreadFactory threadFactory)
+    {
+        this.threadFactory = threadFactory;
+    }
+
+    /**
+     * Starts one thread per philosopher.
+     *
+     * @param philosophers The philosophers of the table, indexed by their seat.
+     */
+    @Override
+    public void start(final Philosopher[] philosophers)
+    {
+        this.philosopherThreads = new Thread[philosophers.length];
+        for (int currentPhilosopher = 0; currentPhilosopher < philosophers.length; ++currentPhilosopher)
+        {
+            this.philosopherThreads[currentPhilosopher] = this.threadFactory.newThread(philosophers[currentPhilosopher]);
+            this.philosopherThreads[currentPhilosopher].start();
+        }
+    }
+
+    /**
+     * Interrupt all running philosopher threads and wait for them to end.
+     */
+    @Override
+    public void stop()
+    {
+        stop(this.philosopherThreads);
+    }
+
+    /**
+     * The threads of the philosophers can be added and removed one by one.
+     *
+     * @return Always true.
+     */
+    @Override
+    public boolean isResizable()
+    {
+        return true;
+    }
+
+    /**
+     * Keeps the threads of the remaining seats, starts threads for the added seats and stops the threads of the
+     * removed seats.
+     *
+     * @param philosophers The philosophers of the resized table, indexed by their seat.
+     */
+    @Override
+    public void resize(final Philosopher[] philosophers)
+    {
+        final Thread[] philosopherThreads = Arrays.copyOf(this.philosopherThreads, philosophers.length);
+        for (int currentPhilosopher = this.philosopherThreads.length; currentPhilosopher < philosophers.length; ++currentPhilosopher)
+        {
+            philosopherThreads[currentPhilosopher] = this.threadFactory.newThread(philosophers[currentPhilosopher]);
+            philosopherThreads[currentPhilosopher].start();
+        }
+        final Thread[] removedThreads = Arrays.copyOfRange(this.philosopherThreads, Math.min(philosophers.length, this.philosopherThreads.length), this.philosopherThreads.length);
+        this.philosopherThreads = philosopherThreads;
+        stop(removedThreads);
+    }
+
+    /**
+     * Interrupts threads and waits for them to end, at most for {@link #JOIN_TIMEOUT} in total.
+     *
+     * @param threads The threads.
+     */
+    private static void stop(final Thread[] threads)
+    {
+        for (final Thread thread : threads)
+        {
+            thread.interrupt();
+        }
+        final long deadline = System.nanoTime() + JOIN_TIMEOUT;
+        try
+        {
+            for (final Thread thread : threads)
+            {
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0)
+                {
+                    break;
+                }
+                TimeUnit.NANOSECONDS.timedJoin(thread, remaining);
+            }
+        }
+        catch (final InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The threaded engine runs on the wall clock.
+     *
+     * @return The current value of the system timer in nanoseconds.
+     */
+    @Override
+    public long nanoTime()
+    {
+        return System.nanoTime();
+    }
+
+}
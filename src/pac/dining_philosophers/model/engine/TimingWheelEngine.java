@@ -0,0 +1,651 @@
+package pac.dining_philosophers.model.engine;
+
+import pac.dining_philosophers.model.entities.Fork;
+import pac.dining_philosophers.model.entities.Philosopher;
+import pac.dining_philosophers.model.states.PhilosopherState;
+import pac.dining_philosophers.model.states.SimulationState;
+import pac.dining_philosophers.model.states.WaitForGraph;
+import pac.dining_philosophers.model.strategies.AcquisitionStrategy;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs the lifecycle of all philosophers as continuations on a hierarchical timing wheel in wall clock time.
+ * Nobody sleeps: thinking, the fork gap and eating are timers on the wheel, one timer thread moves the wheel on and
+ * hands the due philosophers to a small pool of workers. The number of threads does not depend on the number of
+ * seats, and every timer fires at its tick or at most one {@link #TICK} plus the hand over late, never early.
+ * <p>
+ * The wheel has {@link #LEVELS} levels of {@link #SLOTS} slots. A timer due within a revolution of the first level
+ * sits in the slot of its tick, later timers sit in a coarser level and move down whenever the level below completes
+ * a revolution. Empty slots are skipped.
+ * <p>
+ * The forks are taken one after the other in the fork order of the acquisition strategy, so only strategies with a
+ * fixed order can run on the wheel. A philosopher waiting for a fork is queued at the fork and continued by the
+ * worker putting it back. The whole table shares one safe point, the timer thread: while
+ * the simulation is frozen no timer fires and the pending timers are postponed by the time spent frozen.
+ *
+ * @author Claudia Panoch
+ */
+public class TimingWheelEngine implements SimulationEngine
+{
+
+    /**
+     * The time of a tick of the wheel in nanoseconds.
+     */
+    public static final long TICK = TimeUnit.MICROSECONDS.toNanos(250);
+
+    /**
+     * The number of slots of a level, one bit of the occupied slots each.
+     */
+    private static final int SLOTS = Long.SIZE;
+
+    /**
+     * The bits of a tick selecting the slot of a level.
+     */
+    private static final int SLOT_BITS = Integer.numberOfTrailingZeros(SLOTS);
+
+    /**
+     * The mask of the slot of a level.
+     */
+    private static final long SLOT_MASK = SLOTS - 1;
+
+    /**
+     * The number of levels, covering more than two days at the first revolution of the last level.
+     */
+    private static final int LEVELS = 6;
+
+    /**
+     * The end of a slot list.
+     */
+    private static final int NONE = -1;
+
+    /**
+     * The philosopher thinks until the timer fires, or waits for his first fork.
+     */
+    private static final byte PHASE_THINKING = 0;
+
+    /**
+     * The philosopher holds his first fork and waits for the gap to pass, or waits for his other forks.
+     */
+    private static final byte PHASE_GOT_FIRST_FORK = 1;
+
+    /**
+     * The philosopher eats until the timer fires.
+     */
+    private static final byte PHASE_EATING = 2;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * The longest time the timer thread waits without checking for a freeze, in nanoseconds.
+     */
+    private static final long FREEZE_CHECK_INTERVAL = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * The longest time to wait for the timer thread and the workers to end, in nanoseconds.
+     */
+    private static final long JOIN_TIMEOUT = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Provides the timings of the simulation.
+     */
+    private final SimulationState simulationState;
+
+    /**
+     * Creates the timer thread and the workers.
+     */
+    private final ThreadFactory threadFactory;
+
+    /**
+     * The number of workers.
+     */
+    private final int workerCount;
+
+    /**
+     * Guards the wheel.
+     */
+    private final Lock wheelLock = new ReentrantLock();
+
+    /**
+     * The first seat of every slot list, level by level.
+     */
+    private final int[] slotHeads = new int[LEVELS * SLOTS];
+
+    /**
+     * The occupied slots of every level, one bit per slot.
+     */
+    private final long[] occupiedSlots = new long[LEVELS];
+
+    /**
+     * The first tick not handled yet.
+     */
+    private long currentTick = 0;
+
+    /**
+     * The tick the timer thread wakes up at unless a timer is due earlier.
+     */
+    private long wakeTick = Long.MAX_VALUE;
+
+    /**
+     * The wall clock time of tick 0 in nanoseconds, moved on by the time spent frozen.
+     */
+    private long origin = 0;
+
+    /**
+     * The next seat in the slot list of every scheduled philosopher.
+     */
+    private int[] nextSeats = null;
+
+    /**
+     * The tick the timer of every scheduled philosopher is due at.
+     */
+    private long[] dueTicks = null;
+
+    /**
+     * The thread moving the wheel on.
+     */
+    private Thread timerThread = null;
+
+    /**
+     * The workers running the continuations of the philosophers.
+     */
+    private ExecutorService workers = null;
+
+    /**
+     * The continuation of every philosopher, handed to the workers when his timer fires.
+     */
+    private Runnable[] continuations = null;
+
+    /**
+     * Counts the meals and wait times of the table.
+     */
+    private AcquisitionStrategy acquisitionStrategy = null;
+
+    /**
+     * Tracks the forks held and awaited by the philosophers of the table.
+     */
+    private WaitForGraph waitForGraph = null;
+
+    /**
+     * The forks of every philosopher in the order he takes them.
+     */
+    private Fork[][] forkOrders = null;
+
+    /**
+     * The current phase of every philosopher.
+     */
+    private byte[] phases = null;
+
+    /**
+     * The time every philosopher got hungry at in nanoseconds.
+     */
+    private long[] hungrySince = null;
+
+    /**
+     * The position of the fork every hungry philosopher takes next in his fork order.
+     */
+    private int[] nextForks = null;
+
+    /**
+     * The philosophers waiting for a fork, indexed by the fork. Every queue also guards taking and putting back its
+     * fork.
+     */
+    private List<ArrayDeque<Philosopher>> waiters = null;
+
+    /**
+     * Creates a new timing wheel engine.
+     *
+     * @param simulationState Provides the timings of the simulation.
+     * @param threadFactory Creates the timer thread and the workers.
+     * @param workerCount The number of workers.
+     */
+    public TimingWheelEngine(final SimulationState simulationState, final ThreadFactory threadFactory, final int workerCount)
+    {
+        if (workerCount < 1)
+        {
+            throw new IllegalArgumentException("At least one worker is required.");
+        }
+        this.simulationState = simulationState;
+        this.threadFactory = threadFactory;
+        this.workerCount = workerCount;
+    }
+
+    /**
+     * Lets all philosophers start thinking and starts the timer thread and the workers.
+     *
+     * @param philosophers The philosophers of the table, indexed by their seat.
+     */
+    @Override
+    public void start(final Philosopher[] philosophers)
+    {
+        final int count = philosophers.length;
+        final int forkCount = this.simulationState.getForks().length;
+        this.acquisitionStrategy = this.simulationState.getAcquisitionStrategy();
+        this.waitForGraph = this.simulationState.getWaitForGraph();
+        this.forkOrders = new Fork[count][];
+        this.phases = new byte[count];
+        this.hungrySince = new long[count];
+        this.nextForks = new int[count];
+        this.nextSeats = new int[count];
+        this.dueTicks = new long[count];
+        this.continuations = new Runnable[count];
+        this.waiters = new ArrayList<>(forkCount);
+        Arrays.fill(this.slotHeads, NONE);
+        Arrays.fill(this.occupiedSlots, 0);
+        this.currentTick = 0;
+        this.origin = System.nanoTime();
+        for (int currentFork = 0; currentFork < forkCount; ++currentFork)
+        {
+            this.waiters.add(new ArrayDeque<Philosopher>(2));
+        }
+        for (final Philosopher philosopher : philosophers)
+        {
+            this.forkOrders[philosopher.getSeat()] = this.acquisitionStrategy.getForkOrder(philosopher);
+            if (this.forkOrders[philosopher.getSeat()] == null)
+            {
+                throw new IllegalStateException("The timing wheel engine needs a strategy with a fork order.");
+            }
+        }
+        for (final Philosopher philosopher : philosophers)
+        {
+            this.continuations[philosopher.getSeat()] = new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    TimingWheelEngine.this.handle(philosopher);
+                }
+            };
+            this.think(philosopher);
+        }
+        this.workers = Executors.newFixedThreadPool(this.workerCount, this.threadFactory);
+        this.timerThread = this.threadFactory.newThread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                TimingWheelEngine.this.turnWheel();
+            }
+        });
+        this.timerThread.start();
+    }
+
+    /**
+     * Stops the timer thread and the workers and waits for them to end.
+     */
+    @Override
+    public void stop()
+    {
+        if (this.timerThread == null)
+        {
+            return;
+        }
+        final long deadline = System.nanoTime() + JOIN_TIMEOUT;
+        this.timerThread.interrupt();
+        try
+        {
+            TimeUnit.NANOSECONDS.timedJoin(this.timerThread, JOIN_TIMEOUT);
+            this.workers.shutdownNow();
+            this.workers.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+        catch (final InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The pending timers belong to the seats of the table, a resized table is restarted.
+     *
+     * @return Always false.
+     */
+    @Override
+    public boolean isResizable()
+    {
+        return false;
+    }
+
+    /**
+     * The timing wheel engine runs on the wall clock.
+     *
+     * @return The current value of the system timer in nanoseconds.
+     */
+    @Override
+    public long nanoTime()
+    {
+        return System.nanoTime();
+    }
+
+    /**
+     * The timer thread: hands the due philosophers to the workers and sleeps until the next occupied tick, until the
+     * simulation is stopped. While the simulation is frozen the thread parks at the safe point.
+     */
+    private void turnWheel()
+    {
+        final Thread currentThread = Thread.currentThread();
+        while (!currentThread.isInterrupted())
+        {
+            if (this.simulationState.isFrozen())
+            {
+                final long frozenSince = System.nanoTime();
+                try
+                {
+                    this.simulationState.safePoint();
+                }
+                catch (final InterruptedException e)
+                {
+                    return;
+                }
+
+                /* Postpone the pending timers, so nobody catches up with the time spent frozen. */
+                this.wheelLock.lock();
+                try
+                {
+                    this.origin += System.nanoTime() - frozenSince;
+                }
+                finally
+                {
+                    this.wheelLock.unlock();
+                }
+            }
+            final long delay;
+            this.wheelLock.lock();
+            try
+            {
+                this.advance((System.nanoTime() - this.origin) / TICK);
+                this.wakeTick = this.nextTick(this.currentTick);
+                delay = this.origin + this.wakeTick * TICK - System.nanoTime();
+            }
+            finally
+            {
+                this.wheelLock.unlock();
+            }
+            if (delay > 0)
+            {
+                LockSupport.parkNanos(this, Math.min(delay, FREEZE_CHECK_INTERVAL));
+            }
+        }
+    }
+
+    /**
+     * Handles all ticks up to the given one: moves the timers of the coarser levels down at the end of every
+     * revolution and fires the timers of the occupied slots. Empty slots are skipped.
+     *
+     * @param lastTick The last tick to handle.
+     */
+    private void advance(final long lastTick)
+    {
+        while (this.currentTick <= lastTick)
+        {
+            final int slot = (int) (this.currentTick & SLOT_MASK);
+            if (slot == 0)
+            {
+                this.cascade();
+            }
+            if ((this.occupiedSlots[0] & (1L << slot)) != 0)
+            {
+                int seat = this.takeSlot(0, slot);
+                while (seat != NONE)
+                {
+                    final int nextSeat = this.nextSeats[seat];
+                    this.workers.execute(this.continuations[seat]);
+                    seat = nextSeat;
+                }
+            }
+            this.currentTick = Math.min(this.nextTick(this.currentTick + 1), lastTick + 1);
+        }
+    }
+
+    /**
+     * Moves the timers of the coarser levels whose revolution starts at the current tick one or more levels down,
+     * starting at the coarsest level, so a timer passes every level on its way.
+     */
+    private void cascade()
+    {
+        int levels = 1;
+        while (levels < LEVELS && ((this.currentTick >>> (levels * SLOT_BITS)) & SLOT_MASK) == 0)
+        {
+            ++levels;
+        }
+        for (int level = Math.min(levels, LEVELS - 1); level > 0; --level)
+        {
+            int seat = this.takeSlot(level, (int) ((this.currentTick >>> (level * SLOT_BITS)) & SLOT_MASK));
+            while (seat != NONE)
+            {
+                final int nextSeat = this.nextSeats[seat];
+                this.insert(seat, this.dueTicks[seat]);
+                seat = nextSeat;
+            }
+        }
+    }
+
+    /**
+     * Gets the next tick the timer thread has to handle: the next occupied slot of the first level or the end of its
+     * revolution, when the coarser levels move down.
+     *
+     * @param tick The first tick to consider.
+     * @return The next tick to handle.
+     */
+    private long nextTick(final long tick)
+    {
+        final int slot = (int) (tick & SLOT_MASK);
+        if (slot == 0)
+        {
+            return tick;
+        }
+        final long occupied = this.occupiedSlots[0] & (-1L << slot);
+        return tick - slot + (occupied != 0 ? Long.numberOfTrailingZeros(occupied) : SLOTS);
+    }
+
+    /**
+     * Schedules the continuation of a philosopher.
+     *
+     * @param seat The philosopher.
+     * @param delay The delay from now in nanoseconds.
+     */
+    private void schedule(final int seat, final long delay)
+    {
+        this.wheelLock.lock();
+        try
+        {
+            final long dueTick = Math.max(this.currentTick, (System.nanoTime() - this.origin + delay + TICK - 1) / TICK);
+            this.dueTicks[seat] = dueTick;
+            this.insert(seat, dueTick);
+            if (dueTick < this.wakeTick)
+            {
+                this.wakeTick = dueTick;
+                LockSupport.unpark(this.timerThread);
+            }
+        }
+        finally
+        {
+            this.wheelLock.unlock();
+        }
+    }
+
+    /**
+     * Puts a timer into the slot of the finest level that reaches its tick.
+     *
+     * @param seat The philosopher of the timer.
+     * @param dueTick The tick the timer is due at, not before the current tick.
+     */
+    private void insert(final int seat, final long dueTick)
+    {
+        final long distance = Math.max(0, dueTick - this.currentTick);
+        int level = 0;
+        while (level < LEVELS - 1 && distance >>> ((level + 1) * SLOT_BITS) != 0)
+        {
+            ++level;
+        }
+
+        /* Timers beyond the last level wait in its last slot of the revolution and are put back from there. */
+        final long tick = distance >>> (LEVELS * SLOT_BITS) != 0 ? this.currentTick + (1L << (LEVELS * SLOT_BITS)) - 1 : Math.max(dueTick, this.currentTick);
+        final int slot = (int) ((tick >>> (level * SLOT_BITS)) & SLOT_MASK);
+        final int head = level * SLOTS + slot;
+        this.nextSeats[seat] = this.slotHeads[head];
+        this.slotHeads[head] = seat;
+        this.occupiedSlots[level] |= 1L << slot;
+    }
+
+    /**
+     * Empties a slot.
+     *
+     * @param level The level of the slot.
+     * @param slot The slot.
+     * @return The first seat of the slot list, linked by {@link #nextSeats}.
+     */
+    private int takeSlot(final int level, final int slot)
+    {
+        final int head = level * SLOTS + slot;
+        final int seat = this.slotHeads[head];
+        this.slotHeads[head] = NONE;
+        this.occupiedSlots[level] &= ~(1L << slot);
+        return seat;
+    }
+
+    /**
+     * Continues a philosopher whose timer fired. Runs on a worker.
+     *
+     * @param philosopher The philosopher.
+     */
+    private void handle(final Philosopher philosopher)
+    {
+        switch (this.phases[philosopher.getSeat()])
+        {
+            case PHASE_THINKING:
+                philosopher.setPhilosopherState(PhilosopherState.HUNGRY);
+                this.hungrySince[philosopher.getSeat()] = System.nanoTime();
+                this.nextForks[philosopher.getSeat()] = 0;
+                this.acquireNext(philosopher);
+                break;
+            case PHASE_GOT_FIRST_FORK:
+                this.acquireNext(philosopher);
+                break;
+            case PHASE_EATING:
+                for (final Fork fork : this.forkOrders[philosopher.getSeat()])
+                {
+                    this.release(fork);
+                }
+                this.acquisitionStrategy.recordMeal();
+                this.think(philosopher);
+                break;
+            default:
+                throw new IllegalStateException("Unknown phase of " + philosopher);
+        }
+    }
+
+    /**
+     * Lets the philosopher take his next fork, or eat once he holds all of them.
+     *
+     * @param philosopher The philosopher.
+     */
+    private void acquireNext(final Philosopher philosopher)
+    {
+        final int seat = philosopher.getSeat();
+        final Fork[] forks = this.forkOrders[seat];
+        if (this.nextForks[seat] < forks.length)
+        {
+            this.acquire(philosopher, forks[this.nextForks[seat]]);
+        }
+        else
+        {
+            philosopher.setPhilosopherState(PhilosopherState.EATING);
+            this.acquisitionStrategy.recordWait(System.nanoTime() - this.hungrySince[seat]);
+            this.phases[seat] = PHASE_EATING;
+            this.schedule(seat, this.simulationState.eatTime(philosopher.getRandom()));
+        }
+    }
+
+    /**
+     * Lets the philosopher take the fork, or queues him until the fork is put back.
+     *
+     * @param philosopher The philosopher.
+     * @param fork The fork he needs next.
+     */
+    private void acquire(final Philosopher philosopher, final Fork fork)
+    {
+        final ArrayDeque<Philosopher> forkWaiters = this.waiters.get(fork.getIndex());
+        synchronized (forkWaiters)
+        {
+            if (!fork.tryGet())
+            {
+                forkWaiters.offer(philosopher);
+                this.waitForGraph.waiting(philosopher.getSeat(), fork.getIndex());
+                return;
+            }
+            this.waitForGraph.acquired(philosopher.getSeat(), fork.getIndex());
+        }
+        this.acquired(philosopher);
+    }
+
+    /**
+     * Continues the lifecycle of a philosopher who just got a fork.
+     *
+     * @param philosopher The philosopher.
+     */
+    private void acquired(final Philosopher philosopher)
+    {
+        final int seat = philosopher.getSeat();
+        ++this.nextForks[seat];
+        if (this.phases[seat] == PHASE_THINKING)
+        {
+            philosopher.setPhilosopherState(this.forkOrders[seat][0] == philosopher.getRightFork() ? PhilosopherState.GOT_RIGHT_FORK : PhilosopherState.GOT_LEFT_FORK);
+            this.phases[seat] = PHASE_GOT_FIRST_FORK;
+            this.schedule(seat, this.simulationState.folkGapTime() * NANOS_PER_MILLI);
+        }
+        else
+        {
+            this.acquireNext(philosopher);
+        }
+    }
+
+    /**
+     * Puts the fork back and continues the next waiting philosopher with it.
+     *
+     * @param fork The fork.
+     */
+    private void release(final Fork fork)
+    {
+        final ArrayDeque<Philosopher> forkWaiters = this.waiters.get(fork.getIndex());
+        final Philosopher waiter;
+        synchronized (forkWaiters)
+        {
+            this.waitForGraph.released(fork.getIndex());
+            fork.put();
+            if (forkWaiters.isEmpty() || !fork.tryGet())
+            {
+                return;
+            }
+            waiter = forkWaiters.poll();
+            this.waitForGraph.acquired(waiter.getSeat(), fork.getIndex());
+        }
+        this.acquired(waiter);
+    }
+
+    /**
+     * Lets the philosopher think.
+     *
+     * @param philosopher The philosopher.
+     */
+    private void think(final Philosopher philosopher)
+    {
+        final int seat = philosopher.getSeat();
+        philosopher.setPhilosopherState(PhilosopherState.THINKING);
+        this.phases[seat] = PHASE_THINKING;
+        this.schedule(seat, this.simulationState.sleepTime(philosopher.getRandom()));
+    }
+
+}
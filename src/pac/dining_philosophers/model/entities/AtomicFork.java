@@ -0,0 +1,162 @@
+package pac.dining_philosophers.model.entities;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free fork. The fork is taken with a compare-and-set on its state. A philosopher who finds the fork in use
+ * spins briefly, because the fork is often put back soon, and parks afterwards until the fork is put back.
+ */
+public class AtomicFork extends Fork
+{
+
+    /**
+     * The number of attempts before a waiting philosopher parks.
+     */
+    private static final int SPIN_LIMIT = 128;
+
+    /**
+     * State of an available fork.
+     */
+    private static final int AVAILABLE = 0;
+
+    /**
+     * State of a fork in use.
+     */
+    private static final int TAKEN = 1;
+
+    /**
+     * Atomic access to the state.
+     */
+    private static final VarHandle STATE;
+
+    static
+    {
+        try
+        {
+            STATE = MethodHandles.lookup().findVarHandle(AtomicFork.class, "state", int.class);
+        }
+        catch (final ReflectiveOperationException e)
+        {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * The state of the fork, available or taken.
+     */
+    private volatile int state = AVAILABLE;
+
+    /**
+     * The parked philosopher threads waiting for the fork.
+     */
+    private final Queue<Thread> waiters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates a new fork.
+     *
+     * @param index The position of the fork on the table.
+     */
+    public AtomicFork(final int index)
+    {
+        super(index);
+    }
+
+    /**
+     * Puts back the fork on the table and wakes up the longest parked philosopher.
+     */
+    @Override
+    public final void put()
+    {
+        this.state = AVAILABLE;
+        this.wakeWaiter();
+    }
+
+    /**
+     * Waits until the fork is available and takes it. The operation spins briefly and parks afterwards.
+     * This step may cause dead-locks.
+     *
+     * @throws InterruptedException Thrown if the operation was interrupted.
+     */
+    @Override
+    public final void get() throws InterruptedException
+    {
+        for (int spin = 0; spin < SPIN_LIMIT; ++spin)
+        {
+            if (this.tryGet())
+            {
+                return;
+            }
+            Thread.onSpinWait();
+        }
+
+        /* Queue up before the last attempt, so a put in between will find and wake us. */
+        final Thread currentThread = Thread.currentThread();
+        this.waiters.offer(currentThread);
+        while (!this.tryGet())
+        {
+            LockSupport.park(this);
+            if (Thread.interrupted())
+            {
+
+                /* We may have consumed the wake-up of the last put, so pass it on. */
+                this.waiters.remove(currentThread);
+                if (this.state == AVAILABLE)
+                {
+                    this.wakeWaiter();
+                }
+                throw new InterruptedException();
+            }
+        }
+        this.waiters.remove(currentThread);
+    }
+
+    /**
+     * Gets the fork from the table if it is available. The operation never waits.
+     *
+     * @return True if the fork was taken, false if it is in use.
+     */
+    @Override
+    public final boolean tryGet()
+    {
+        return this.state == AVAILABLE && STATE.compareAndSet(this, AVAILABLE, TAKEN);
+    }
+
+    /**
+     * Checks if the fork is currently in use. This is a plain read and takes no lock.
+     *
+     * @return True if the fork is taken, false if the fork is available.
+     */
+    @Override
+    public final boolean isTaken()
+    {
+        return this.state == TAKEN;
+    }
+
+    /**
+     * Gets the number of parked philosophers waiting for the fork. Spinning philosophers are not counted.
+     *
+     * @return The length of the queue.
+     */
+    @Override
+    public final int getQueueLength()
+    {
+        return this.waiters.size();
+    }
+
+    /**
+     * Wakes up the longest parked philosopher, if there is one.
+     */
+    private void wakeWaiter()
+    {
+        final Thread waiter = this.waiters.peek();
+        if (waiter != null)
+        {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+}
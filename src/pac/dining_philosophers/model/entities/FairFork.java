@@ -0,0 +1,200 @@
+package pac.dining_philosophers.model.entities;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fork handed over in the order of the requests. Waiting philosophers queue up; putting the fork back hands it
+ * directly to the longest waiting philosopher, who wakes up holding it. Nobody barges in between, not even with
+ * {@link #tryGet()}, so no philosopher waits for more than the meals of those queued before him. The price is a
+ * wake-up on the critical path of every hand over.
+ *
+ * @author Claudia Panoch
+ */
+public class FairFork extends Fork
+{
+
+    /**
+     * A philosopher waiting for the fork.
+     */
+    private static final class Waiter
+    {
+
+        /**
+         * The waiting thread.
+         */
+        private final Thread thread = Thread.currentThread();
+
+        /**
+         * True once the fork was handed to the waiter.
+         */
+        private volatile boolean granted = false;
+
+    }
+
+    /**
+     * Guards the state and the queue of the fork.
+     */
+    private final Lock lock = new ReentrantLock();
+
+    /**
+     * The waiting philosophers in the order of their requests.
+     */
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+
+    /**
+     * Indicates if the fork is taken, also while it is handed over.
+     */
+    private volatile boolean taken = false;
+
+    /**
+     * The number of waiting philosophers.
+     */
+    private volatile int queueLength = 0;
+
+    /**
+     * Creates a new fork.
+     *
+     * @param index The position of the fork on the table.
+     */
+    public FairFork(final int index)
+    {
+        super(index);
+    }
+
+    /**
+     * Hands the fork to the longest waiting philosopher, or puts it back on the table if nobody waits.
+     */
+    @Override
+    public final void put()
+    {
+        final Waiter waiter;
+        this.lock.lock();
+        try
+        {
+            waiter = this.waiters.poll();
+            if (waiter == null)
+            {
+                this.taken = false;
+                return;
+            }
+            this.queueLength = this.waiters.size();
+            waiter.granted = true;
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+        LockSupport.unpark(waiter.thread);
+    }
+
+    /**
+     * Takes the fork if it is available, otherwise queues up and parks until the fork is handed over.
+     * This step may cause dead-locks.
+     *
+     * @throws InterruptedException Thrown if the operation was interrupted, the fork is passed on if it was handed
+     *     over meanwhile.
+     */
+    @Override
+    public final void get() throws InterruptedException
+    {
+        final Waiter waiter = new Waiter();
+        this.lock.lock();
+        try
+        {
+            if (!this.taken)
+            {
+                this.taken = true;
+                return;
+            }
+            this.waiters.offer(waiter);
+            this.queueLength = this.waiters.size();
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+        while (!waiter.granted)
+        {
+            LockSupport.park(this);
+            if (Thread.interrupted())
+            {
+                this.withdraw(waiter);
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * Takes the fork if it is available and nobody waits for it. The operation never waits.
+     *
+     * @return True if the fork was taken, false if it is in use.
+     */
+    @Override
+    public final boolean tryGet()
+    {
+        this.lock.lock();
+        try
+        {
+            if (this.taken)
+            {
+                return false;
+            }
+            this.taken = true;
+            return true;
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Checks if the fork is currently in use. This is a plain read and takes no lock.
+     *
+     * @return True if the fork is taken, false if the fork is available.
+     */
+    @Override
+    public final boolean isTaken()
+    {
+        return this.taken;
+    }
+
+    /**
+     * Gets the number of philosophers waiting for the fork. This is a plain read and takes no lock.
+     *
+     * @return The length of the queue.
+     */
+    @Override
+    public final int getQueueLength()
+    {
+        return this.queueLength;
+    }
+
+    /**
+     * Withdraws an interrupted waiter. A fork handed to him meanwhile is passed on.
+     *
+     * @param waiter The waiter.
+     */
+    private void withdraw(final Waiter waiter)
+    {
+        this.lock.lock();
+        try
+        {
+            if (!waiter.granted)
+            {
+                this.waiters.remove(waiter);
+                this.queueLength = this.waiters.size();
+                return;
+            }
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+        this.put();
+    }
+
+}
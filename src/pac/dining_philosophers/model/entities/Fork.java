@@ -1,50 +1,114 @@
 package pac.dining_philosophers.model.entities;
 
+import pac.dining_philosophers.model.states.WaitForGraph;
+
+import java.io.IOException;
 import java.util.Observable;
 
 /**
  * Model of a single fork.
  */
-public class Fork extends Observable
+public abstract class Fork extends Observable
 {
 
     /**
-     * True if the fork is taken, otherwise false.
+     * The position of the fork on the table.
      */
-    private boolean taken = false;
+    private final int index;
 
     /**
-     * Puts back the fork on the table.
+     * Creates a new fork.
+     *
+     * @param index The position of the fork on the table.
      */
-    public final synchronized void put()
+    protected Fork(final int index)
     {
-        this.taken = false;
-        this.notify();
+        this.index = index;
     }
 
+    /**
+     * Puts back the fork on the table.
+     */
+    public abstract void put();
+
     /**
      * Gets the fork form the table. The operation will wait until the fork is available.
      * This step may cause dead-locks.
      *
      * @throws InterruptedException Thrown if the operation was interrupted.
+     * @throws IOException Thrown if the fork is kept by a fork manager that could not be reached.
      */
-    public final synchronized void get() throws InterruptedException
+    public abstract void get() throws InterruptedException, IOException;
+
+    /**
+     * Gets the fork from the table and tells whether the philosopher had to wait for it. A philosopher who has to wait
+     * is entered into the wait-for graph before he starts waiting and taken out again if he gives up. By default the
+     * fork is tried first and awaited if it is in use.
+     *
+     * @param waitForGraph The wait-for graph of the table.
+     * @param seat The seat of the philosopher.
+     * @return True if the fork was in use and the philosopher had to wait.
+     * @throws InterruptedException Thrown if the operation was interrupted.
+     * @throws IOException Thrown if the fork is kept by a fork manager that could not be reached.
+     */
+    public boolean get(final WaitForGraph waitForGraph, final int seat) throws InterruptedException, IOException
     {
-        while (this.taken)
+        if (this.tryGet())
+        {
+            return false;
+        }
+        waitForGraph.waiting(seat, this.index);
+        try
+        {
+            this.get();
+        }
+        catch (final InterruptedException | IOException e)
         {
-            this.wait();
+            waitForGraph.cancelled(seat);
+            throw e;
         }
-        this.taken = true;
+        return true;
     }
 
+    /**
+     * Gets the fork from the table if it is available. The operation never waits. A fork that can not be reached
+     * counts as in use, {@link #get()} reports why.
+     *
+     * @return True if the fork was taken, false if it is in use.
+     */
+    public abstract boolean tryGet();
+
     /**
      * Checks if the fork is currently in use.
      *
      * @return True if the fork is taken, false if the fork is available.
      */
-    public final synchronized boolean isTaken()
+    public abstract boolean isTaken();
+
+    /**
+     * Gets the number of philosophers of this process waiting for the fork. Forks waiting elsewhere report 0.
+     *
+     * @return The length of the queue.
+     */
+    public int getQueueLength()
+    {
+        return 0;
+    }
+
+    /**
+     * Called once the table of the fork was stopped. Forks shared beyond the table give themselves back here if a
+     * stopped philosopher still holds them; local forks are simply dropped.
+     */
+    public void dispose() { }
+
+    /**
+     * Gets the position of the fork on the table.
+     *
+     * @return The index of the fork.
+     */
+    public final int getIndex()
     {
-        return this.taken;
+        return this.index;
     }
 
 }
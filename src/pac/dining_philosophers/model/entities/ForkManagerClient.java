@@ -0,0 +1,528 @@
+package pac.dining_philosophers.model.entities;
+
+import pac.dining_philosophers.model.utils.ForkProtocol;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The connection of a philosopher process to a fork manager, shared by all remote forks of the process.
+ * Requests of all philosophers are queued and written by a sender thread, so requests made while a write is in
+ * progress go out together in the next one. A receiver thread hands the responses to the waiting philosophers; any
+ * number of requests may be in flight. See {@link ForkProtocol} for the protocol.
+ *
+ * @author Claudia Panoch
+ */
+public class ForkManagerClient
+{
+
+    /**
+     * The system property with the address of the fork manager, host:port.
+     */
+    public static final String ADDRESS_PROPERTY = "pac.dining_philosophers.forkManager";
+
+    /**
+     * The system property with the id of the first fork of the table at the fork manager, 0 by default. Processes
+     * with the same base share their forks, processes with distinct ranges only share the fork manager.
+     */
+    public static final String FORK_BASE_PROPERTY = "pac.dining_philosophers.forkBase";
+
+    /**
+     * The result of a request whose connection was lost.
+     */
+    private static final int FAILED = -1;
+
+    /**
+     * The size of the receive buffer in bytes.
+     */
+    private static final int RECEIVE_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The initial size of the send buffers in bytes.
+     */
+    private static final int SEND_BUFFER_SIZE = 1 << 12;
+
+    /**
+     * The connection of the process, created by the first remote fork.
+     */
+    private static ForkManagerClient defaultClient = null;
+
+    /**
+     * A request waiting for its response.
+     */
+    static final class Request
+    {
+
+        /**
+         * The id of the request.
+         */
+        private final int id;
+
+        /**
+         * The waiting thread.
+         */
+        private final Thread waiter = Thread.currentThread();
+
+        /**
+         * The result, 0 until the response arrived.
+         */
+        private volatile int result = 0;
+
+        /**
+         * True once the fork manager answered that the request waits for the fork.
+         */
+        private volatile boolean queued = false;
+
+        /**
+         * Creates a new request.
+         *
+         * @param id The id of the request.
+         */
+        private Request(final int id)
+        {
+            this.id = id;
+        }
+
+        /**
+         * Gets the id of the request.
+         *
+         * @return The request id.
+         */
+        int getId()
+        {
+            return this.id;
+        }
+
+        /**
+         * Hands the result to the waiting thread.
+         *
+         * @param result The result.
+         */
+        private void complete(final int result)
+        {
+            this.result = result;
+            LockSupport.unpark(this.waiter);
+        }
+
+        /**
+         * Tells the waiting thread that the request waits for the fork.
+         */
+        private void queue()
+        {
+            this.queued = true;
+            LockSupport.unpark(this.waiter);
+        }
+
+        /**
+         * Waits until the fork is granted or the fork manager answered that the request waits for it.
+         *
+         * @return True if the request waits for the fork, false if the fork was granted at once.
+         * @throws InterruptedException Thrown if the wait was interrupted.
+         * @throws IOException Thrown if the connection was lost.
+         */
+        boolean awaitQueued() throws InterruptedException, IOException
+        {
+            while (this.result == 0 && !this.queued)
+            {
+                LockSupport.park(this);
+                if (Thread.interrupted())
+                {
+                    throw new InterruptedException();
+                }
+            }
+            final boolean queued = this.queued;
+            if (!queued)
+            {
+                this.checkConnection();
+            }
+            return queued;
+        }
+
+        /**
+         * Waits for the response.
+         *
+         * @return True if the fork was granted.
+         * @throws InterruptedException Thrown if the wait was interrupted.
+         * @throws IOException Thrown if the connection was lost.
+         */
+        boolean await() throws InterruptedException, IOException
+        {
+            while (this.result == 0)
+            {
+                LockSupport.park(this);
+                if (Thread.interrupted())
+                {
+                    throw new InterruptedException();
+                }
+            }
+            return this.isGranted();
+        }
+
+        /**
+         * Waits for the response, an interrupt is kept for later.
+         *
+         * @return True if the fork was granted.
+         * @throws IOException Thrown if the connection was lost.
+         */
+        boolean awaitUninterruptibly() throws IOException
+        {
+            boolean interrupted = false;
+            while (this.result == 0)
+            {
+                LockSupport.park(this);
+                interrupted |= Thread.interrupted();
+            }
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+            return this.isGranted();
+        }
+
+        /**
+         * Checks the result of the response.
+         *
+         * @return True if the fork was granted.
+         * @throws IOException Thrown if the connection was lost.
+         */
+        private boolean isGranted() throws IOException
+        {
+            this.checkConnection();
+            return this.result == ForkProtocol.GRANTED;
+        }
+
+        /**
+         * Checks that the response did not fail.
+         *
+         * @throws IOException Thrown if the connection was lost.
+         */
+        private void checkConnection() throws IOException
+        {
+            if (this.result == FAILED)
+            {
+                throw new IOException("The connection to the fork manager was lost.");
+            }
+        }
+
+    }
+
+    /**
+     * The connection to the fork manager.
+     */
+    private final SocketChannel channel;
+
+    /**
+     * The id of the fork manager's fork for the first fork of the table.
+     */
+    private final int forkBase;
+
+    /**
+     * The requests waiting for their response, by id.
+     */
+    private final Map<Integer, Request> requests = new ConcurrentHashMap<>();
+
+    /**
+     * The id of the next request.
+     */
+    private final AtomicInteger nextRequestId = new AtomicInteger();
+
+    /**
+     * Guards the queued requests.
+     */
+    private final Lock sendLock = new ReentrantLock();
+
+    /**
+     * Signalled when requests were queued.
+     */
+    private final Condition queued = this.sendLock.newCondition();
+
+    /**
+     * The requests queued for the next write.
+     */
+    private ByteBuffer queue = ByteBuffer.allocate(SEND_BUFFER_SIZE);
+
+    /**
+     * The requests being written, swapped with the queue.
+     */
+    private ByteBuffer sending = ByteBuffer.allocate(SEND_BUFFER_SIZE);
+
+    /**
+     * True once the connection was lost.
+     */
+    private volatile boolean failed = false;
+
+    /**
+     * Connects to a fork manager.
+     *
+     * @param address The address of the fork manager.
+     * @param forkBase The id of the fork manager's fork for the first fork of the table.
+     * @throws IOException Thrown if the fork manager could not be reached.
+     */
+    public ForkManagerClient(final InetSocketAddress address, final int forkBase) throws IOException
+    {
+        this.forkBase = forkBase;
+        this.channel = SocketChannel.open(address);
+        this.channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        this.startThread("fork-manager-sender", new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                ForkManagerClient.this.send();
+            }
+        });
+        this.startThread("fork-manager-receiver", new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                ForkManagerClient.this.receive();
+            }
+        });
+    }
+
+    /**
+     * Checks if a fork manager is configured by {@link #ADDRESS_PROPERTY}.
+     *
+     * @return True if remote forks can be used.
+     */
+    public static boolean isConfigured()
+    {
+        return System.getProperty(ADDRESS_PROPERTY) != null;
+    }
+
+    /**
+     * Gets the connection of the process, connecting to the fork manager configured by {@link #ADDRESS_PROPERTY}
+     * first.
+     *
+     * @return The connection.
+     * @throws IllegalStateException Thrown if no fork manager is configured or it could not be reached.
+     */
+    public static synchronized ForkManagerClient getDefault()
+    {
+        if (defaultClient == null || defaultClient.failed)
+        {
+            final String address = System.getProperty(ADDRESS_PROPERTY);
+            if (address == null)
+            {
+                throw new IllegalStateException("No fork manager configured, set " + ADDRESS_PROPERTY + ".");
+            }
+            final int separator = address.lastIndexOf(':');
+            final String host = separator < 0 ? address : address.substring(0, separator);
+            final int port = separator < 0 ? ForkProtocol.DEFAULT_PORT : Integer.parseInt(address.substring(separator + 1));
+            try
+            {
+                defaultClient = new ForkManagerClient(new InetSocketAddress(host, port), Integer.getInteger(FORK_BASE_PROPERTY, 0));
+            }
+            catch (final IOException e)
+            {
+                throw new IllegalStateException("The fork manager at " + address + " could not be reached.", e);
+            }
+        }
+        return defaultClient;
+    }
+
+    /**
+     * Gets the fork manager's id of a fork of the table.
+     *
+     * @param index The position of the fork on the table.
+     * @return The id at the fork manager.
+     */
+    int forkId(final int index)
+    {
+        return this.forkBase + index;
+    }
+
+    /**
+     * Sends a request that is answered.
+     *
+     * @param operation {@link ForkProtocol#ACQUIRE} or {@link ForkProtocol#TRY_ACQUIRE}.
+     * @param fork The fork manager's id of the fork.
+     * @return The request to wait for.
+     */
+    Request request(final byte operation, final int fork)
+    {
+        final Request request = new Request(this.nextRequestId.incrementAndGet());
+        this.requests.put(request.getId(), request);
+        if (this.failed)
+        {
+            this.requests.remove(request.getId());
+            request.complete(FAILED);
+            return request;
+        }
+        this.queue(operation, fork, request.getId());
+        return request;
+    }
+
+    /**
+     * Puts back a fork without waiting.
+     *
+     * @param fork The fork manager's id of the fork.
+     */
+    void release(final int fork)
+    {
+        this.queue(ForkProtocol.RELEASE, fork, 0);
+    }
+
+    /**
+     * Withdraws a request the caller no longer waits for, without waiting.
+     *
+     * @param fork The fork manager's id of the fork.
+     * @param request The request.
+     */
+    void cancel(final int fork, final Request request)
+    {
+        this.requests.remove(request.getId());
+        this.queue(ForkProtocol.CANCEL, fork, request.getId());
+    }
+
+    /**
+     * Queues a request for the sender thread.
+     *
+     * @param operation The operation.
+     * @param fork The fork manager's id of the fork.
+     * @param requestId The request id.
+     */
+    private void queue(final byte operation, final int fork, final int requestId)
+    {
+        this.sendLock.lock();
+        try
+        {
+            if (this.queue.remaining() < ForkProtocol.REQUEST_SIZE)
+            {
+                final ByteBuffer grown = ByteBuffer.allocate(2 * this.queue.capacity());
+                this.queue.flip();
+                grown.put(this.queue);
+                this.queue = grown;
+            }
+            final boolean wasEmpty = this.queue.position() == 0;
+            this.queue.put(operation).putInt(fork).putInt(requestId);
+            if (wasEmpty)
+            {
+                this.queued.signal();
+            }
+        }
+        finally
+        {
+            this.sendLock.unlock();
+        }
+    }
+
+    /**
+     * The sender thread: writes all queued requests at once, then waits for more.
+     */
+    private void send()
+    {
+        try
+        {
+            for (;;)
+            {
+                this.sendLock.lock();
+                try
+                {
+                    while (this.queue.position() == 0)
+                    {
+                        this.queued.awaitUninterruptibly();
+                    }
+                    final ByteBuffer requests = this.queue;
+                    this.queue = this.sending;
+                    this.sending = requests;
+                }
+                finally
+                {
+                    this.sendLock.unlock();
+                }
+                this.sending.flip();
+                while (this.sending.hasRemaining())
+                {
+                    this.channel.write(this.sending);
+                }
+                this.sending.clear();
+            }
+        }
+        catch (final IOException e)
+        {
+            this.fail();
+        }
+    }
+
+    /**
+     * The receiver thread: hands every response to its waiting request.
+     */
+    private void receive()
+    {
+        final ByteBuffer responses = ByteBuffer.allocate(RECEIVE_BUFFER_SIZE);
+        try
+        {
+            while (this.channel.read(responses) >= 0)
+            {
+                responses.flip();
+                while (responses.remaining() >= ForkProtocol.RESPONSE_SIZE)
+                {
+                    final int requestId = responses.getInt();
+                    final byte result = responses.get();
+
+                    /* A queued request stays registered for the grant that follows. */
+                    final Request request = result == ForkProtocol.QUEUED ? this.requests.get(requestId) : this.requests.remove(requestId);
+                    if (request == null)
+                    {
+                        continue;
+                    }
+                    if (result == ForkProtocol.QUEUED)
+                    {
+                        request.queue();
+                    }
+                    else
+                    {
+                        request.complete(result);
+                    }
+                }
+                responses.compact();
+            }
+        }
+        catch (final IOException ignored) { }
+        this.fail();
+    }
+
+    /**
+     * Marks the connection as lost and fails all waiting requests.
+     */
+    private void fail()
+    {
+        this.failed = true;
+        for (final Request request : this.requests.values())
+        {
+            this.requests.remove(request.getId());
+            request.complete(FAILED);
+        }
+        try
+        {
+            this.channel.close();
+        }
+        catch (final IOException ignored) { }
+    }
+
+    /**
+     * Starts a daemon thread of the connection.
+     *
+     * @param name The name of the thread.
+     * @param runnable The work of the thread.
+     */
+    private void startThread(final String name, final Runnable runnable)
+    {
+        final Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+}
@@ -0,0 +1,141 @@
+package pac.dining_philosophers.model.entities;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fork guarded by a lock. Waiting philosophers sleep on a condition until the fork is put back.
+ * The fork blocks with a lock instead of a monitor, so waiting virtual threads release their carrier thread.
+ */
+public class LockFork extends Fork
+{
+
+    /**
+     * Guards the taken flag.
+     */
+    private final Lock lock = new ReentrantLock();
+
+    /**
+     * Signalled when the fork is put back on the table.
+     */
+    private final Condition available = this.lock.newCondition();
+
+    /**
+     * True if the fork is taken, otherwise false.
+     */
+    private volatile boolean taken = false;
+
+    /**
+     * The number of philosophers sleeping on the condition.
+     */
+    private volatile int queueLength = 0;
+
+    /**
+     * Creates a new fork.
+     *
+     * @param index The position of the fork on the table.
+     */
+    public LockFork(final int index)
+    {
+        super(index);
+    }
+
+    /**
+     * Puts back the fork on the table.
+     */
+    @Override
+    public final void put()
+    {
+        this.lock.lock();
+        try
+        {
+            this.taken = false;
+            this.available.signal();
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the fork is available and takes it, using the lock and its condition.
+     * This step may cause dead-locks.
+     *
+     * @throws InterruptedException Thrown if the operation was interrupted.
+     */
+    @Override
+    public final void get() throws InterruptedException
+    {
+        this.lock.lockInterruptibly();
+        try
+        {
+            while (this.taken)
+            {
+                ++this.queueLength;
+                try
+                {
+                    this.available.await();
+                }
+                finally
+                {
+                    --this.queueLength;
+                }
+            }
+            this.taken = true;
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the fork from the table if it is available. The operation never waits.
+     *
+     * @return True if the fork was taken, false if it is in use.
+     */
+    @Override
+    public final boolean tryGet()
+    {
+        this.lock.lock();
+        try
+        {
+            if (this.taken)
+            {
+                return false;
+            }
+            this.taken = true;
+            return true;
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Checks if the fork is currently in use.
+     *
+     * @return True if the fork is taken, false if the fork is available.
+     */
+    @Override
+    public final boolean isTaken()
+    {
+        return this.taken;
+    }
+
+    /**
+     * Gets the number of philosophers sleeping on the condition. Philosophers about to take the lock are not
+     * counted. This is a plain read and takes no lock.
+     *
+     * @return The length of the queue.
+     */
+    @Override
+    public final int getQueueLength()
+    {
+        return this.queueLength;
+    }
+
+}
@@ -1,9 +1,15 @@
 package pac.dining_philosophers.model.entities;
 
+import pac.dining_philosophers.model.events.StateTransitionEvent;
+import pac.dining_philosophers.model.strategies.AcquisitionStrategy;
 import pac.dining_philosophers.model.states.PhilosopherState;
 import pac.dining_philosophers.model.states.SimulationState;
+import pac.dining_philosophers.model.utils.LatencyHistogram;
 
+import java.io.IOException;
 import java.util.Observable;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
 
 import static pac.dining_philosophers.controller.Application.EVER;
 
@@ -19,47 +25,96 @@ public class Philosopher extends Observable implements Runnable
     private SimulationState simulationState;
 
     /**
-     * Reference to the right fork.
+     * The forks the philosopher needs for eating, right fork first and left fork last.
      */
-    private Fork leftFork;
+    private Fork[] forks;
 
     /**
-     * Reference to the left fork.
+     * The state of the philosopher, initially he is thinking.
      */
-    private Fork rightFork;
+    private volatile PhilosopherState philosopherState = PhilosopherState.THINKING;
 
     /**
-     * The state of the philosopher, initially he is thinking.
+     * The simulation time the current state was entered at in nanoseconds.
+     */
+    private volatile long stateSince = 0;
+
+    /**
+     * The times from getting hungry to eating.
+     */
+    private final LatencyHistogram waitTimes = new LatencyHistogram();
+
+    /**
+     * The times a fork was held, from taking the first fork to putting back all forks.
      */
-    private PhilosopherState philosopherState = PhilosopherState.THINKING;
+    private final LatencyHistogram holdTimes = new LatencyHistogram();
+
+    /**
+     * The number of finished meals.
+     */
+    private volatile long meals = 0;
+
+    /**
+     * The simulation time the philosopher got hungry at in nanoseconds. Only used by the thread changing the state.
+     */
+    private long hungrySince = 0;
+
+    /**
+     * The simulation time the philosopher took his first fork at in nanoseconds. Only used by the thread changing
+     * the state.
+     */
+    private long holdingSince = 0;
+
+    /**
+     * True while the philosopher thinks or is parked at his safe point. He holds no fork then and does not change his
+     * state before he left the safe point.
+     */
+    private volatile boolean atSafePoint = false;
+
+    /**
+     * The random stream of the philosopher's timings, only used by the thread driving him.
+     */
+    private final SplittableRandom random;
 
     /**
      * The philosopher's name.
      */
     private String name = null;
 
+    /**
+     * The position of the philosopher on the table.
+     */
+    private final int seat;
+
     /**
      * Creates a new philosopher.
      *
-     * @param leftFork The fork on the left.
-     * @param rightFork The fork on the right.
+     * @param simulationState The simulation state of the application.
+     * @param seat The position of the philosopher on the table.
+     * @param name The philosopher's name.
+     * @param forks The forks needed for eating, right fork first and left fork last.
+     * @param random The random stream of the philosopher's timings.
      */
-    public Philosopher(final SimulationState simulationState, final String name, final Fork leftFork, final Fork rightFork)
+    public Philosopher(final SimulationState simulationState, final int seat, final String name, final Fork[] forks, final SplittableRandom random)
     {
+        this.random = random;
         this.simulationState = simulationState;
+        this.seat = seat;
         this.name = name;
-        this.leftFork = leftFork;
-        this.rightFork = rightFork;
+        this.forks = forks;
     }
 
     /**
      * Brings the philosopher to life.
      * This runs the lifecicle (thinking, hungry, got right, eating) while the object is alive.
-     * The thinking times are random, the rest happens immediatelly.
+     * The thinking times are random, the rest happens immediatelly. How the forks are taken depends on the
+     * acquisition strategy of the simulation. A philosopher whose fork manager can not be reached stops and reports it.
      */
     @Override
     public void run()
     {
+        /* Stick to the strategy of this table, a restarted simulation may already have a new one. */
+        final AcquisitionStrategy acquisitionStrategy = this.simulationState.getAcquisitionStrategy();
         try
         {
             for (;EVER;)
@@ -67,38 +122,169 @@ public class Philosopher extends Observable implements Runnable
 
                 /* thinking */
                 this.setPhilosopherState(PhilosopherState.THINKING);
-                Thread.sleep(this.simulationState.sleepTime());
+                this.atSafePoint = true;
+                TimeUnit.NANOSECONDS.sleep(this.simulationState.sleepTime(this.random));
+                this.leaveSafePoint();
 
                 /* hungry */
                 this.setPhilosopherState(PhilosopherState.HUNGRY);
-                rightFork.get();
-
-                /* gotright chopstick */
-                this.setPhilosopherState(PhilosopherState.GOT_RIGHT_FORK);
-                Thread.sleep(this.simulationState.folkGapTime());
-                leftFork.get();
+                acquisitionStrategy.acquire(this);
 
                 /* eating */
                 this.setPhilosopherState(PhilosopherState.EATING);
-                Thread.sleep(this.simulationState.eatTime());
-                this.rightFork.put();
-                this.leftFork.put();
+                TimeUnit.NANOSECONDS.sleep(this.simulationState.eatTime(this.random));
+                acquisitionStrategy.release(this);
             }
         }
         catch (final InterruptedException ignored) { }
+        catch (final IOException e)
+        {
+            this.simulationState.forkManagerFailed(e);
+        }
     }
 
     /**
-     * Changes the current state.
+     * Leaves the safe point, or parks there while the simulation is frozen.
+     * The flag is cleared before the freeze is checked, so whoever froze the simulation and then finds the flag set
+     * knows the philosopher will not leave before the simulation is thawed.
+     *
+     * @throws InterruptedException Thrown if the thread was interrupted while parked.
+     */
+    private void leaveSafePoint() throws InterruptedException
+    {
+        for (;EVER;)
+        {
+            this.atSafePoint = false;
+            if (!this.simulationState.isFrozen())
+            {
+                return;
+            }
+            this.atSafePoint = true;
+            this.simulationState.safePoint();
+        }
+    }
+
+    /**
+     * Checks if the philosopher thinks or is parked at his safe point. While the simulation is frozen, a philosopher
+     * at his safe point stays there and holds no fork.
+     *
+     * @return True if the philosopher is at his safe point.
+     */
+    public final boolean isAtSafePoint()
+    {
+        return this.atSafePoint;
+    }
+
+    /**
+     * Changes the current state. Engines driving the lifecycle without a thread per philosopher use this directly.
      *
      * @param philosopherState The new state.
      */
-    private final void setPhilosopherState(final PhilosopherState philosopherState)
+    public final void setPhilosopherState(final PhilosopherState philosopherState)
     {
-        this.simulationState.log(this.name + ": " + philosopherState.getName() + "\n");
+        final PhilosopherState previousState = this.philosopherState;
+        final long now = this.simulationState.nanoTime();
+        this.simulationState.log(this.seat, philosopherState);
         this.philosopherState = philosopherState;
-        this.setChanged();
-        this.notifyObservers();
+        final StateTransitionEvent event = new StateTransitionEvent();
+        if (event.isEnabled() && previousState != philosopherState)
+        {
+            event.setSeat(this.seat);
+            event.setPreviousState(previousState.name());
+            event.setState(philosopherState.name());
+            event.setTimeInPreviousState(now - this.stateSince);
+            event.commit();
+        }
+        this.stateSince = now;
+        this.measure(previousState, philosopherState, now);
+        this.simulationState.transition(this, previousState, philosopherState);
+        this.simulationState.markChanged(this);
+    }
+
+    /**
+     * Records the latencies completed by a state transition. A philosopher backing off from his first fork gets
+     * hungry again without starting to wait anew.
+     *
+     * @param previousState The state left.
+     * @param philosopherState The state entered.
+     * @param now The simulation time of the transition in nanoseconds.
+     */
+    private void measure(final PhilosopherState previousState, final PhilosopherState philosopherState, final long now)
+    {
+        switch (philosopherState)
+        {
+            case HUNGRY:
+                if (previousState == PhilosopherState.THINKING)
+                {
+                    this.hungrySince = now;
+                }
+                else if (previousState == PhilosopherState.GOT_RIGHT_FORK || previousState == PhilosopherState.GOT_LEFT_FORK)
+                {
+                    this.holdTimes.record(now - this.holdingSince);
+                }
+                break;
+            case GOT_RIGHT_FORK:
+            case GOT_LEFT_FORK:
+                this.holdingSince = now;
+                break;
+            case EATING:
+                if (previousState == PhilosopherState.HUNGRY)
+                {
+                    this.holdingSince = now;
+                }
+                this.waitTimes.record(now - this.hungrySince);
+                break;
+            case THINKING:
+                if (previousState == PhilosopherState.EATING)
+                {
+                    this.holdTimes.record(now - this.holdingSince);
+                    this.meals = this.meals + 1;
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Gets the times from getting hungry to eating.
+     *
+     * @return The histogram of the wait times.
+     */
+    public final LatencyHistogram getWaitTimes()
+    {
+        return this.waitTimes;
+    }
+
+    /**
+     * Gets the times the forks were held.
+     *
+     * @return The histogram of the hold times.
+     */
+    public final LatencyHistogram getHoldTimes()
+    {
+        return this.holdTimes;
+    }
+
+    /**
+     * Gets the number of finished meals.
+     *
+     * @return The number of meals.
+     */
+    public final long getMeals()
+    {
+        return this.meals;
+    }
+
+    /**
+     * Gets the random stream of the philosopher's timings. The stream is not thread-safe and must only be used by the
+     * thread driving the philosopher.
+     *
+     * @return The random stream.
+     */
+    public final SplittableRandom getRandom()
+    {
+        return this.random;
     }
 
     /**
@@ -111,6 +297,67 @@ public class Philosopher extends Observable implements Runnable
         return this.philosopherState;
     }
 
+    /**
+     * Gets the simulation time the current state was entered at.
+     *
+     * @return The time in nanoseconds.
+     */
+    public final long getStateSince()
+    {
+        return this.stateSince;
+    }
+
+    /**
+     * Gets the position of the philosopher on the table.
+     *
+     * @return The seat index.
+     */
+    public final int getSeat()
+    {
+        return this.seat;
+    }
+
+    /**
+     * Gets the fork on the left, the last fork of the philosopher.
+     *
+     * @return The left fork.
+     */
+    public final Fork getLeftFork()
+    {
+        return this.forks[this.forks.length - 1];
+    }
+
+    /**
+     * Gets the fork on the right, the first fork of the philosopher.
+     *
+     * @return The right fork.
+     */
+    public final Fork getRightFork()
+    {
+        return this.forks[0];
+    }
+
+    /**
+     * Gets all forks the philosopher needs for eating. The array must not be changed.
+     *
+     * @return The forks, right fork first and left fork last. A philosopher alone at a ring has the same fork twice.
+     */
+    public final Fork[] getForks()
+    {
+        return this.forks;
+    }
+
+    /**
+     * Hands the philosopher new forks when seats are added to or removed from the table. Must only be called while
+     * the philosopher is parked at his safe point, the thaw of the simulation publishes the new forks to him.
+     *
+     * @param forks The forks needed for eating, right fork first and left fork last.
+     */
+    public final void setForks(final Fork[] forks)
+    {
+        this.forks = forks;
+    }
+
     /**
      * Returns the name of the philosopher.
      *
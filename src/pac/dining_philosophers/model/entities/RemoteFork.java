@@ -0,0 +1,168 @@
+package pac.dining_philosophers.model.entities;
+
+import pac.dining_philosophers.model.states.WaitForGraph;
+import pac.dining_philosophers.model.utils.ForkProtocol;
+
+import java.io.IOException;
+
+/**
+ * Fork kept by a fork manager in another process, so philosophers of several processes can share a table. Taking the
+ * fork is a round trip to the fork manager, putting it back is sent without waiting. Whether the fork is taken is only
+ * known for the philosophers of this process.
+ *
+ * @author Claudia Panoch
+ */
+public class RemoteFork extends Fork
+{
+
+    /**
+     * The connection to the fork manager.
+     */
+    private final ForkManagerClient client;
+
+    /**
+     * The fork manager's id of the fork.
+     */
+    private final int forkId;
+
+    /**
+     * True while a philosopher of this process holds the fork.
+     */
+    private volatile boolean held = false;
+
+    /**
+     * Creates a new fork.
+     *
+     * @param index The position of the fork on the table.
+     * @param client The connection to the fork manager.
+     */
+    public RemoteFork(final int index, final ForkManagerClient client)
+    {
+        super(index);
+        this.client = client;
+        this.forkId = client.forkId(index);
+    }
+
+    /**
+     * Puts back the fork on the table. The release is sent without waiting for the fork manager.
+     */
+    @Override
+    public final void put()
+    {
+        this.held = false;
+        this.client.release(this.forkId);
+    }
+
+    /**
+     * Waits until the fork manager hands over the fork. Waiting philosophers get the fork in the order of their
+     * requests. This step may cause dead-locks, also with philosophers of other processes.
+     *
+     * @throws InterruptedException Thrown if the operation was interrupted, the request is withdrawn then.
+     * @throws IOException Thrown if the connection to the fork manager was lost.
+     */
+    @Override
+    public final void get() throws InterruptedException, IOException
+    {
+        final ForkManagerClient.Request request = this.client.request(ForkProtocol.ACQUIRE, this.forkId);
+        try
+        {
+            request.await();
+        }
+        catch (final InterruptedException e)
+        {
+            this.client.cancel(this.forkId, request);
+            throw e;
+        }
+        this.held = true;
+    }
+
+    /**
+     * Asks the fork manager for the fork once; the fork manager answers at once whether the request has to wait, so
+     * the philosopher is entered into the wait-for graph without asking for the fork first.
+     *
+     * @param waitForGraph The wait-for graph of the table.
+     * @param seat The seat of the philosopher.
+     * @return True if the fork was in use and the philosopher had to wait.
+     * @throws InterruptedException Thrown if the operation was interrupted, the request is withdrawn then.
+     * @throws IOException Thrown if the connection to the fork manager was lost.
+     */
+    @Override
+    public final boolean get(final WaitForGraph waitForGraph, final int seat) throws InterruptedException, IOException
+    {
+        final ForkManagerClient.Request request = this.client.request(ForkProtocol.ACQUIRE, this.forkId);
+        final boolean queued;
+        try
+        {
+            queued = request.awaitQueued();
+            if (queued)
+            {
+                waitForGraph.waiting(seat, this.getIndex());
+                try
+                {
+                    request.await();
+                }
+                catch (final InterruptedException | IOException e)
+                {
+                    waitForGraph.cancelled(seat);
+                    throw e;
+                }
+            }
+        }
+        catch (final InterruptedException e)
+        {
+            this.client.cancel(this.forkId, request);
+            throw e;
+        }
+        this.held = true;
+        return queued;
+    }
+
+    /**
+     * Gets the fork if the fork manager has it available. The operation waits for the answer of the fork manager,
+     * but never for the fork.
+     *
+     * @return True if the fork was taken, false if it is in use or the connection to the fork manager was lost.
+     */
+    @Override
+    public final boolean tryGet()
+    {
+        final boolean granted;
+        try
+        {
+            granted = this.client.request(ForkProtocol.TRY_ACQUIRE, this.forkId).awaitUninterruptibly();
+        }
+        catch (final IOException e)
+        {
+            return false;
+        }
+        if (granted)
+        {
+            this.held = true;
+        }
+        return granted;
+    }
+
+    /**
+     * Checks if the fork is held by a philosopher of this process. Philosophers of other processes are not seen.
+     *
+     * @return True if the fork is taken here, false otherwise.
+     */
+    @Override
+    public final boolean isTaken()
+    {
+        return this.held;
+    }
+
+    /**
+     * Gives the fork back to the fork manager if a stopped philosopher still holds it, so the next table can use it.
+     */
+    @Override
+    public void dispose()
+    {
+        if (this.held)
+        {
+            this.put();
+        }
+    }
+
+}
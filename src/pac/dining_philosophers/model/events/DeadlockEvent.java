@@ -0,0 +1,81 @@
+package pac.dining_philosophers.model.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event of a dead-lock found by the wait-for graph. Disabled by default, enable {@value #NAME} in the
+ * recording settings.
+ *
+ * @author Claudia Panoch
+ */
+@Name(DeadlockEvent.NAME)
+@Label("Dead-lock")
+@Category("Dining Philosophers")
+@Description("Philosophers wait for each other forever")
+@Enabled(false)
+@StackTrace(false)
+public class DeadlockEvent extends Event
+{
+
+    /**
+     * The name of the event type.
+     */
+    public static final String NAME = "pac.dining_philosophers.Deadlock";
+
+    /**
+     * The number of philosophers waiting for each other.
+     */
+    @Label("Philosophers")
+    private int philosophers;
+
+    /**
+     * The seats of the philosophers, shortened for big cycles.
+     */
+    @Label("Seats")
+    private String seats;
+
+    /**
+     * The longest simulation time one of the philosophers waited.
+     */
+    @Label("Longest Stuck Time")
+    @Timespan(Timespan.NANOSECONDS)
+    private long longestStuckTime;
+
+    /**
+     * Sets the number of philosophers waiting for each other.
+     *
+     * @param philosophers The number of philosophers.
+     */
+    public void setPhilosophers(final int philosophers)
+    {
+        this.philosophers = philosophers;
+    }
+
+    /**
+     * Sets the seats of the philosophers.
+     *
+     * @param seats The seats as text.
+     */
+    public void setSeats(final String seats)
+    {
+        this.seats = seats;
+    }
+
+    /**
+     * Sets the longest simulation time one of the philosophers waited.
+     *
+     * @param longestStuckTime The time in nanoseconds.
+     */
+    public void setLongestStuckTime(final long longestStuckTime)
+    {
+        this.longestStuckTime = longestStuckTime;
+    }
+
+}
@@ -0,0 +1,63 @@
+package pac.dining_philosophers.model.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of a philosopher getting a fork. The event lasts from the call until the fork is taken.
+ * Disabled by default, enable {@value #NAME} in the recording settings to profile the contention of the forks.
+ *
+ * @author Claudia Panoch
+ */
+@Name(ForkAcquisitionEvent.NAME)
+@Label("Fork Acquisition")
+@Category("Dining Philosophers")
+@Description("A philosopher got a fork")
+@Enabled(false)
+@StackTrace(false)
+public class ForkAcquisitionEvent extends Event
+{
+
+    /**
+     * The name of the event type.
+     */
+    public static final String NAME = "pac.dining_philosophers.ForkAcquisition";
+
+    /**
+     * The position of the fork on the table.
+     */
+    @Label("Fork")
+    private int fork;
+
+    /**
+     * True if the fork was in use and the call had to wait.
+     */
+    @Label("Blocked")
+    private boolean blocked;
+
+    /**
+     * Sets the position of the fork on the table.
+     *
+     * @param fork The index of the fork.
+     */
+    public void setFork(final int fork)
+    {
+        this.fork = fork;
+    }
+
+    /**
+     * Sets whether the call had to wait.
+     *
+     * @param blocked True if the fork was in use.
+     */
+    public void setBlocked(final boolean blocked)
+    {
+        this.blocked = blocked;
+    }
+
+}
@@ -0,0 +1,97 @@
+package pac.dining_philosophers.model.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event of a philosopher changing his state. The states are recorded by their constant names, so no
+ * text is built. Disabled by default, enable {@value #NAME} in the recording settings.
+ *
+ * @author Claudia Panoch
+ */
+@Name(StateTransitionEvent.NAME)
+@Label("State Transition")
+@Category("Dining Philosophers")
+@Description("A philosopher changed his state")
+@Enabled(false)
+@StackTrace(false)
+public class StateTransitionEvent extends Event
+{
+
+    /**
+     * The name of the event type.
+     */
+    public static final String NAME = "pac.dining_philosophers.StateTransition";
+
+    /**
+     * The position of the philosopher on the table.
+     */
+    @Label("Seat")
+    private int seat;
+
+    /**
+     * The state left.
+     */
+    @Label("Previous State")
+    private String previousState;
+
+    /**
+     * The state entered.
+     */
+    @Label("State")
+    private String state;
+
+    /**
+     * The simulation time spent in the state left.
+     */
+    @Label("Time in Previous State")
+    @Timespan(Timespan.NANOSECONDS)
+    private long timeInPreviousState;
+
+    /**
+     * Sets the position of the philosopher on the table.
+     *
+     * @param seat The seat.
+     */
+    public void setSeat(final int seat)
+    {
+        this.seat = seat;
+    }
+
+    /**
+     * Sets the state left.
+     *
+     * @param previousState The name of the state.
+     */
+    public void setPreviousState(final String previousState)
+    {
+        this.previousState = previousState;
+    }
+
+    /**
+     * Sets the state entered.
+     *
+     * @param state The name of the state.
+     */
+    public void setState(final String state)
+    {
+        this.state = state;
+    }
+
+    /**
+     * Sets the simulation time spent in the state left.
+     *
+     * @param timeInPreviousState The time in nanoseconds.
+     */
+    public void setTimeInPreviousState(final long timeInPreviousState)
+    {
+        this.timeInPreviousState = timeInPreviousState;
+    }
+
+}
@@ -0,0 +1,131 @@
+package pac.dining_philosophers.model.states;
+
+import pac.dining_philosophers.model.strategies.AcquisitionStrategy;
+import pac.dining_philosophers.model.strategies.ArbitratorStrategy;
+import pac.dining_philosophers.model.strategies.ChandyMisraStrategy;
+import pac.dining_philosophers.model.strategies.ResourceOrderingStrategy;
+import pac.dining_philosophers.model.strategies.RightThenLeftStrategy;
+import pac.dining_philosophers.model.strategies.TryLockBackoffStrategy;
+
+/**
+ * Represents the available strategies for getting the forks.
+ *
+ * @author Claudia Panoch
+ */
+public enum AcquisitionStrategyType
+{
+
+    /**
+     * Right fork first, then the left fork. May dead-lock.
+     */
+    RIGHT_THEN_LEFT
+    {
+        @Override
+        public AcquisitionStrategy create(final SimulationState simulationState)
+        {
+            return new RightThenLeftStrategy(simulationState);
+        }
+
+        @Override
+        public boolean hasForkOrder()
+        {
+            return true;
+        }
+    },
+
+    /**
+     * Fork with the lower index first.
+     */
+    RESOURCE_ORDERING
+    {
+        @Override
+        public AcquisitionStrategy create(final SimulationState simulationState)
+        {
+            return new ResourceOrderingStrategy(simulationState);
+        }
+
+        @Override
+        public boolean hasForkOrder()
+        {
+            return true;
+        }
+    },
+
+    /**
+     * A waiter hands out both forks at once.
+     */
+    ARBITRATOR
+    {
+        @Override
+        public AcquisitionStrategy create(final SimulationState simulationState)
+        {
+            return new ArbitratorStrategy(simulationState);
+        }
+    },
+
+    /**
+     * Clean and dirty forks passed between neighbours.
+     */
+    CHANDY_MISRA
+    {
+        @Override
+        public AcquisitionStrategy create(final SimulationState simulationState)
+        {
+            return new ChandyMisraStrategy(simulationState);
+        }
+    },
+
+    /**
+     * Right fork, then try the left fork and back off randomly on failure.
+     */
+    TRY_LOCK_BACKOFF
+    {
+        @Override
+        public AcquisitionStrategy create(final SimulationState simulationState)
+        {
+            return new TryLockBackoffStrategy(simulationState);
+        }
+    };
+
+    /**
+     * Creates a new strategy of this type.
+     *
+     * @param simulationState The simulation state of the application.
+     * @return The strategy.
+     */
+    public abstract AcquisitionStrategy create(SimulationState simulationState);
+
+    /**
+     * Checks if the strategies of this type only take the forks one after the other in a fixed order, see
+     * {@link AcquisitionStrategy#getForkOrder(pac.dining_philosophers.model.entities.Philosopher)}. Only those can
+     * run on the engines that take the forks themselves.
+     *
+     * @return True if the strategies have a fork order.
+     */
+    public boolean hasForkOrder()
+    {
+        return false;
+    }
+
+    /**
+     * Gets the readable name of the strategy.
+     *
+     * @return The readable name of the strategy.
+     */
+    public String getName()
+    {
+        return this.name().replace('_', ' ').toLowerCase();
+    }
+
+    /**
+     * Returns the readable name, used by the user interface.
+     *
+     * @return The readable name of the strategy.
+     */
+    @Override
+    public String toString()
+    {
+        return this.getName();
+    }
+
+}
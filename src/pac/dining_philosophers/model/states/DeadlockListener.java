@@ -0,0 +1,19 @@
+package pac.dining_philosophers.model.states;
+
+/**
+ * Gets informed when the simulation dead-locks.
+ *
+ * @author Claudia Panoch
+ */
+public interface DeadlockListener
+{
+
+    /**
+     * Philosophers of the simulation dead-locked. Called by the thread of the philosopher who closed the cycle of the
+     * wait-for graph, so the listener must not block.
+     *
+     * @param deadlockReport The philosophers involved.
+     */
+    void deadlocked(DeadlockReport deadlockReport);
+
+}
@@ -0,0 +1,81 @@
+package pac.dining_philosophers.model.states;
+
+/**
+ * Describes a dead-lock: the seats of the philosophers involved and how long they have been stuck.
+ *
+ * @author Claudia Panoch
+ */
+public class DeadlockReport
+{
+
+    /**
+     * The seats of the philosophers involved.
+     */
+    private final int[] seats;
+
+    /**
+     * The time every philosopher involved has been stuck in nanoseconds, in the order of the seats.
+     */
+    private final long[] stuckTimes;
+
+    /**
+     * The simulation time the dead-lock was detected at in nanoseconds.
+     */
+    private final long detectionTime;
+
+    /**
+     * Creates a new report.
+     *
+     * @param seats The seats of the philosophers involved.
+     * @param stuckTimes The time every philosopher involved has been stuck in nanoseconds.
+     * @param detectionTime The simulation time the dead-lock was detected at in nanoseconds.
+     */
+    public DeadlockReport(final int[] seats, final long[] stuckTimes, final long detectionTime)
+    {
+        this.seats = seats.clone();
+        this.stuckTimes = stuckTimes.clone();
+        this.detectionTime = detectionTime;
+    }
+
+    /**
+     * Gets the seats of the philosophers involved.
+     *
+     * @return The seats.
+     */
+    public int[] getSeats()
+    {
+        return this.seats.clone();
+    }
+
+    /**
+     * Gets the time every philosopher involved has been stuck.
+     *
+     * @return The stuck times in nanoseconds, in the order of the seats.
+     */
+    public long[] getStuckTimes()
+    {
+        return this.stuckTimes.clone();
+    }
+
+    /**
+     * Gets the simulation time the dead-lock was detected at.
+     *
+     * @return The detection time in nanoseconds.
+     */
+    public long getDetectionTime()
+    {
+        return this.detectionTime;
+    }
+
+    /**
+     * Describes the dead-lock.
+     *
+     * @return The description.
+     */
+    @Override
+    public String toString()
+    {
+        return "Dead-lock of " + this.seats.length + " philosophers";
+    }
+
+}
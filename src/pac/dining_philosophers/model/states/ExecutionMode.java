@@ -0,0 +1,260 @@
+package pac.dining_philosophers.model.states;
+
+import pac.dining_philosophers.model.engine.DiscreteEventEngine;
+import pac.dining_philosophers.model.engine.SimulationEngine;
+import pac.dining_philosophers.model.engine.ThreadedEngine;
+import pac.dining_philosophers.model.engine.TimingWheelEngine;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Represents the ways the philosophers of a simulation can be executed.
+ *
+ * @author Claudia Panoch
+ */
+public enum ExecutionMode
+{
+
+    /**
+     * One operating system thread per philosopher.
+     */
+    PLATFORM_THREADS,
+
+    /**
+     * One virtual thread per philosopher. The philosophers are multiplexed onto a small pool of carrier threads, which
+     * keeps memory and context switches low at high seat counts. Requires a runtime with virtual thread support.
+     */
+    VIRTUAL_THREADS
+    {
+        @Override
+        public boolean isAvailable()
+        {
+            return VIRTUAL_THREAD_BUILDER != null;
+        }
+
+        @Override
+        public ThreadFactory newThreadFactory()
+        {
+            if (!this.isAvailable())
+            {
+                throw new IllegalStateException("Virtual threads are not supported by this runtime.");
+            }
+            try
+            {
+                final Object builder = VIRTUAL_THREAD_BUILDER.invoke(null);
+                BUILDER_NAME.invoke(builder, THREAD_NAME_PREFIX, 0L);
+                return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+            }
+            catch (final ReflectiveOperationException e)
+            {
+                throw new IllegalStateException("Virtual thread factory could not be created.", e);
+            }
+        }
+    },
+
+    /**
+     * All philosophers are events on a priority queue with a virtual clock, processed by a single thread.
+     */
+    DISCRETE_EVENT
+    {
+        @Override
+        public SimulationEngine createEngine(final SimulationState simulationState)
+        {
+            return new DiscreteEventEngine(simulationState, this.newThreadFactory(), simulationState.getVirtualClockRate());
+        }
+
+        @Override
+        public boolean supports(final AcquisitionStrategyType acquisitionStrategyType)
+        {
+            return acquisitionStrategyType.hasForkOrder();
+        }
+
+        @Override
+        public boolean supports(final ForkType forkType)
+        {
+            return forkType != ForkType.REMOTE;
+        }
+    },
+
+    /**
+     * All philosophers are timers on a hierarchical timing wheel in wall clock time, run by one worker thread per
+     * processor, so the number of threads does not grow with the table.
+     */
+    TIMING_WHEEL
+    {
+        @Override
+        public SimulationEngine createEngine(final SimulationState simulationState)
+        {
+            return new TimingWheelEngine(simulationState, this.newThreadFactory(), Runtime.getRuntime().availableProcessors());
+        }
+
+        @Override
+        public boolean supports(final AcquisitionStrategyType acquisitionStrategyType)
+        {
+            return acquisitionStrategyType.hasForkOrder();
+        }
+
+        @Override
+        public boolean supports(final ForkType forkType)
+        {
+            return forkType != ForkType.REMOTE;
+        }
+    };
+
+    /**
+     * The name prefix of all philosopher threads.
+     */
+    private static final String THREAD_NAME_PREFIX = "philosopher-";
+
+    /**
+     * The system property bounding the number of carrier threads of the virtual thread scheduler.
+     */
+    private static final String CARRIER_PARALLELISM_PROPERTY = "jdk.virtualThreadScheduler.parallelism";
+
+    /**
+     * The system property bounding the maximum pool size of the virtual thread scheduler.
+     */
+    private static final String CARRIER_POOL_SIZE_PROPERTY = "jdk.virtualThreadScheduler.maxPoolSize";
+
+    /**
+     * Thread.ofVirtual(), null if the runtime has no virtual threads.
+     */
+    private static final Method VIRTUAL_THREAD_BUILDER;
+
+    /**
+     * Thread.Builder.name(String, long).
+     */
+    private static final Method BUILDER_NAME;
+
+    /**
+     * Thread.Builder.factory().
+     */
+    private static final Method BUILDER_FACTORY;
+
+    static
+    {
+
+        /* Looked up reflectively, so the application still runs on runtimes without virtual threads. */
+        Method virtualThreadBuilder = null;
+        Method builderName = null;
+        Method builderFactory = null;
+        try
+        {
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            virtualThreadBuilder = Thread.class.getMethod("ofVirtual");
+            builderName = builderClass.getMethod("name", String.class, long.class);
+            builderFactory = builderClass.getMethod("factory");
+        }
+        catch (final ReflectiveOperationException ignored)
+        {
+            virtualThreadBuilder = null;
+        }
+        VIRTUAL_THREAD_BUILDER = virtualThreadBuilder;
+        BUILDER_NAME = builderName;
+        BUILDER_FACTORY = builderFactory;
+    }
+
+    /**
+     * Checks if the mode can be used on the current runtime.
+     *
+     * @return True if the mode is available.
+     */
+    public boolean isAvailable()
+    {
+        return true;
+    }
+
+    /**
+     * Checks if the philosophers can use a strategy in this mode. Threads run every strategy, the engines taking the
+     * forks themselves only strategies with a fixed fork order.
+     *
+     * @param acquisitionStrategyType The strategy type.
+     * @return True if the strategy can be used.
+     */
+    public boolean supports(final AcquisitionStrategyType acquisitionStrategyType)
+    {
+        return true;
+    }
+
+    /**
+     * Checks if the philosophers can use a fork type in this mode. Threads use every fork type. The engines take the
+     * forks themselves on their own threads and never wait for a fork, so they can not use forks kept by a fork manager,
+     * which are only handed over asynchronously.
+     *
+     * @param forkType The fork type.
+     * @return True if the fork type can be used.
+     */
+    public boolean supports(final ForkType forkType)
+    {
+        return true;
+    }
+
+    /**
+     * Creates a factory for the threads of this mode.
+     *
+     * @return The thread factory.
+     */
+    public ThreadFactory newThreadFactory()
+    {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadFactory()
+        {
+            @Override
+            public Thread newThread(final Runnable runnable)
+            {
+                return new Thread(runnable, THREAD_NAME_PREFIX + threadNumber.getAndIncrement());
+            }
+        };
+    }
+
+    /**
+     * Creates the engine driving the philosophers of a simulation.
+     *
+     * @param simulationState The simulation.
+     * @return The engine.
+     */
+    public SimulationEngine createEngine(final SimulationState simulationState)
+    {
+        return new ThreadedEngine(this.newThreadFactory());
+    }
+
+    /**
+     * Bounds the carrier pool of the virtual thread scheduler. This has to be called before the first virtual thread
+     * is started, later calls have no effect.
+     *
+     * @param carrierThreads The maximum number of carrier threads.
+     */
+    public static void setCarrierThreads(final int carrierThreads)
+    {
+        if (carrierThreads < 1)
+        {
+            throw new IllegalArgumentException("At least one carrier thread is required.");
+        }
+        System.setProperty(CARRIER_PARALLELISM_PROPERTY, Integer.toString(carrierThreads));
+        System.setProperty(CARRIER_POOL_SIZE_PROPERTY, Integer.toString(carrierThreads));
+    }
+
+    /**
+     * Gets the readable name of the mode.
+     *
+     * @return The readable name of the mode.
+     */
+    public String getName()
+    {
+        return this.name().replace('_', ' ').toLowerCase();
+    }
+
+    /**
+     * Returns the readable name, used by the user interface.
+     *
+     * @return The readable name of the mode.
+     */
+    @Override
+    public String toString()
+    {
+        return this.getName();
+    }
+
+}
@@ -0,0 +1,113 @@
+package pac.dining_philosophers.model.states;
+
+import pac.dining_philosophers.model.entities.AtomicFork;
+import pac.dining_philosophers.model.entities.FairFork;
+import pac.dining_philosophers.model.entities.Fork;
+import pac.dining_philosophers.model.entities.ForkManagerClient;
+import pac.dining_philosophers.model.entities.LockFork;
+import pac.dining_philosophers.model.entities.RemoteFork;
+
+/**
+ * Represents the available fork implementations.
+ *
+ * @author Claudia Panoch
+ */
+public enum ForkType
+{
+
+    /**
+     * Forks guarded by a lock, waiting philosophers sleep on a condition.
+     */
+    LOCK
+    {
+        @Override
+        public Fork create(final int index)
+        {
+            return new LockFork(index);
+        }
+    },
+
+    /**
+     * Lock-free forks taken by compare-and-set, waiting philosophers spin briefly and park afterwards.
+     */
+    ATOMIC
+    {
+        @Override
+        public Fork create(final int index)
+        {
+            return new AtomicFork(index);
+        }
+    },
+
+    /**
+     * Forks handed over in the order of the requests. Putting a fork back hands it directly to the longest waiting
+     * philosopher, so nobody barges in and starves the others, at the cost of a wake-up per hand over.
+     */
+    FAIR
+    {
+        @Override
+        public Fork create(final int index)
+        {
+            return new FairFork(index);
+        }
+    },
+
+    /**
+     * Forks kept by a fork manager process, shared with the philosophers of other processes. Requires the address of
+     * a running fork manager, see {@link ForkManagerClient#ADDRESS_PROPERTY}.
+     */
+    REMOTE
+    {
+        @Override
+        public boolean isAvailable()
+        {
+            return ForkManagerClient.isConfigured();
+        }
+
+        @Override
+        public Fork create(final int index)
+        {
+            return new RemoteFork(index, ForkManagerClient.getDefault());
+        }
+    };
+
+    /**
+     * Checks if the fork type can be used in the current configuration.
+     *
+     * @return True if the fork type is available.
+     */
+    public boolean isAvailable()
+    {
+        return true;
+    }
+
+    /**
+     * Creates a new fork of this type.
+     *
+     * @param index The position of the fork on the table.
+     * @return The fork.
+     */
+    public abstract Fork create(int index);
+
+    /**
+     * Gets the readable name of the fork type.
+     *
+     * @return The readable name of the fork type.
+     */
+    public String getName()
+    {
+        return this.name().replace('_', ' ').toLowerCase();
+    }
+
+    /**
+     * Returns the readable name, used by the user interface.
+     *
+     * @return The readable name of the fork type.
+     */
+    @Override
+    public String toString()
+    {
+        return this.getName();
+    }
+
+}
@@ -1,170 +1,904 @@
 package pac.dining_philosophers.model.states;
 
+import pac.dining_philosophers.model.engine.ReplayEngine;
+import pac.dining_philosophers.model.engine.SimulationEngine;
+import pac.dining_philosophers.model.events.DeadlockEvent;
+import pac.dining_philosophers.model.strategies.AcquisitionStrategy;
+import pac.dining_philosophers.model.utils.EventConsumer;
+import pac.dining_philosophers.model.utils.EventRingBuffer;
+import pac.dining_philosophers.model.utils.LatencyDistribution;
+import pac.dining_philosophers.model.utils.OverflowPolicy;
 import pac.dining_philosophers.model.utils.PhilosopherNameProvider;
+import pac.dining_philosophers.model.utils.SafePointGate;
+import pac.dining_philosophers.model.utils.TraceEventType;
+import pac.dining_philosophers.model.utils.TraceReader;
+import pac.dining_philosophers.model.utils.TraceWriter;
 import pac.dining_philosophers.model.entities.Fork;
 import pac.dining_philosophers.model.entities.Philosopher;
 
-import java.util.LinkedList;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Observable;
-import java.util.Observer;
-import java.util.Queue;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * The state model of the whole simulation.
+ * Observers are notified when a new table is set up. Changes of single seats are only marked and picked up by the
+ * views with {@link #collectChanges(BitSet)}, so the philosophers never wait for the user interface.
  */
-public class SimulationState extends Observable implements Observer
+public class SimulationState extends Observable
 {
 
+    /**
+     * The default number of log entries kept until they are read.
+     */
+    public static final int DEFAULT_LOG_CAPACITY = 1 << 16;
+
+    /**
+     * The number of seats named by a dead-lock flight recorder event.
+     */
+    private static final int DEADLOCK_EVENT_SEATS = 64;
+
+    /**
+     * The number of passes a snapshot reads the table again before it gives up on a consistent picture.
+     */
+    private static final int SNAPSHOT_ATTEMPTS = 8;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * The degree of a topology unless another one is set.
+     */
+    private static final int DEFAULT_TOPOLOGY_DEGREE = 4;
+
+    /**
+     * The gap between taking two forks unless another one is set, in milliseconds.
+     */
+    public static final long DEFAULT_FOLK_GAP_TIME = 500;
+
     /**
      * The base speed of the simulation.
      */
     private static final double BASE_SPEED = 100;
 
     /**
-     * The simulation speed.
+     * The numbers of seats offered for a table, from a single philosopher to a large hall.
+     */
+    private static final int[] SEAT_COUNTS = { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 15, 20, 25, 30, 50, 75, 100, 125, 150, 200, 250, 333, 500, 1000, 2000, 5000, 10000 };
+
+    /**
+     * The simulation speed.
+     */
+    private int speed = 50;
+
+    /**
+     * The gap between taking two forks in milliseconds.
+     */
+    private volatile long folkGapTime = DEFAULT_FOLK_GAP_TIME;
+
+    /**
+     * The safe point the philosophers pass once per lifecycle, closed while the simulation is frozen.
+     */
+    private final SafePointGate safePoint = new SafePointGate();
+
+    /**
+     * The way the philosophers are executed.
+     */
+    private ExecutionMode executionMode = ExecutionMode.PLATFORM_THREADS;
+
+    /**
+     * The implementation of the forks.
+     */
+    private ForkType forkType = ForkType.LOCK;
+
+    /**
+     * The way the forks are shared between the philosophers.
+     */
+    private Topology topology = Topology.RING;
+
+    /**
+     * The degree of the topology, see {@link Topology}.
+     */
+    private int topologyDegree = DEFAULT_TOPOLOGY_DEGREE;
+
+    /**
+     * The way the forks of the current table are shared, which may differ from the topology set for the next start.
+     */
+    private Topology tableTopology = Topology.RING;
+
+    /**
+     * The degree of the topology of the current table.
+     */
+    private int tableDegree = DEFAULT_TOPOLOGY_DEGREE;
+
+    /**
+     * The type of strategy used to get the forks.
+     */
+    private AcquisitionStrategyType acquisitionStrategyType = AcquisitionStrategyType.RIGHT_THEN_LEFT;
+
+    /**
+     * The strategy the philosophers use to get their forks.
+     */
+    private AcquisitionStrategy acquisitionStrategy = null;
+
+    /**
+     * The simulation time the simulation was started at in nanoseconds.
+     */
+    private volatile long startTime = 0;
+
+    /**
+     * Virtual nanoseconds per wall clock nanosecond for engines with a virtual clock, 0 to run as fast as possible.
+     */
+    private double virtualClockRate = 1.0;
+
+    /**
+     * The engine driving the philosophers.
+     */
+    private SimulationEngine engine = null;
+
+    /**
+     * The philosopher objects itself.
+     */
+    private volatile Philosopher[] philosophers = null;
+
+    /**
+     * The forks between the philosophers.
+     */
+    private volatile Fork[] forks = null;
+
+    /**
+     * The seed of all random streams of the next tables, null for a new seed for every table.
+     */
+    private Long fixedSeed = null;
+
+    /**
+     * The seed the random streams of the current table were split from.
+     */
+    private long seed = 0;
+
+    /**
+     * Splits off the random stream of every philosopher of the table, in the order of the seats.
+     */
+    private SplittableRandom randomStreams = null;
+
+    /**
+     * Names the philosophers of the table, including those added later.
+     */
+    private PhilosopherNameProvider nameProvider = null;
+
+    /**
+     * The current count of philosophers.
+     */
+    private int philosophersCount = 5;
+
+    /**
+     * Bit set of the seats changed since the views collected the changes, 64 seats per word.
+     */
+    private volatile AtomicLongArray changedSeats = new AtomicLongArray(0);
+
+    /**
+     * True if any seat changed since the views collected the changes.
+     */
+    private volatile boolean changed = false;
+
+    /**
+     * The state of every seat: a version, counting the transitions of the philosopher, above the state ordinal.
+     * Only the philosopher of a seat writes its word, readers take consistent snapshots of all words.
+     */
+    private volatile AtomicLongArray seatWords = new AtomicLongArray(0);
+
+    /**
+     * The listeners informed about dead-locks.
+     */
+    private final List<DeadlockListener> deadlockListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Tracks the forks held and awaited by the philosophers of the table.
+     */
+    private volatile WaitForGraph waitForGraph = new WaitForGraph(this, 0, 0);
+
+    /**
+     * The trace the state and fork changes are recorded into, null if none is recorded.
+     */
+    private volatile TraceWriter trace = null;
+
+    /**
+     * The error that stopped the last replay, null if it did not fail.
+     */
+    private volatile IOException replayError = null;
+
+    /**
+     * The error that stopped the philosophers of the table, null while the fork manager is reachable.
+     */
+    private IOException forkManagerError = null;
+
+    /**
+     * The log of state transitions, text is only formatted when the log is read.
+     */
+    private volatile EventRingBuffer log = new EventRingBuffer(DEFAULT_LOG_CAPACITY, OverflowPolicy.OVERWRITE_OLDEST);
+
+    /**
+     * Stats the simulation.
+     */
+    public void start()
+    {
+        this.start(this.executionMode.createEngine(this), this.topology, this.topologyDegree, this.fixedSeed != null ? this.fixedSeed : new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Sets up a new table and starts it with an engine.
+     *
+     * @param engine The engine driving the philosophers.
+     * @param topology The way the forks of the table are shared.
+     * @param degree The degree of the topology.
+     * @param seed The seed of the random timings and of drawn topologies.
+     */
+    private void start(final SimulationEngine engine, final Topology topology, final int degree, final long seed)
+    {
+        final int count = this.philosophersCount;
+        synchronized (this)
+        {
+            this.forkManagerError = null;
+        }
+        this.nameProvider = new PhilosopherNameProvider();
+        this.seed = seed;
+        this.randomStreams = new SplittableRandom(this.seed);
+        this.setUpTable(new Philosopher[count], 0, topology, degree);
+
+        /* Bring the philosophers to life. */
+        this.acquisitionStrategy = this.acquisitionStrategyType.create(this);
+        this.acquisitionStrategy.prepare(this.philosophers, this.forks);
+        this.engine = engine;
+        this.startTime = this.engine.nanoTime();
+        this.traceTable();
+        this.engine.start(this.philosophers);
+
+        /* Let the views pick up the new table. */
+        this.setChanged();
+        this.notifyObservers();
+    }
+
+    /**
+     * Completes a table and publishes it. Philosophers from the given position on are created, the philosophers
+     * before keep their seat and are handed their forks again, so the topology is closed at its new size. The forks
+     * of a kept table are taken over as far as they are needed, the others are created. All philosophers are thinking
+     * at the new table.
+     *
+     * @param philosophers The philosophers of the table, filled up to the given position.
+     * @param kept The number of philosophers taken over from the previous table, 0 for a new table.
+     * @param topology The way the forks of the table are shared.
+     * @param degree The degree of the topology.
+     */
+    private void setUpTable(final Philosopher[] philosophers, final int kept, final Topology topology, final int degree)
+    {
+        final int count = philosophers.length;
+
+        /* Initialize all new forks. Drawn topologies follow the seed, so a table of the same size gets the same forks
+         * again; a resized table may share the kept forks differently. */
+        final int[][] seatForks = topology.wire(count, degree, new SplittableRandom(~this.seed));
+        final int keptForks = kept > 0 ? Math.min(topology.forkCount(count, degree), this.forks.length) : 0;
+        final Fork[] forks = Arrays.copyOf(kept > 0 ? this.forks : new Fork[0], topology.forkCount(count, degree));
+        for (int currentFork = keptForks; currentFork < forks.length; ++currentFork)
+        {
+            forks[currentFork] = this.forkType.create(currentFork);
+        }
+
+        /* Now initialize all new philosophers and link the folks with the philosophers. */
+        for (int currentPhilosopher = 0; currentPhilosopher < count; ++currentPhilosopher)
+        {
+            final int[] forkIndexes = seatForks[currentPhilosopher];
+            final Fork[] philosopherForks = new Fork[forkIndexes.length];
+            for (int position = 0; position < forkIndexes.length; ++position)
+            {
+                philosopherForks[position] = forks[forkIndexes[position]];
+            }
+            if (currentPhilosopher < kept)
+            {
+                philosophers[currentPhilosopher].setForks(philosopherForks);
+            }
+            else
+            {
+                philosophers[currentPhilosopher] = new Philosopher(this, currentPhilosopher, this.nameProvider.nextName(), philosopherForks, this.randomStreams.split());
+            }
+        }
+
+        this.changedSeats = new AtomicLongArray((count + Long.SIZE - 1) / Long.SIZE);
+        this.tableTopology = topology;
+        this.tableDegree = degree;
+        this.forks = forks;
+        this.philosophers = philosophers;
+        this.seatWords = new AtomicLongArray(count);
+        this.waitForGraph = new WaitForGraph(this, count, forks.length);
+    }
+
+    /**
+     * Adds seats to or removes seats from the running table, without stopping the philosophers kept. The table is
+     * frozen until every philosopher thinks or is parked at his safe point, then nobody holds a fork and the ring can
+     * be closed at its new size. Seats are added and removed at the end of the ring. Philosophers finish the meal they
+     * are waiting for first, so the call blocks for about one lifecycle of the slowest philosopher and must not be
+     * made on the event dispatch thread. An interrupted resize leaves the table as it is.
+     *
+     * @param count The new number of philosophers.
+     * @return True if the table was resized or the resize was interrupted, false if it has to be restarted instead:
+     *     the engine can not resize or the table is dead-locked, so its philosophers never reach their safe point.
+     */
+    private boolean resize(final int count)
+    {
+        final Philosopher[] philosophers = this.philosophers;
+        if (this.engine == null || !this.engine.isResizable() || philosophers == null || this.isDeadlocked())
+        {
+            return false;
+        }
+        if (count == philosophers.length)
+        {
+            return true;
+        }
+        final boolean frozen = this.isFrozen();
+        this.freeze();
+        try
+        {
+            if (!this.awaitSafePoint(philosophers))
+            {
+                return Thread.currentThread().isInterrupted();
+            }
+            final int kept = Math.min(count, philosophers.length);
+            this.setUpTable(Arrays.copyOf(philosophers, count), kept, this.tableTopology, this.tableDegree);
+            this.acquisitionStrategy.prepare(this.philosophers, this.forks);
+            this.traceTable();
+            this.engine.resize(this.philosophers);
+        }
+        finally
+        {
+            if (!frozen)
+            {
+                this.thaw();
+            }
+        }
+
+        /* Let the views pick up the new table. */
+        this.setChanged();
+        this.notifyObservers();
+        return true;
+    }
+
+    /**
+     * Waits until every philosopher of the frozen table is at his safe point.
+     *
+     * @param philosophers The philosophers of the table.
+     * @return True if all philosophers reached their safe point, false if the table dead-locked or the waiting thread
+     *     was interrupted.
+     */
+    private boolean awaitSafePoint(final Philosopher[] philosophers)
+    {
+        int seat = 0;
+        try
+        {
+            while (seat < philosophers.length)
+            {
+                if (philosophers[seat].isAtSafePoint())
+                {
+                    ++seat;
+                }
+                else if (this.isDeadlocked())
+                {
+                    return false;
+                }
+                else
+                {
+                    Thread.sleep(1);
+                }
+            }
+            return true;
+        }
+        catch (final InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Stops all running philosophers and disposes the forks of the table.
+     */
+    public void stop()
+    {
+        if (this.engine != null)
+        {
+            this.engine.stop();
+            for (final Fork fork : this.forks)
+            {
+                fork.dispose();
+            }
+        }
+    }
+
+    /**
+     * Gets the current time of the simulation clock. Engines with a virtual clock do not follow the wall clock.
+     *
+     * @return The simulation time in nanoseconds.
+     */
+    public long nanoTime()
+    {
+        return this.engine.nanoTime();
+    }
+
+    /**
+     * Get the random sleep time based on the current simulation speed.
+     *
+     * @param random The random stream of the philosopher.
+     * @return The time to sleep in nanoseconds.
+     */
+    public long sleepTime(final SplittableRandom random)
+    {
+        return (long) (this.speed * SimulationState.BASE_SPEED * random.nextDouble() * NANOS_PER_MILLI);
+    }
+
+    /**
+     * Get the random eat time based on the current simulation speed.
+     *
+     * @param random The random stream of the philosopher.
+     * @return The time to eat in nanoseconds.
+     */
+    public long eatTime(final SplittableRandom random)
+    {
+        return (long) (this.speed * (SimulationState.BASE_SPEED / 2) * random.nextDouble() * NANOS_PER_MILLI);
+    }
+
+    /**
+     * The gap between taking two forks, which gives the neighbours the chance to take the other fork.
+     *
+     * @return The gap in milliseconds.
+     */
+    public long folkGapTime()
+    {
+        return this.folkGapTime;
+    }
+
+    /**
+     * Sets the gap between taking two forks. Philosophers use the new gap from their next fork on.
+     *
+     * @param folkGapTime The gap in milliseconds.
+     * @throws IllegalArgumentException Thrown if the gap is negative.
+     */
+    public void setFolkGapTime(final long folkGapTime)
+    {
+        if (folkGapTime < 0)
+        {
+            throw new IllegalArgumentException("The fork gap must not be negative.");
+        }
+        this.folkGapTime = folkGapTime;
+    }
+
+    /**
+     * Gets the numbers of seats offered for a table.
+     *
+     * @return The seat counts in ascending order.
+     */
+    public static int[] getSeatCounts()
+    {
+        return SEAT_COUNTS.clone();
+    }
+
+    /**
+     * Sets the seed of the random timings. Every philosopher draws from his own stream, split off a stream of the
+     * seed in the order of the seats, so a table with the same seed gets the same timings. The seed is used by the
+     * next start of the simulation.
+     *
+     * @param seed The seed, null for a new seed for every start.
+     */
+    public void setSeed(final Long seed)
+    {
+        this.fixedSeed = seed;
+    }
+
+    /**
+     * Gets the seed the random timings of the current table were drawn from, to repeat a run.
+     *
+     * @return The seed.
+     */
+    public long getSeed()
+    {
+        return this.seed;
+    }
+
+    /**
+     * Sets the current simulation speed.
+     *
+     * @param speed The new speed.
+     */
+    public void setSpeed(final int speed)
+    {
+        this.speed = speed;
+    }
+
+    /**
+     * Sets the way the philosophers are executed. The mode is used by the next start of the simulation and must
+     * support the current strategy and fork type.
+     *
+     * @param executionMode The new execution mode.
+     */
+    public void setExecutionMode(final ExecutionMode executionMode)
+    {
+        if (!executionMode.isAvailable())
+        {
+            throw new IllegalArgumentException("Execution mode not available: " + executionMode.getName());
+        }
+        if (!executionMode.supports(this.acquisitionStrategyType))
+        {
+            throw new IllegalArgumentException("Execution mode " + executionMode.getName() + " does not support the strategy " + this.acquisitionStrategyType.getName());
+        }
+        if (!executionMode.supports(this.forkType))
+        {
+            throw new IllegalArgumentException("Execution mode " + executionMode.getName() + " does not support the fork type " + this.forkType.getName());
+        }
+        this.executionMode = executionMode;
+    }
+
+    /**
+     * Gets the way the philosophers are executed.
+     *
+     * @return The current execution mode.
+     */
+    public ExecutionMode getExecutionMode()
+    {
+        return this.executionMode;
+    }
+
+    /**
+     * Sets the implementation of the forks. The type is used by the next start of the simulation, must be available and
+     * must be supported by the current execution mode.
+     *
+     * @param forkType The new fork type.
+     */
+    public void setForkType(final ForkType forkType)
+    {
+        if (!forkType.isAvailable())
+        {
+            throw new IllegalArgumentException("Fork type not available: " + forkType.getName());
+        }
+        if (!this.executionMode.supports(forkType))
+        {
+            throw new IllegalArgumentException("Execution mode " + this.executionMode.getName() + " does not support the fork type " + forkType.getName());
+        }
+        this.forkType = forkType;
+    }
+
+    /**
+     * Gets the implementation of the forks.
+     *
+     * @return The current fork type.
+     */
+    public ForkType getForkType()
+    {
+        return this.forkType;
+    }
+
+    /**
+     * Sets the way the forks are shared between the philosophers. The topology is used by the next start of the
+     * simulation and must support the current degree.
+     *
+     * @param topology The new topology.
+     */
+    public void setTopology(final Topology topology)
+    {
+        if (!topology.supports(this.topologyDegree))
+        {
+            throw new IllegalArgumentException("Topology " + topology.getName() + " does not support the degree " + this.topologyDegree);
+        }
+        this.topology = topology;
+    }
+
+    /**
+     * Gets the way the forks are shared between the philosophers.
+     *
+     * @return The current topology.
+     */
+    public Topology getTopology()
+    {
+        return this.topology;
+    }
+
+    /**
+     * Sets the degree of the topology: the forks per seat of a torus or a random graph, the number of rings of
+     * several rings. The degree is used by the next start of the simulation and must be supported by the current
+     * topology: a torus needs an even degree.
+     *
+     * @param topologyDegree The new degree, at least 1.
+     */
+    public void setTopologyDegree(final int topologyDegree)
+    {
+        if (topologyDegree < 1)
+        {
+            throw new IllegalArgumentException("The degree must be positive.");
+        }
+        if (!this.topology.supports(topologyDegree))
+        {
+            throw new IllegalArgumentException("Topology " + this.topology.getName() + " does not support the degree " + topologyDegree);
+        }
+        this.topologyDegree = topologyDegree;
+    }
+
+    /**
+     * Gets the degree of the topology.
+     *
+     * @return The current degree.
      */
-    private int speed = 50;
+    public int getTopologyDegree()
+    {
+        return this.topologyDegree;
+    }
 
     /**
-     * Flag if the simulation is active.
+     * Sets the strategy used to get the forks. The strategy is used by the next start of the simulation and must be
+     * supported by the current execution mode: the discrete event and the timing wheel engine only run strategies
+     * with a fixed fork order.
+     *
+     * @param acquisitionStrategyType The new strategy type.
      */
-    private boolean frozen = false;
+    public void setAcquisitionStrategyType(final AcquisitionStrategyType acquisitionStrategyType)
+    {
+        if (!this.executionMode.supports(acquisitionStrategyType))
+        {
+            throw new IllegalArgumentException("Execution mode " + this.executionMode.getName() + " does not support the strategy " + acquisitionStrategyType.getName());
+        }
+        this.acquisitionStrategyType = acquisitionStrategyType;
+    }
 
     /**
-     * The threads for the philosopher objects.
+     * Gets the type of strategy used to get the forks.
+     *
+     * @return The current strategy type.
      */
-    private Thread[] philosopherThreads = null;
+    public AcquisitionStrategyType getAcquisitionStrategyType()
+    {
+        return this.acquisitionStrategyType;
+    }
 
     /**
-     * The philosopher objects itself.
+     * Gets the strategy the philosophers use to get their forks.
+     *
+     * @return The strategy of the running simulation.
      */
-    private Philosopher[] philosophers = null;
+    public AcquisitionStrategy getAcquisitionStrategy()
+    {
+        return this.acquisitionStrategy;
+    }
 
     /**
-     * The forks between the philosophers.
+     * Gets the number of meals per second since the simulation was started.
+     *
+     * @return The meals per second of simulation time.
      */
-    private Fork[] forks = null;
+    public double getMealsPerSecond()
+    {
+        final long elapsed = this.getElapsedTime();
+        return elapsed > 0 ? this.acquisitionStrategy.getMeals() * 1e9 / elapsed : 0;
+    }
 
     /**
-     * The current count of philosophers.
+     * Gets the simulation time the simulation was started at.
+     *
+     * @return The start time in nanoseconds of the simulation clock.
      */
-    private int philosophersCount = 5;
+    public long getStartTime()
+    {
+        return this.startTime;
+    }
 
     /**
-     * The logging queue.
+     * Gets the simulation time passed since the simulation was started.
+     *
+     * @return The elapsed simulation time in nanoseconds.
      */
-    private final Queue<String> log = new LinkedList<>();
+    public long getElapsedTime()
+    {
+        return this.nanoTime() - this.startTime;
+    }
 
     /**
-     * Stats the simulation.
+     * Gets the average time a hungry philosopher waited for his forks.
+     *
+     * @return The average wait time in milliseconds.
      */
-    public void start()
+    public double getAverageWaitTime()
     {
-        final int count = this.philosophersCount;
-        final PhilosopherNameProvider nameProvider = new PhilosopherNameProvider();
-        this.philosopherThreads = new Thread[count];
-        this.philosophers = new Philosopher[count];
-        this.forks = new Fork[count];
+        final long meals = this.acquisitionStrategy.getMeals();
+        return meals > 0 ? this.acquisitionStrategy.getWaitTime() / 1e6 / meals : 0;
+    }
 
-        /* Initialize all forks. */
-        for (int currentFork = 0; currentFork < count; ++currentFork)
+    /**
+     * Collects the times from getting hungry to eating of all philosophers of the table.
+     *
+     * @return The distribution of the wait times.
+     */
+    public LatencyDistribution getWaitTimeDistribution()
+    {
+        final LatencyDistribution distribution = new LatencyDistribution();
+        final Philosopher[] philosophers = this.philosophers;
+        for (int seat = 0; philosophers != null && seat < philosophers.length; ++seat)
         {
-            this.forks[currentFork] = new Fork();
-            this.forks[currentFork].addObserver(this);
+            distribution.add(philosophers[seat].getWaitTimes());
         }
+        return distribution;
+    }
 
-        /* Now initialize all philosophers and link the folks with the philosophers. Start every philosopher thread. */
-        for (int currentPhilosopher = 0; currentPhilosopher < count; ++currentPhilosopher)
+    /**
+     * Collects the times the forks were held by all philosophers of the table.
+     *
+     * @return The distribution of the hold times.
+     */
+    public LatencyDistribution getHoldTimeDistribution()
+    {
+        final LatencyDistribution distribution = new LatencyDistribution();
+        final Philosopher[] philosophers = this.philosophers;
+        for (int seat = 0; philosophers != null && seat < philosophers.length; ++seat)
         {
-            final Fork leftFork = this.forks[(currentPhilosopher - 1 + count) % count];
-            final Fork rightFork = this.forks[currentPhilosopher];
-            final Philosopher philosopher = new Philosopher(this, nameProvider.nextName(), leftFork, rightFork);
-            philosopher.addObserver(this);
-            this.philosophers[currentPhilosopher] = philosopher;
-            this.philosopherThreads[currentPhilosopher] = new Thread(philosopher);
-            this.philosopherThreads[currentPhilosopher].start();
+            distribution.add(philosophers[seat].getHoldTimes());
         }
+        return distribution;
     }
 
     /**
-     * Interrupt all running philosopher threads.
+     * Gets Jain's fairness index of the meals of the philosophers: 1 if all ate equally often, 1 / n if a single one
+     * of n philosophers ate. Starving philosophers pull the index down.
+     *
+     * @return The fairness index, 1 before the first meal.
      */
-    public void stop()
+    public double getFairnessIndex()
     {
-        for (final Thread philosopherThread : this.philosopherThreads)
+        final Philosopher[] philosophers = this.philosophers;
+        double sum = 0;
+        double sumOfSquares = 0;
+        for (final Philosopher philosopher : philosophers != null ? philosophers : new Philosopher[0])
         {
-            philosopherThread.interrupt();
+            final double meals = philosopher.getMeals();
+            sum += meals;
+            sumOfSquares += meals * meals;
         }
+        return sumOfSquares > 0 ? sum * sum / (philosophers.length * sumOfSquares) : 1;
     }
 
     /**
-     * Get the random sleep time based on the current simulation speed.
+     * Sets the pace of engines with a virtual clock. The rate is used by the next start of the simulation.
      *
-     * @return The time to sleep in milliseconds.
+     * @param virtualClockRate Virtual nanoseconds per wall clock nanosecond, 0 to run as fast as possible.
      */
-    public int sleepTime()
+    public void setVirtualClockRate(final double virtualClockRate)
     {
-        return (this.speed * ((int) (SimulationState.BASE_SPEED * Math.random())));
+        if (virtualClockRate < 0)
+        {
+            throw new IllegalArgumentException("The virtual clock rate must not be negative.");
+        }
+        this.virtualClockRate = virtualClockRate;
     }
 
     /**
-     * Get the random eat time based on the current simulation speed.
+     * Gets the pace of engines with a virtual clock.
      *
-     * @return The time to eat in milliseconds.
+     * @return Virtual nanoseconds per wall clock nanosecond, 0 to run as fast as possible.
+     */
+    public double getVirtualClockRate()
+    {
+        return this.virtualClockRate;
+    }
+
+    /**
+     * Pauses the simulation. Every philosopher parks at his next safe point, after thinking and before getting
+     * hungry, so no frozen philosopher holds a fork. Philosophers already waiting for forks eat first.
+     */
+    public void freeze()
+    {
+        this.safePoint.close();
+    }
+
+    /**
+     * Resumes the simulation and unparks all philosophers.
      */
-    public int eatTime()
+    public void thaw()
     {
-        return (this.speed * ((int) ((SimulationState.BASE_SPEED / 2) * Math.random())));
+        this.safePoint.open();
     }
 
     /**
-     * The gap between
+     * Checks if the simulation is frozen.
      *
-     * @return
+     * @return True if the philosophers park at their safe point.
      */
-    public long folkGapTime()
+    public boolean isFrozen()
     {
-        return 500;
+        return this.safePoint.isClosed();
     }
 
     /**
-     * Sets the current simulation speed.
+     * The safe point of the philosophers: returns at once unless the simulation is frozen, otherwise parks the
+     * calling thread until it is thawed.
      *
-     * @param speed The new speed.
+     * @throws InterruptedException Thrown if the thread was interrupted while parked.
      */
-    public void setSpeed(final int speed)
+    public void safePoint() throws InterruptedException
     {
-        this.speed = speed;
+        this.safePoint.await();
     }
 
     /**
-     * Pauses the simulation.
+     * Marks the seat of a philosopher and the seats of his forks shown at the table as changed. The operation never
+     * blocks.
+     *
+     * @param philosopher The changed philosopher.
      */
-    public synchronized void freeze()
+    public void markChanged(final Philosopher philosopher)
     {
-        this.frozen = true;
+        final AtomicLongArray changedSeats = this.changedSeats;
+        final int seats = this.seatWords.length();
+        this.markChanged(changedSeats, philosopher.getSeat());
+        for (final Fork fork : philosopher.getForks())
+        {
+            if (fork.getIndex() < seats)
+            {
+                this.markChanged(changedSeats, fork.getIndex());
+            }
+        }
+        if (!this.changed)
+        {
+            this.changed = true;
+        }
     }
 
     /**
-     * Resumes the simulation.
+     * Sets the bit of a seat, unless it is set already.
+     *
+     * @param changedSeats The bit set of the changed seats.
+     * @param seat The changed seat.
      */
-    public synchronized void thaw()
+    private void markChanged(final AtomicLongArray changedSeats, final int seat)
     {
-        this.frozen = false;
-        this.notifyAll();
+        final int word = seat >>> 6;
+        final long bit = 1L << seat;
+        long seats;
+        do
+        {
+            seats = changedSeats.get(word);
+            if ((seats & bit) != 0)
+            {
+                return;
+            }
+        }
+        while (!changedSeats.compareAndSet(word, seats, seats | bit));
     }
 
     /**
-     * Delegates model changes.
+     * Moves the seats changed since the last call into the given bit set.
      *
-     * @param observable The cause of the change (unused).
-     * @param argument Additional arguments (unused).
+     * @param seats Receives the changed seats.
+     * @return True if any seat changed.
      */
-    @Override
-    public synchronized void update(final Observable observable, final Object argument)
+    public boolean collectChanges(final BitSet seats)
     {
-        this.setChanged();
-        this.notifyObservers();
+        if (!this.changed)
+        {
+            return false;
+        }
+        this.changed = false;
+        final AtomicLongArray changedSeats = this.changedSeats;
+        for (int word = 0; word < changedSeats.length(); ++word)
+        {
+            long bits = changedSeats.get(word) != 0 ? changedSeats.getAndSet(word, 0) : 0;
+            while (bits != 0)
+            {
+                seats.set(word * Long.SIZE + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+        return true;
     }
 
     /**
@@ -199,28 +933,390 @@ public class SimulationState extends Observable implements Observer
     }
 
     /**
-     * Detect deadlocks. A deadlock is given if every philosopher as exactly one right fork and no left fork.
+     * Detect deadlocks. A deadlock is given if the wait-for graph found philosophers waiting for each other. Holding
+     * the right fork alone is no dead-lock, a philosopher backing off puts it back again.
      *
      * @return True if a deadlock was produced.
      */
     public boolean isDeadlocked()
     {
-        boolean deadlock = true;
-        for (final Philosopher philosopher : this.getPhilosophers())
+        return this.waitForGraph.getDeadlock() != null;
+    }
+
+    /**
+     * Gets the wait-for graph of the current table.
+     *
+     * @return The graph.
+     */
+    public WaitForGraph getWaitForGraph()
+    {
+        return this.waitForGraph;
+    }
+
+    /**
+     * Records a state transition of a philosopher in the versioned word of his seat.
+     *
+     * @param philosopher The philosopher.
+     * @param previousState The state left.
+     * @param philosopherState The state entered.
+     */
+    public void transition(final Philosopher philosopher, final PhilosopherState previousState, final PhilosopherState philosopherState)
+    {
+        final AtomicLongArray seatWords = this.seatWords;
+        final Philosopher[] philosophers = this.philosophers;
+        if (previousState == philosopherState || philosopher.getSeat() >= philosophers.length || philosophers[philosopher.getSeat()] != philosopher)
+        {
+
+            /* Philosophers of a previous table do not count. The seat words are read first, so they never belong to
+             * a newer table than the philosophers. */
+            return;
+        }
+        final int seat = philosopher.getSeat();
+        final long seatWord = seatWords.get(seat);
+        seatWords.set(seat, ((seatWord >>> TableSnapshot.STATE_BITS) + 1) << TableSnapshot.STATE_BITS | philosopherState.ordinal());
+    }
+
+    /**
+     * Takes a snapshot of the states of all seats and forks without blocking the philosophers. The table is read
+     * until two passes in a row read the same versions: then no seat and no fork changed between both passes, and
+     * the snapshot shows the table at a single point in time. A table changing faster than that gives the latest
+     * pass, marked as not consistent.
+     *
+     * @param snapshot The snapshot to fill, null for a new one.
+     * @return The filled snapshot.
+     */
+    public TableSnapshot snapshot(final TableSnapshot snapshot)
+    {
+        final TableSnapshot result = snapshot != null ? snapshot : new TableSnapshot();
+        AtomicLongArray seatWords;
+        WaitForGraph waitForGraph;
+        do
+        {
+            waitForGraph = this.waitForGraph;
+            seatWords = this.seatWords;
+        }
+        while (seatWords.length() != waitForGraph.getSeatCount());
+        final int seats = seatWords.length();
+        final int forks = waitForGraph.getForkCount();
+        result.resize(seats, forks);
+        final long[] seatCopy = result.seatWords;
+        final long[] forkCopy = result.forkWords;
+        for (int seat = 0; seat < seats; ++seat)
+        {
+            seatCopy[seat] = seatWords.get(seat);
+        }
+        for (int fork = 0; fork < forks; ++fork)
+        {
+            forkCopy[fork] = waitForGraph.getForkWord(fork);
+        }
+        boolean consistent = false;
+        for (int attempt = 0; attempt < SNAPSHOT_ATTEMPTS && !consistent; ++attempt)
+        {
+            consistent = true;
+            for (int seat = 0; seat < seats; ++seat)
+            {
+                final long seatWord = seatWords.get(seat);
+                if (seatWord != seatCopy[seat])
+                {
+                    seatCopy[seat] = seatWord;
+                    consistent = false;
+                }
+            }
+            for (int fork = 0; fork < forks; ++fork)
+            {
+                final long forkWord = waitForGraph.getForkWord(fork);
+                if (forkWord != forkCopy[fork])
+                {
+                    forkCopy[fork] = forkWord;
+                    consistent = false;
+                }
+            }
+        }
+        result.complete(consistent, waitForGraph.getDeadlock());
+        return result;
+    }
+
+    /**
+     * Informs the dead-lock listeners about a dead-lock found by the wait-for graph.
+     *
+     * @param deadlockReport The philosophers waiting for each other.
+     */
+    void fireDeadlocked(final DeadlockReport deadlockReport)
+    {
+        final DeadlockEvent event = new DeadlockEvent();
+        if (event.isEnabled())
+        {
+            long longestStuckTime = 0;
+            for (final long stuckTime : deadlockReport.getStuckTimes())
+            {
+                longestStuckTime = Math.max(longestStuckTime, stuckTime);
+            }
+            final int[] seats = deadlockReport.getSeats();
+            event.setPhilosophers(seats.length);
+            event.setSeats(Arrays.toString(Arrays.copyOf(seats, Math.min(seats.length, DEADLOCK_EVENT_SEATS))));
+            event.setLongestStuckTime(longestStuckTime);
+            event.commit();
+        }
+        for (final DeadlockListener deadlockListener : this.deadlockListeners)
+        {
+            deadlockListener.deadlocked(deadlockReport);
+        }
+    }
+
+    /**
+     * Adds a listener informed about dead-locks instead of polling {@link #isDeadlocked()}.
+     *
+     * @param deadlockListener The listener.
+     */
+    public void addDeadlockListener(final DeadlockListener deadlockListener)
+    {
+        this.deadlockListeners.add(deadlockListener);
+    }
+
+    /**
+     * Removes a dead-lock listener.
+     *
+     * @param deadlockListener The listener.
+     */
+    public void removeDeadlockListener(final DeadlockListener deadlockListener)
+    {
+        this.deadlockListeners.remove(deadlockListener);
+    }
+
+    /**
+     * Add a log entry. The operation never waits and allocates nothing. The change is also recorded into the trace.
+     *
+     * @param seat The seat of the philosopher.
+     * @param philosopherState The new state of the philosopher.
+     */
+    public void log(final int seat, final PhilosopherState philosopherState)
+    {
+        final long time = this.nanoTime();
+        this.log.publish(seat, philosopherState, time);
+        final TraceWriter trace = this.trace;
+        if (trace != null)
+        {
+            trace.record(TraceEventType.STATE, seat, philosopherState.ordinal(), time);
+        }
+    }
+
+    /**
+     * Records a fork change of the current table into the trace.
+     *
+     * @param waitForGraph The wait-for graph of the table the fork belongs to.
+     * @param fork The index of the fork.
+     * @param seat The seat of the new holder, -1 if the fork is put back.
+     */
+    void traceFork(final WaitForGraph waitForGraph, final int fork, final int seat)
+    {
+        final TraceWriter trace = this.trace;
+        if (trace != null && waitForGraph == this.waitForGraph)
+        {
+            trace.record(seat < 0 ? TraceEventType.FORK_RELEASED : TraceEventType.FORK_ACQUIRED, fork, seat, this.nanoTime());
+        }
+    }
+
+    /**
+     * Records a philosopher of the current table starting or stopping to wait for a fork into the trace.
+     *
+     * @param waitForGraph The wait-for graph of the table the philosopher belongs to.
+     * @param seat The seat of the philosopher.
+     * @param fork The index of the awaited fork, -1 if he stopped waiting without getting it.
+     */
+    void traceWait(final WaitForGraph waitForGraph, final int seat, final int fork)
+    {
+        final TraceWriter trace = this.trace;
+        if (trace != null && waitForGraph == this.waitForGraph)
+        {
+            if (fork < 0)
+            {
+                trace.record(TraceEventType.WAIT_CANCELLED, seat, 0, this.nanoTime());
+            }
+            else
+            {
+                trace.record(TraceEventType.FORK_AWAITED, fork, seat, this.nanoTime());
+            }
+        }
+    }
+
+    /**
+     * Records the current table into the trace: the seed and the topology its forks are wired from, then its size.
+     */
+    private void traceTable()
+    {
+        final TraceWriter trace = this.trace;
+        if (trace != null)
+        {
+            final long time = this.nanoTime();
+            trace.record(TraceEventType.SEED, 0, (int) this.seed, time);
+            trace.record(TraceEventType.SEED, 1, (int) (this.seed >>> Integer.SIZE), time);
+            trace.record(TraceEventType.TOPOLOGY, this.tableTopology.ordinal(), this.tableDegree, time);
+            trace.record(TraceEventType.TABLE, this.philosophers.length, this.forks.length, time);
+        }
+    }
+
+    /**
+     * Starts recording every state change and every fork change into a binary trace file, see {@link TraceWriter}.
+     * A trace being recorded is completed first. The trace starts with the size of the current table.
+     *
+     * @param path The path of the trace file.
+     * @throws IOException Thrown if the file could not be created.
+     */
+    public void startTrace(final Path path) throws IOException
+    {
+        this.stopTrace();
+        this.trace = new TraceWriter(path);
+        if (this.engine != null)
+        {
+            this.traceTable();
+        }
+    }
+
+    /**
+     * Stops recording the trace and completes its file.
+     *
+     * @throws IOException Thrown if recording failed or the file could not be completed.
+     */
+    public void stopTrace() throws IOException
+    {
+        final TraceWriter trace = this.trace;
+        this.trace = null;
+        if (trace != null)
+        {
+            trace.close();
+        }
+    }
+
+    /**
+     * Checks if a trace is being recorded.
+     *
+     * @return True while recording.
+     */
+    public boolean isTracing()
+    {
+        return this.trace != null;
+    }
+
+    /**
+     * Stops the simulation and replays a recorded trace instead. The views show the recorded tables, states and forks.
+     * The replay ends with the trace or when the simulation is started again.
+     *
+     * @param traceReader The trace, closed when the replay ends.
+     * @param speedMultiplier Recorded nanoseconds per wall clock nanosecond, 0 to replay as fast as possible.
+     * @throws IOException Thrown if the trace could not be read or does not start with a valid table.
+     */
+    public void replay(final TraceReader traceReader, final double speedMultiplier) throws IOException
+    {
+        final ReplayEngine engine = new ReplayEngine(this, traceReader, ExecutionMode.PLATFORM_THREADS.newThreadFactory(), speedMultiplier);
+        try
         {
-            deadlock &= (philosopher.getPhilosopherState() == PhilosopherState.GOT_RIGHT_FORK);
+            if (!engine.readFirstTable())
+            {
+                throw new IOException("The trace does not start with a table.");
+            }
         }
-        return deadlock;
+        catch (final IOException e)
+        {
+            traceReader.close();
+            throw e;
+        }
+        this.stop();
+        this.replayError = null;
+        this.philosophersCount = traceReader.getSubject();
+        this.start(engine, engine.getTopology(), engine.getDegree(), engine.getSeed());
+    }
+
+    /**
+     * Sets up a new table of a replayed trace. The philosophers kept stop where they are and start thinking, nobody
+     * holds a fork at the new table. Only to be called by the thread of a replay engine.
+     *
+     * @param count The number of seats of the new table.
+     * @param topology The way the forks of the new table are shared.
+     * @param degree The degree of the topology.
+     * @param seed The seed drawn topologies are drawn from.
+     */
+    public void setUpReplayTable(final int count, final Topology topology, final int degree, final long seed)
+    {
+        final Philosopher[] philosophers = this.philosophers;
+        final int kept = Math.min(count, philosophers.length);
+        for (int seat = 0; seat < kept; ++seat)
+        {
+            philosophers[seat].setPhilosopherState(PhilosopherState.THINKING);
+        }
+        this.philosophersCount = count;
+        this.seed = seed;
+        this.setUpTable(Arrays.copyOf(philosophers, count), kept, topology, degree);
+        this.acquisitionStrategy.prepare(this.philosophers, this.forks);
+        this.traceTable();
+
+        /* Let the views pick up the new table. */
+        this.setChanged();
+        this.notifyObservers();
+    }
+
+    /**
+     * Reports that a replay stopped because its trace could not be read. The views get the error as argument of the
+     * notification. Only to be called by the thread of a replay engine.
+     *
+     * @param replayError The error that stopped the replay.
+     */
+    public void replayFailed(final IOException replayError)
+    {
+        this.replayError = replayError;
+        this.setChanged();
+        this.notifyObservers(replayError);
+    }
+
+    /**
+     * Gets the error that stopped the last replay.
+     *
+     * @return The error, null if the replay did not fail.
+     */
+    public IOException getReplayError()
+    {
+        return this.replayError;
+    }
+
+    /**
+     * Reports that a philosopher stopped because the fork manager keeping his forks could not be reached. The other
+     * philosophers of the table stop at their next fork, only the first error is passed to the views as argument of
+     * the notification.
+     *
+     * @param forkManagerError The error that stopped the philosopher.
+     */
+    public void forkManagerFailed(final IOException forkManagerError)
+    {
+        synchronized (this)
+        {
+            if (this.forkManagerError != null)
+            {
+                return;
+            }
+            this.forkManagerError = forkManagerError;
+        }
+        this.setChanged();
+        this.notifyObservers(forkManagerError);
+    }
+
+    /**
+     * Gets the error that stopped the philosophers of the table.
+     *
+     * @return The error, null if the fork manager could be reached.
+     */
+    public synchronized IOException getForkManagerError()
+    {
+        return this.forkManagerError;
     }
 
     /**
-     * Add a log entry.
+     * Reads all log entries added since the last read.
      *
-     * @param entry The text of the entry.
+     * @param consumer Receives the entries.
+     * @return The number of entries read.
      */
-    public synchronized void log(final String entry)
+    public int drainLog(final EventConsumer consumer)
     {
-        this.log.offer(entry);
+        return this.log.drain(consumer);
     }
 
     /**
@@ -231,24 +1327,65 @@ public class SimulationState extends Observable implements Observer
     public String getLog()
     {
         final StringBuilder log = new StringBuilder();
-        String logEntry = null;
-        while ((logEntry = this.log.poll()) != null)
+        this.drainLog(new EventConsumer()
         {
-            log.append(logEntry);
-        }
+            @Override
+            public void accept(final int seat, final PhilosopherState philosopherState, final long time)
+            {
+                log.append(SimulationState.this.getPhilosopherName(seat)).append(": ").append(philosopherState.getName()).append('\n');
+            }
+        });
         return log.toString();
     }
 
     /**
-     * Change the number of philosophers in the simulation. This will cause a restart of the simulation.
+     * Gets the name of the philosopher at a seat. Log entries of a previous table may name seats that are gone.
+     *
+     * @param seat The seat.
+     * @return The name of the philosopher.
+     */
+    public String getPhilosopherName(final int seat)
+    {
+        final Philosopher[] philosophers = this.philosophers;
+        return philosophers != null && seat < philosophers.length ? philosophers[seat].toString() : "#" + (seat + 1);
+    }
+
+    /**
+     * Replaces the log by an empty one. Entries not read yet are discarded.
+     *
+     * @param capacity The number of entries kept until they are read.
+     * @param overflowPolicy The behaviour of a full log.
+     */
+    public void setLogBuffer(final int capacity, final OverflowPolicy overflowPolicy)
+    {
+        this.log = new EventRingBuffer(capacity, overflowPolicy);
+    }
+
+    /**
+     * Gets the number of log entries lost because the log was full.
+     *
+     * @return The number of lost log entries.
+     */
+    public long getDroppedLogEntries()
+    {
+        return this.log.getDroppedEvents();
+    }
+
+    /**
+     * Change the number of philosophers in the simulation. Seats are added to or removed from the running table if
+     * the engine supports it, which blocks until the philosophers reached their safe point. Otherwise, and for a
+     * dead-locked table, the simulation is restarted.
      *
      * @param newNumberOfPhilosophers The new number of philosophers.
      */
     public void changeNumberOfPhilosphers(final Integer newNumberOfPhilosophers)
     {
-        this.stop();
         this.philosophersCount = newNumberOfPhilosophers;
-        this.start();
+        if (!this.resize(newNumberOfPhilosophers))
+        {
+            this.stop();
+            this.start();
+        }
     }
 
 }
@@ -0,0 +1,359 @@
+package pac.dining_philosophers.model.states;
+
+import pac.dining_philosophers.model.entities.Fork;
+import pac.dining_philosophers.model.entities.Philosopher;
+import pac.dining_philosophers.model.utils.LatencyDistribution;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Exposes the statistics of a simulation as an MXBean. Every attribute is collected from the philosophers of the
+ * current table when it is read, so nothing is computed while nobody is looking.
+ *
+ * @author Claudia Panoch
+ */
+public class SimulationStatistics implements SimulationStatisticsMXBean
+{
+
+    /**
+     * The name of the first registered bean, further beans get an instance number.
+     */
+    public static final String OBJECT_NAME = "pac.dining_philosophers:type=SimulationStatistics";
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * The default time a philosopher has to wait for a fork to count as stalled, in milliseconds.
+     */
+    private static final double DEFAULT_STALL_THRESHOLD = 1000;
+
+    /**
+     * The simulation.
+     */
+    private final SimulationState simulationState;
+
+    /**
+     * The time a philosopher has to wait for a fork to count as stalled, in milliseconds.
+     */
+    private volatile double stallThreshold = DEFAULT_STALL_THRESHOLD;
+
+    /**
+     * Creates the statistics of a simulation.
+     *
+     * @param simulationState The simulation.
+     */
+    public SimulationStatistics(final SimulationState simulationState)
+    {
+        this.simulationState = simulationState;
+    }
+
+    /**
+     * Registers the statistics of a simulation at the platform MBean server.
+     *
+     * @param simulationState The simulation.
+     * @return The name of the bean, null if it could not be registered.
+     */
+    public static ObjectName register(final SimulationState simulationState)
+    {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final SimulationStatistics statistics = new SimulationStatistics(simulationState);
+        try
+        {
+            for (int instance = 1;; ++instance)
+            {
+                final ObjectName name = new ObjectName(instance == 1 ? OBJECT_NAME : OBJECT_NAME + ",instance=" + instance);
+                try
+                {
+                    server.registerMBean(statistics, name);
+                    return name;
+                }
+                catch (final InstanceAlreadyExistsException ignored) { }
+            }
+        }
+        catch (final JMException e)
+        {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Gets the number of seats at the current table.
+     *
+     * @return The number of seats.
+     */
+    @Override
+    public int getSeats()
+    {
+        return this.getPhilosophers().length;
+    }
+
+    /**
+     * Sums the meals of all philosophers of the table.
+     *
+     * @return The number of meals.
+     */
+    @Override
+    public long getMeals()
+    {
+        long meals = 0;
+        for (final Philosopher philosopher : this.getPhilosophers())
+        {
+            meals += philosopher.getMeals();
+        }
+        return meals;
+    }
+
+    /**
+     * Gets the meals per second since the simulation was started.
+     *
+     * @return The meals per second of simulation time.
+     */
+    @Override
+    public double getMealsPerSecond()
+    {
+        return this.getPhilosophers().length > 0 ? this.simulationState.getMealsPerSecond() : 0;
+    }
+
+    /**
+     * Gets the median wait time of the table.
+     *
+     * @return The time in milliseconds.
+     */
+    @Override
+    public double getWaitTimeP50()
+    {
+        return this.simulationState.getWaitTimeDistribution().getValueAtPercentile(50) / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Gets the 99th percentile of the wait times of the table.
+     *
+     * @return The time in milliseconds.
+     */
+    @Override
+    public double getWaitTimeP99()
+    {
+        return this.simulationState.getWaitTimeDistribution().getValueAtPercentile(99) / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Gets the 99.9th percentile of the wait times of the table.
+     *
+     * @return The time in milliseconds.
+     */
+    @Override
+    public double getWaitTimeP999()
+    {
+        return this.simulationState.getWaitTimeDistribution().getValueAtPercentile(99.9) / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Gets the longest wait time of the table.
+     *
+     * @return The time in milliseconds.
+     */
+    @Override
+    public double getWaitTimeMax()
+    {
+        return this.simulationState.getWaitTimeDistribution().getMaximum() / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Gets the median hold time of the table.
+     *
+     * @return The time in milliseconds.
+     */
+    @Override
+    public double getHoldTimeP50()
+    {
+        return this.simulationState.getHoldTimeDistribution().getValueAtPercentile(50) / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Gets the 99th percentile of the hold times of the table.
+     *
+     * @return The time in milliseconds.
+     */
+    @Override
+    public double getHoldTimeP99()
+    {
+        return this.simulationState.getHoldTimeDistribution().getValueAtPercentile(99) / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Gets the 99.9th percentile of the hold times of the table.
+     *
+     * @return The time in milliseconds.
+     */
+    @Override
+    public double getHoldTimeP999()
+    {
+        return this.simulationState.getHoldTimeDistribution().getValueAtPercentile(99.9) / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Gets the fairness index of the meals.
+     *
+     * @return The fairness index.
+     */
+    @Override
+    public double getFairnessIndex()
+    {
+        return this.simulationState.getFairnessIndex();
+    }
+
+    /**
+     * Finds the philosopher who ate least often, the first one if several did.
+     *
+     * @return The seat, -1 without a table.
+     */
+    @Override
+    public int getLeastFedSeat()
+    {
+        final Philosopher[] philosophers = this.getPhilosophers();
+        int leastFedSeat = -1;
+        for (int seat = 0; seat < philosophers.length; ++seat)
+        {
+            if (leastFedSeat < 0 || philosophers[seat].getMeals() < philosophers[leastFedSeat].getMeals())
+            {
+                leastFedSeat = seat;
+            }
+        }
+        return leastFedSeat;
+    }
+
+    /**
+     * Gets the meals of every philosopher.
+     *
+     * @return The meals, indexed by the seat.
+     */
+    @Override
+    public long[] getMealsPerSeat()
+    {
+        final Philosopher[] philosophers = this.getPhilosophers();
+        final long[] meals = new long[philosophers.length];
+        for (int seat = 0; seat < philosophers.length; ++seat)
+        {
+            meals[seat] = philosophers[seat].getMeals();
+        }
+        return meals;
+    }
+
+    /**
+     * Gets the 99th percentile of the wait times of every philosopher.
+     *
+     * @return The times in milliseconds, indexed by the seat.
+     */
+    @Override
+    public double[] getWaitTimeP99PerSeat()
+    {
+        final Philosopher[] philosophers = this.getPhilosophers();
+        final double[] waitTimes = new double[philosophers.length];
+        for (int seat = 0; seat < philosophers.length; ++seat)
+        {
+            waitTimes[seat] = new LatencyDistribution().add(philosophers[seat].getWaitTimes()).getValueAtPercentile(99) / NANOS_PER_MILLI;
+        }
+        return waitTimes;
+    }
+
+    /**
+     * Gets the number of philosophers waiting for every fork.
+     *
+     * @return The queue lengths, indexed by the fork.
+     */
+    @Override
+    public int[] getForkQueueLengths()
+    {
+        final Fork[] forks = this.getForks();
+        final int[] queueLengths = new int[forks.length];
+        for (int fork = 0; fork < forks.length; ++fork)
+        {
+            queueLengths[fork] = forks[fork].getQueueLength();
+        }
+        return queueLengths;
+    }
+
+    /**
+     * Gets the longest queue of philosophers waiting for a fork.
+     *
+     * @return The length of the longest queue, 0 without a table.
+     */
+    @Override
+    public int getMaxForkQueueLength()
+    {
+        int maxQueueLength = 0;
+        for (final Fork fork : this.getForks())
+        {
+            maxQueueLength = Math.max(maxQueueLength, fork.getQueueLength());
+        }
+        return maxQueueLength;
+    }
+
+    /**
+     * Gets the time a philosopher has to wait for a fork to count as stalled.
+     *
+     * @return The time in milliseconds.
+     */
+    @Override
+    public double getStallThreshold()
+    {
+        return this.stallThreshold;
+    }
+
+    /**
+     * Sets the time a philosopher has to wait for a fork to count as stalled.
+     *
+     * @param stallThreshold The time in milliseconds, not negative.
+     */
+    @Override
+    public void setStallThreshold(final double stallThreshold)
+    {
+        if (!(stallThreshold >= 0))
+        {
+            throw new IllegalArgumentException("The stall threshold must not be negative.");
+        }
+        this.stallThreshold = stallThreshold;
+    }
+
+    /**
+     * Gets the philosophers waiting for a fork for at least the stall threshold.
+     *
+     * @return The seats of the stalled philosophers.
+     */
+    @Override
+    public int[] getStalledSeats()
+    {
+        return this.simulationState.getWaitForGraph().findStalled((long) (this.stallThreshold * NANOS_PER_MILLI)).getSeats();
+    }
+
+    /**
+     * Gets the forks of the current table.
+     *
+     * @return The forks, empty without a table.
+     */
+    private Fork[] getForks()
+    {
+        final Fork[] forks = this.simulationState.getForks();
+        return forks != null ? forks : new Fork[0];
+    }
+
+    /**
+     * Gets the philosophers of the current table.
+     *
+     * @return The philosophers, empty without a table.
+     */
+    private Philosopher[] getPhilosophers()
+    {
+        final Philosopher[] philosophers = this.simulationState.getPhilosophers();
+        return philosophers != null ? philosophers : new Philosopher[0];
+    }
+
+}
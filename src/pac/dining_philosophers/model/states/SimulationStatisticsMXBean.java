@@ -0,0 +1,145 @@
+package pac.dining_philosophers.model.states;
+
+/**
+ * The statistics of the running simulation, exposed through JMX. Times are given in milliseconds.
+ *
+ * @author Claudia Panoch
+ */
+public interface SimulationStatisticsMXBean
+{
+
+    /**
+     * Gets the number of seats at the table.
+     *
+     * @return The number of seats.
+     */
+    int getSeats();
+
+    /**
+     * Gets the number of finished meals of the table.
+     *
+     * @return The number of meals.
+     */
+    long getMeals();
+
+    /**
+     * Gets the number of meals per second since the simulation was started.
+     *
+     * @return The meals per second of simulation time.
+     */
+    double getMealsPerSecond();
+
+    /**
+     * Gets the median time from getting hungry to eating.
+     *
+     * @return The time in milliseconds.
+     */
+    double getWaitTimeP50();
+
+    /**
+     * Gets the time from getting hungry to eating that 99% of the meals did not exceed.
+     *
+     * @return The time in milliseconds.
+     */
+    double getWaitTimeP99();
+
+    /**
+     * Gets the time from getting hungry to eating that 99.9% of the meals did not exceed.
+     *
+     * @return The time in milliseconds.
+     */
+    double getWaitTimeP999();
+
+    /**
+     * Gets the longest time from getting hungry to eating.
+     *
+     * @return The time in milliseconds.
+     */
+    double getWaitTimeMax();
+
+    /**
+     * Gets the median time a fork was held.
+     *
+     * @return The time in milliseconds.
+     */
+    double getHoldTimeP50();
+
+    /**
+     * Gets the time a fork was held that 99% of the holds did not exceed.
+     *
+     * @return The time in milliseconds.
+     */
+    double getHoldTimeP99();
+
+    /**
+     * Gets the time a fork was held that 99.9% of the holds did not exceed.
+     *
+     * @return The time in milliseconds.
+     */
+    double getHoldTimeP999();
+
+    /**
+     * Gets Jain's fairness index of the meals, 1 if all philosophers ate equally often.
+     *
+     * @return The fairness index.
+     */
+    double getFairnessIndex();
+
+    /**
+     * Gets the seat of the philosopher who ate least often.
+     *
+     * @return The seat, -1 without a table.
+     */
+    int getLeastFedSeat();
+
+    /**
+     * Gets the number of meals of every seat.
+     *
+     * @return The meals, indexed by the seat.
+     */
+    long[] getMealsPerSeat();
+
+    /**
+     * Gets the time from getting hungry to eating that 99% of the meals of every seat did not exceed.
+     *
+     * @return The times in milliseconds, indexed by the seat.
+     */
+    double[] getWaitTimeP99PerSeat();
+
+    /**
+     * Gets the number of philosophers waiting for every fork.
+     *
+     * @return The queue lengths, indexed by the fork.
+     */
+    int[] getForkQueueLengths();
+
+    /**
+     * Gets the longest queue of philosophers waiting for a fork.
+     *
+     * @return The length of the longest queue.
+     */
+    int getMaxForkQueueLength();
+
+    /**
+     * Gets the time a philosopher has to wait for a fork to count as stalled.
+     *
+     * @return The time in milliseconds.
+     */
+    double getStallThreshold();
+
+    /**
+     * Sets the time a philosopher has to wait for a fork to count as stalled.
+     *
+     * @param stallThreshold The time in milliseconds, not negative.
+     */
+    void setStallThreshold(double stallThreshold);
+
+    /**
+     * Gets the philosophers waiting for a fork for at least the stall threshold, on a dead-locked cycle as well as
+     * behind a cycle or a slow neighbour.
+     *
+     * @return The seats of the stalled philosophers.
+     */
+    int[] getStalledSeats();
+
+}
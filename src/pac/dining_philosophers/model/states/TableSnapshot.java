@@ -0,0 +1,223 @@
+package pac.dining_philosophers.model.states;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A copy of the states of all seats and forks of the table, taken by {@link SimulationState#snapshot(TableSnapshot)}.
+ * A consistent snapshot shows the table as it was at a single point in time. A snapshot object is meant to be reused
+ * by one reader, so taking snapshots allocates nothing once the arrays have the size of the table.
+ *
+ * @author Claudia Panoch
+ */
+public class TableSnapshot
+{
+
+    /**
+     * All states, indexed by their ordinal.
+     */
+    private static final PhilosopherState[] STATES = PhilosopherState.values();
+
+    /**
+     * The bits of a seat word holding the state ordinal.
+     */
+    static final int STATE_BITS = 8;
+
+    /**
+     * The state part of a seat word.
+     */
+    static final long STATE_MASK = (1L << STATE_BITS) - 1;
+
+    /**
+     * The collected seat words.
+     */
+    long[] seatWords = new long[0];
+
+    /**
+     * The collected fork words.
+     */
+    long[] forkWords = new long[0];
+
+    /**
+     * The number of seats.
+     */
+    private int seats = 0;
+
+    /**
+     * The number of forks.
+     */
+    private int forks = 0;
+
+    /**
+     * True if the snapshot shows a single point in time.
+     */
+    private boolean consistent = true;
+
+    /**
+     * The dead-lock found when the snapshot was taken, null if none was found.
+     */
+    private DeadlockReport deadlock = null;
+
+    /**
+     * The seats of the dead-locked philosophers.
+     */
+    private final BitSet deadlockedSeats = new BitSet();
+
+    /**
+     * The number of philosophers in every state, indexed by the state ordinal.
+     */
+    private final int[] stateCounts = new int[STATES.length];
+
+    /**
+     * Sizes the arrays for a table. The arrays only grow.
+     *
+     * @param seats The number of seats.
+     * @param forks The number of forks.
+     */
+    void resize(final int seats, final int forks)
+    {
+        if (this.seatWords.length < seats)
+        {
+            this.seatWords = new long[seats];
+        }
+        if (this.forkWords.length < forks)
+        {
+            this.forkWords = new long[forks];
+        }
+        this.seats = seats;
+        this.forks = forks;
+    }
+
+    /**
+     * Completes a snapshot after the words were collected.
+     *
+     * @param consistent True if the words show a single point in time.
+     * @param deadlock The dead-lock found by the wait-for graph, null if none was found.
+     */
+    void complete(final boolean consistent, final DeadlockReport deadlock)
+    {
+        this.consistent = consistent;
+        if (deadlock != this.deadlock)
+        {
+            this.deadlock = deadlock;
+            this.deadlockedSeats.clear();
+            for (final int seat : deadlock != null ? deadlock.getSeats() : new int[0])
+            {
+                this.deadlockedSeats.set(seat);
+            }
+        }
+        Arrays.fill(this.stateCounts, 0);
+        for (int seat = 0; seat < this.seats; ++seat)
+        {
+            ++this.stateCounts[(int) (this.seatWords[seat] & STATE_MASK)];
+        }
+    }
+
+    /**
+     * Gets the number of seats.
+     *
+     * @return The number of seats.
+     */
+    public int getSeats()
+    {
+        return this.seats;
+    }
+
+    /**
+     * Gets the number of forks.
+     *
+     * @return The number of forks.
+     */
+    public int getForks()
+    {
+        return this.forks;
+    }
+
+    /**
+     * Gets the state of a philosopher.
+     *
+     * @param seat The seat.
+     * @return The state.
+     */
+    public PhilosopherState getPhilosopherState(final int seat)
+    {
+        return STATES[(int) (this.seatWords[seat] & STATE_MASK)];
+    }
+
+    /**
+     * Checks if a fork was in use.
+     *
+     * @param fork The index of the fork.
+     * @return True if the fork was taken.
+     */
+    public boolean isForkTaken(final int fork)
+    {
+        return WaitForGraph.holderOf(this.forkWords[fork]) >= 0;
+    }
+
+    /**
+     * Gets the holder of a fork.
+     *
+     * @param fork The index of the fork.
+     * @return The seat of the holder, -1 if nobody held the fork.
+     */
+    public int getForkHolder(final int fork)
+    {
+        return WaitForGraph.holderOf(this.forkWords[fork]);
+    }
+
+    /**
+     * Gets the number of philosophers in a state.
+     *
+     * @param philosopherState The state.
+     * @return The number of philosophers.
+     */
+    public int getStateCount(final PhilosopherState philosopherState)
+    {
+        return this.stateCounts[philosopherState.ordinal()];
+    }
+
+    /**
+     * Checks if the snapshot shows a single point in time. A table changing faster than it can be read may only give
+     * the latest, possibly torn picture.
+     *
+     * @return True if the snapshot is consistent.
+     */
+    public boolean isConsistent()
+    {
+        return this.consistent;
+    }
+
+    /**
+     * Checks if the table was dead-locked. On a torus or several rings a dead-lock may only stop some of the
+     * philosophers.
+     *
+     * @return True if a dead-lock was found.
+     */
+    public boolean isDeadlocked()
+    {
+        return this.deadlock != null;
+    }
+
+    /**
+     * Checks if a philosopher was dead-locked.
+     *
+     * @param seat The seat.
+     * @return True if the philosopher was on the cycle of the dead-lock found.
+     */
+    public boolean isDeadlocked(final int seat)
+    {
+        return this.deadlockedSeats.get(seat);
+    }
+
+    /**
+     * Gets the number of dead-locked philosophers.
+     *
+     * @return The number of philosophers on the cycle of the dead-lock found, 0 if none was found.
+     */
+    public int getDeadlockedSeats()
+    {
+        return this.deadlockedSeats.cardinality();
+    }
+
+}
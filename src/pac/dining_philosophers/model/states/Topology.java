@@ -0,0 +1,288 @@
+package pac.dining_philosophers.model.states;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Represents the ways the forks can be shared between the philosophers. A topology tells for every seat which forks
+ * the philosopher needs, in the order he takes them when the strategy does not order them itself: the first fork is
+ * his right one, the last fork his left one. The first forks of every topology, as many as there are seats, are shown
+ * by the views next to the seats. Those of a ring, of the first dimension of a torus and of several rings lie between
+ * neighbours, those of a random graph are shared by any seats.
+ *
+ * @author Claudia Panoch
+ */
+public enum Topology
+{
+
+    /**
+     * A single ring, every philosopher shares a fork with each neighbour. A philosopher alone at the table has the
+     * same fork on both sides. The degree is ignored.
+     */
+    RING
+    {
+        @Override
+        public int[][] wire(final int seats, final int degree, final SplittableRandom random)
+        {
+            final int[][] seatForks = new int[seats][];
+            for (int seat = 0; seat < seats; ++seat)
+            {
+                seatForks[seat] = new int[] { seat, (seat - 1 + seats) % seats };
+            }
+            return seatForks;
+        }
+    },
+
+    /**
+     * A torus of degree / 2 dimensions, every philosopher shares a fork with his two neighbours in every dimension and
+     * needs degree forks, so the degree must be even. The seats are laid out along the first dimension with a stride of about the
+     * (degree / 2)-th root of the seats between neighbours of the next dimension, so any number of seats forms a torus.
+     */
+    TORUS
+    {
+        @Override
+        public boolean supports(final int degree)
+        {
+            return degree % 2 == 0;
+        }
+
+        @Override
+        public int forkCount(final int seats, final int degree)
+        {
+            return dimensions(degree) * seats;
+        }
+
+        @Override
+        public int[][] wire(final int seats, final int degree, final SplittableRandom random)
+        {
+            final int dimensions = dimensions(degree);
+            final int stride = Math.max(2, (int) Math.round(Math.pow(seats, 1.0 / dimensions)));
+            final int[][] seatForks = new int[seats][];
+            for (int seat = 0; seat < seats; ++seat)
+            {
+
+                /* The fork of the edge to the next seat in a dimension has the index dimension * seats + seat. */
+                final int[] forks = new int[2 * dimensions];
+                long offset = 1;
+                for (int dimension = 0; dimension < dimensions; ++dimension)
+                {
+                    final int previousSeat = (int) ((seat - offset % seats + seats) % seats);
+                    forks[dimension] = dimension * seats + seat;
+                    forks[2 * dimensions - 1 - dimension] = dimension * seats + previousSeat;
+                    offset *= stride;
+                }
+                seatForks[seat] = distinct(forks);
+            }
+            return seatForks;
+        }
+    },
+
+    /**
+     * Degree rings of about the same size side by side. The first philosophers of neighbouring rings share a bridge
+     * fork, so a ring is tied to the next one.
+     */
+    MULTI_RING
+    {
+        @Override
+        public int forkCount(final int seats, final int degree)
+        {
+            return seats + bridges(rings(seats, degree));
+        }
+
+        @Override
+        public int[][] wire(final int seats, final int degree, final SplittableRandom random)
+        {
+            final int rings = rings(seats, degree);
+            final int bridges = bridges(rings);
+            final int[][] seatForks = new int[seats][];
+            for (int ring = 0; ring < rings; ++ring)
+            {
+                final int start = firstSeat(seats, rings, ring);
+                final int size = firstSeat(seats, rings, ring + 1) - start;
+                for (int seat = start; seat < start + size; ++seat)
+                {
+                    seatForks[seat] = new int[] { seat, start + (seat - start - 1 + size) % size };
+                }
+
+                /* The first philosopher of a ring shares the bridge forks to the rings before and after. */
+                if (bridges > 0)
+                {
+                    final int[] ringForks = seatForks[start];
+                    final int[] forks = new int[ringForks.length + (bridges == 1 ? 1 : 2)];
+                    forks[0] = ringForks[0];
+                    forks[1] = seats + ring % bridges;
+                    if (bridges > 1)
+                    {
+                        forks[2] = seats + (ring - 1 + rings) % rings;
+                    }
+                    forks[forks.length - 1] = ringForks[ringForks.length - 1];
+                    seatForks[start] = distinct(forks);
+                }
+            }
+            return seatForks;
+        }
+    },
+
+    /**
+     * Every philosopher needs degree forks picked at random from as many forks as there are seats, so some forks are
+     * shared by many philosophers and others by none. The graph follows the seed of the simulation, but every seat
+     * draws from all forks of the table, so a table of another size gets a new graph.
+     */
+    RANDOM_BIPARTITE
+    {
+        @Override
+        public int[][] wire(final int seats, final int degree, final SplittableRandom random)
+        {
+            final int forkDegree = Math.max(1, Math.min(degree, seats));
+            final int[] forks = new int[seats];
+            for (int fork = 0; fork < seats; ++fork)
+            {
+                forks[fork] = fork;
+            }
+            final int[][] seatForks = new int[seats][];
+            for (int seat = 0; seat < seats; ++seat)
+            {
+
+                /* Draw the forks without repetition by shuffling the front of the forks. */
+                for (int position = 0; position < forkDegree; ++position)
+                {
+                    final int other = position + random.nextInt(seats - position);
+                    final int fork = forks[other];
+                    forks[other] = forks[position];
+                    forks[position] = fork;
+                }
+                seatForks[seat] = Arrays.copyOf(forks, forkDegree);
+            }
+            return seatForks;
+        }
+    };
+
+    /**
+     * Gets the forks of every seat.
+     *
+     * @param seats The number of seats.
+     * @param degree The degree of the topology, see the topologies.
+     * @param random The random source of topologies drawn at random.
+     * @return The indexes of the forks of every seat in the order they are taken, distinct apart from a single
+     *     philosopher at a ring.
+     */
+    public abstract int[][] wire(int seats, int degree, SplittableRandom random);
+
+    /**
+     * Checks if the forks can be shared with a degree. By default every positive degree can be used.
+     *
+     * @param degree The degree of the topology, see the topologies.
+     * @return True if the degree can be used.
+     */
+    public boolean supports(final int degree)
+    {
+        return true;
+    }
+
+    /**
+     * Gets the number of forks of a table. By default there are as many forks as seats.
+     *
+     * @param seats The number of seats.
+     * @param degree The degree of the topology, see the topologies.
+     * @return The number of forks.
+     */
+    public int forkCount(final int seats, final int degree)
+    {
+        return seats;
+    }
+
+    /**
+     * Gets the number of dimensions of a torus.
+     *
+     * @param degree The number of forks per seat, two per dimension.
+     * @return The number of dimensions, at least one.
+     */
+    private static int dimensions(final int degree)
+    {
+        return Math.max(1, degree / 2);
+    }
+
+    /**
+     * Gets the number of rings of a table, every ring has at least two seats.
+     *
+     * @param seats The number of seats.
+     * @param degree The requested number of rings.
+     * @return The number of rings, at least one.
+     */
+    private static int rings(final int seats, final int degree)
+    {
+        return Math.max(1, Math.min(degree, seats / 2));
+    }
+
+    /**
+     * Gets the number of bridge forks between the rings: none for a single ring, one between two rings and a
+     * closed chain of bridges between more.
+     *
+     * @param rings The number of rings.
+     * @return The number of bridge forks.
+     */
+    private static int bridges(final int rings)
+    {
+        return rings < 2 ? 0 : rings == 2 ? 1 : rings;
+    }
+
+    /**
+     * Gets the first seat of a ring. The seats are spread evenly over the rings.
+     *
+     * @param seats The number of seats.
+     * @param rings The number of rings.
+     * @param ring The ring, the number of rings for the end of the last ring.
+     * @return The first seat.
+     */
+    private static int firstSeat(final int seats, final int rings, final int ring)
+    {
+        return (int) ((long) seats * ring / rings);
+    }
+
+    /**
+     * Removes repeated forks, keeping the first position of each.
+     *
+     * @param forks The forks.
+     * @return The distinct forks in their order.
+     */
+    private static int[] distinct(final int[] forks)
+    {
+        int count = 0;
+        final int[] result = new int[forks.length];
+        for (final int fork : forks)
+        {
+            int position = 0;
+            while (position < count && result[position] != fork)
+            {
+                ++position;
+            }
+            if (position == count)
+            {
+                result[count++] = fork;
+            }
+        }
+        return count == forks.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Gets the readable name of the topology.
+     *
+     * @return The readable name of the topology.
+     */
+    public String getName()
+    {
+        return this.name().replace('_', ' ').toLowerCase();
+    }
+
+    /**
+     * Returns the readable name, used by the user interface.
+     *
+     * @return The readable name of the topology.
+     */
+    @Override
+    public String toString()
+    {
+        return this.getName();
+    }
+
+}
@@ -0,0 +1,333 @@
+package pac.dining_philosophers.model.states;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tracks which philosopher holds which fork and which fork every philosopher waits for.
+ * A philosopher waiting for a fork points to the holder of the fork, who may wait himself. When a philosopher starts
+ * waiting, the chain behind him is followed; if it leads back to him, the philosophers on the chain wait for each
+ * other forever. The graph finds such cycles in any fork topology, not only the whole table, and informs the
+ * dead-lock listeners of the simulation. Every edge is a single atomic field, so updating the graph never blocks.
+ *
+ * @author Claudia Panoch
+ */
+public class WaitForGraph
+{
+
+    /**
+     * Marks a fork without holder or a philosopher who does not wait.
+     */
+    private static final int NONE = -1;
+
+    /**
+     * Provides the simulation clock and the dead-lock listeners.
+     */
+    private final SimulationState simulationState;
+
+    /**
+     * One increment of the version of a fork word.
+     */
+    private static final long FORK_VERSION = 1L << Integer.SIZE;
+
+    /**
+     * The holder part of a fork word.
+     */
+    private static final long FORK_HOLDER_MASK = FORK_VERSION - 1;
+
+    /**
+     * The holder of every fork: a version, counting the changes of the fork, in the upper half and the seat of the
+     * holder plus one, 0 for NONE, in the lower half. The version lets readers tell a fork that was put back and
+     * taken again by the same philosopher from an unchanged one. Only the philosopher holding or getting the fork
+     * writes its word.
+     */
+    private final AtomicLongArray forkWords;
+
+    /**
+     * The fork every philosopher waits for, or NONE.
+     */
+    private final AtomicIntegerArray awaitedForks;
+
+    /**
+     * The simulation time every philosopher started waiting at in nanoseconds.
+     */
+    private final AtomicLongArray waitingSince;
+
+    /**
+     * The last dead-lock found, null if none was found.
+     */
+    private volatile DeadlockReport deadlock = null;
+
+    /**
+     * Creates a new graph without any edges.
+     *
+     * @param simulationState Provides the simulation clock and the dead-lock listeners.
+     * @param seats The number of philosophers.
+     * @param forks The number of forks.
+     */
+    public WaitForGraph(final SimulationState simulationState, final int seats, final int forks)
+    {
+        this.simulationState = simulationState;
+        this.forkWords = new AtomicLongArray(forks);
+        this.awaitedForks = new AtomicIntegerArray(seats);
+        this.waitingSince = new AtomicLongArray(seats);
+        for (int seat = 0; seat < seats; ++seat)
+        {
+            this.awaitedForks.set(seat, NONE);
+        }
+    }
+
+    /**
+     * A philosopher starts waiting for a fork. Follows the chain of waiting philosophers behind him.
+     *
+     * @param seat The seat of the philosopher.
+     * @param fork The index of the fork.
+     */
+    public void waiting(final int seat, final int fork)
+    {
+        this.waitingSince.set(seat, this.simulationState.nanoTime());
+        this.awaitedForks.set(seat, fork);
+        this.simulationState.traceWait(this, seat, fork);
+        final int length = this.cycleLength(seat);
+        if (length > 0)
+        {
+            this.report(seat, length);
+        }
+    }
+
+    /**
+     * A philosopher stopped waiting without getting the fork.
+     *
+     * @param seat The seat of the philosopher.
+     */
+    public void cancelled(final int seat)
+    {
+        this.awaitedForks.set(seat, NONE);
+        this.simulationState.traceWait(this, seat, NONE);
+    }
+
+    /**
+     * A philosopher got a fork. He does not wait any more before he is the holder, so he never appears to wait for
+     * himself.
+     *
+     * @param seat The seat of the philosopher.
+     * @param fork The index of the fork.
+     */
+    public void acquired(final int seat, final int fork)
+    {
+        this.awaitedForks.set(seat, NONE);
+        this.setForkHolder(fork, seat);
+        this.simulationState.traceFork(this, fork, seat);
+    }
+
+    /**
+     * A fork is about to be put back.
+     *
+     * @param fork The index of the fork.
+     */
+    public void released(final int fork)
+    {
+        this.simulationState.traceFork(this, fork, NONE);
+        this.setForkHolder(fork, NONE);
+    }
+
+    /**
+     * Gets the last dead-lock found.
+     *
+     * @return The dead-lock, null if none was found.
+     */
+    public DeadlockReport getDeadlock()
+    {
+        return this.deadlock;
+    }
+
+    /**
+     * Gets the fork a philosopher waits for.
+     *
+     * @param seat The seat of the philosopher.
+     * @return The index of the fork, -1 if the philosopher does not wait.
+     */
+    public int getAwaitedFork(final int seat)
+    {
+        return this.awaitedForks.get(seat);
+    }
+
+    /**
+     * Gets the holder of a fork.
+     *
+     * @param fork The index of the fork.
+     * @return The seat of the holder, -1 if nobody holds the fork.
+     */
+    public int getForkHolder(final int fork)
+    {
+        return holderOf(this.forkWords.get(fork));
+    }
+
+    /**
+     * Gets the number of philosophers of the graph.
+     *
+     * @return The number of seats.
+     */
+    public int getSeatCount()
+    {
+        return this.awaitedForks.length();
+    }
+
+    /**
+     * Gets the number of forks of the graph.
+     *
+     * @return The number of forks.
+     */
+    public int getForkCount()
+    {
+        return this.forkWords.length();
+    }
+
+    /**
+     * Gets the versioned word of a fork, for consistent snapshots.
+     *
+     * @param fork The index of the fork.
+     * @return The word of the fork.
+     */
+    long getForkWord(final int fork)
+    {
+        return this.forkWords.get(fork);
+    }
+
+    /**
+     * Gets the holder of a fork word.
+     *
+     * @param forkWord The word of the fork.
+     * @return The seat of the holder, -1 if nobody holds the fork.
+     */
+    static int holderOf(final long forkWord)
+    {
+        return (int) (forkWord & FORK_HOLDER_MASK) - 1;
+    }
+
+    /**
+     * Changes the holder of a fork and counts the change.
+     *
+     * @param fork The index of the fork.
+     * @param seat The seat of the new holder, or NONE.
+     */
+    private void setForkHolder(final int fork, final int seat)
+    {
+        final long forkWord = this.forkWords.get(fork);
+        this.forkWords.set(fork, (forkWord & ~FORK_HOLDER_MASK) + FORK_VERSION | (seat + 1));
+    }
+
+    /**
+     * Finds all philosophers waiting for a fork for at least the given time: philosophers on a cycle as well as
+     * philosophers stalled behind a cycle or a slow neighbour.
+     *
+     * @param minimumStuckTime The minimum wait time in nanoseconds.
+     * @return The stalled philosophers and their wait times.
+     */
+    public DeadlockReport findStalled(final long minimumStuckTime)
+    {
+        final long now = this.simulationState.nanoTime();
+        final int seats = this.awaitedForks.length();
+        int[] stalledSeats = new int[16];
+        long[] stuckTimes = new long[16];
+        int stalled = 0;
+        for (int seat = 0; seat < seats; ++seat)
+        {
+            final long stuckTime = now - this.waitingSince.get(seat);
+            if (this.awaitedForks.get(seat) != NONE && stuckTime >= minimumStuckTime)
+            {
+                if (stalled == stalledSeats.length)
+                {
+                    stalledSeats = Arrays.copyOf(stalledSeats, 2 * stalled);
+                    stuckTimes = Arrays.copyOf(stuckTimes, 2 * stalled);
+                }
+                stalledSeats[stalled] = seat;
+                stuckTimes[stalled++] = stuckTime;
+            }
+        }
+        return new DeadlockReport(Arrays.copyOf(stalledSeats, stalled), Arrays.copyOf(stuckTimes, stalled), now);
+    }
+
+    /**
+     * Follows the chain of holders behind a waiting philosopher.
+     *
+     * @param seat The seat of the waiting philosopher.
+     * @return The number of philosophers on the cycle through him, 0 if the chain ends.
+     */
+    private int cycleLength(final int seat)
+    {
+        final int seats = this.awaitedForks.length();
+        int current = seat;
+        for (int length = 1; length <= seats; ++length)
+        {
+            final int fork = this.awaitedForks.get(current);
+            if (fork == NONE)
+            {
+                return 0;
+            }
+            final int holder = this.getForkHolder(fork);
+            if (holder == NONE)
+            {
+                return 0;
+            }
+            if (holder == seat)
+            {
+                return length;
+            }
+            current = holder;
+        }
+
+        /* The chain runs into a cycle without this philosopher, which was reported when it closed. */
+        return 0;
+    }
+
+    /**
+     * Collects the philosophers on a cycle and informs the dead-lock listeners. The cycle is only reported if a
+     * second pass finds the same edges, so a chain read while it changed is not taken for a dead-lock.
+     *
+     * @param seat The seat of the philosopher who closed the cycle.
+     * @param length The number of philosophers on the cycle.
+     */
+    private void report(final int seat, final int length)
+    {
+        final int[] seats = new int[length];
+        final int[] forks = new int[length];
+        int current = seat;
+        for (int position = 0; position < length; ++position)
+        {
+            seats[position] = current;
+            forks[position] = this.awaitedForks.get(current);
+            if (forks[position] == NONE)
+            {
+                return;
+            }
+            current = this.getForkHolder(forks[position]);
+            if (current == NONE)
+            {
+                return;
+            }
+        }
+        if (current != seat)
+        {
+            return;
+        }
+        for (int position = 0; position < length; ++position)
+        {
+            if (this.awaitedForks.get(seats[position]) != forks[position] || this.getForkHolder(forks[position]) != seats[(position + 1) % length])
+            {
+                return;
+            }
+        }
+        final long now = this.simulationState.nanoTime();
+        final long[] stuckTimes = new long[length];
+        for (int position = 0; position < length; ++position)
+        {
+            stuckTimes[position] = now - this.waitingSince.get(seats[position]);
+        }
+        final DeadlockReport deadlockReport = new DeadlockReport(seats, stuckTimes, now);
+        this.deadlock = deadlockReport;
+        this.simulationState.fireDeadlocked(deadlockReport);
+    }
+
+}
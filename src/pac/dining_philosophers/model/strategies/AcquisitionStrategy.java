@@ -0,0 +1,277 @@
+package pac.dining_philosophers.model.strategies;
+
+import pac.dining_philosophers.model.entities.Fork;
+import pac.dining_philosophers.model.entities.Philosopher;
+import pac.dining_philosophers.model.events.ForkAcquisitionEvent;
+import pac.dining_philosophers.model.states.PhilosopherState;
+import pac.dining_philosophers.model.states.SimulationState;
+import pac.dining_philosophers.model.states.WaitForGraph;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The way a hungry philosopher gets his forks. Counts the meals and the time the philosophers waited for their forks.
+ *
+ * @author Claudia Panoch
+ */
+public abstract class AcquisitionStrategy
+{
+
+    /**
+     * The simulation state of the application.
+     */
+    protected final SimulationState simulationState;
+
+    /**
+     * The wait-for graph of the table the strategy was prepared for.
+     */
+    private WaitForGraph waitForGraph = null;
+
+    /**
+     * The number of finished meals.
+     */
+    private final LongAdder meals = new LongAdder();
+
+    /**
+     * The total time hungry philosophers waited for their forks in nanoseconds.
+     */
+    private final LongAdder waitTime = new LongAdder();
+
+    /**
+     * Creates a new strategy.
+     *
+     * @param simulationState The simulation state of the application.
+     */
+    protected AcquisitionStrategy(final SimulationState simulationState)
+    {
+        this.simulationState = simulationState;
+    }
+
+    /**
+     * Prepares the strategy for the philosophers of a new or resized table, before they are brought to life or while
+     * all of them are parked at their safe point. Overriding strategies must call this method.
+     *
+     * @param philosophers The philosophers of the table, indexed by their seat.
+     * @param forks The forks of the table, indexed by their position.
+     */
+    public void prepare(final Philosopher[] philosophers, final Fork[] forks)
+    {
+        this.waitForGraph = this.simulationState.getWaitForGraph();
+    }
+
+    /**
+     * Gets all forks of a hungry philosopher. The operation will wait until the philosopher holds all his forks.
+     *
+     * @param philosopher The hungry philosopher.
+     * @throws InterruptedException Thrown if the operation was interrupted.
+     * @throws IOException Thrown if a fork kept by a fork manager could not be reached.
+     */
+    public final void acquire(final Philosopher philosopher) throws InterruptedException, IOException
+    {
+        final long hungrySince = this.simulationState.nanoTime();
+        this.acquireForks(philosopher);
+        this.recordWait(this.simulationState.nanoTime() - hungrySince);
+    }
+
+    /**
+     * Puts back all forks of a philosopher who finished eating.
+     *
+     * @param philosopher The philosopher.
+     */
+    public final void release(final Philosopher philosopher)
+    {
+        this.releaseForks(philosopher);
+        this.recordMeal();
+    }
+
+    /**
+     * Counts the time a hungry philosopher waited for his forks. Used by engines that get the forks themselves.
+     *
+     * @param waitTime The wait time in nanoseconds.
+     */
+    public final void recordWait(final long waitTime)
+    {
+        this.waitTime.add(waitTime);
+    }
+
+    /**
+     * Counts a finished meal. Used by engines that put back the forks themselves.
+     */
+    public final void recordMeal()
+    {
+        this.meals.increment();
+    }
+
+    /**
+     * Gets the order a philosopher takes his forks in, one after the other, for engines that take the forks
+     * themselves. By default the strategy does more than that and can only run on threads.
+     *
+     * @param philosopher The philosopher.
+     * @return The forks in the order they are taken, null if the strategy does not take them in a fixed order.
+     */
+    public Fork[] getForkOrder(final Philosopher philosopher)
+    {
+        return null;
+    }
+
+    /**
+     * Gets all forks of a hungry philosopher.
+     *
+     * @param philosopher The hungry philosopher.
+     * @throws InterruptedException Thrown if the operation was interrupted.
+     * @throws IOException Thrown if a fork kept by a fork manager could not be reached.
+     */
+    protected abstract void acquireForks(Philosopher philosopher) throws InterruptedException, IOException;
+
+    /**
+     * Puts back all forks of a philosopher. By default the forks are put back in the order of the seat, right fork
+     * first.
+     *
+     * @param philosopher The philosopher.
+     */
+    protected void releaseForks(final Philosopher philosopher)
+    {
+        final Fork[] forks = philosopher.getForks();
+        for (int position = 0; position < forks.length; ++position)
+        {
+            if (!isRepeated(forks, position))
+            {
+                this.putBack(forks[position]);
+            }
+        }
+    }
+
+    /**
+     * Checks if a fork appeared before in a list of forks, like the two sides of a philosopher alone at a ring.
+     *
+     * @param forks The forks.
+     * @param position The position of the fork.
+     * @return True if the fork is in the list at an earlier position.
+     */
+    protected static boolean isRepeated(final Fork[] forks, final int position)
+    {
+        for (int earlier = 0; earlier < position; ++earlier)
+        {
+            if (forks[earlier] == forks[position])
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets a fork, waits until it is free. A philosopher who has to wait is entered into the wait-for graph. If the
+     * flight recorder event is enabled, the acquisition is recorded, also if the fork was free.
+     *
+     * @param philosopher The hungry philosopher.
+     * @param fork The fork.
+     * @throws InterruptedException Thrown if the operation was interrupted.
+     * @throws IOException Thrown if a fork kept by a fork manager could not be reached.
+     */
+    protected final void take(final Philosopher philosopher, final Fork fork) throws InterruptedException, IOException
+    {
+        final ForkAcquisitionEvent event = new ForkAcquisitionEvent();
+        event.begin();
+        final boolean blocked = fork.get(this.waitForGraph, philosopher.getSeat());
+        this.waitForGraph.acquired(philosopher.getSeat(), fork.getIndex());
+        commit(event, fork, blocked);
+    }
+
+    /**
+     * Gets a fork if it is free. If the flight recorder event is enabled, getting the fork is recorded.
+     *
+     * @param philosopher The hungry philosopher.
+     * @param fork The fork.
+     * @return True if the philosopher got the fork.
+     */
+    protected final boolean tryTake(final Philosopher philosopher, final Fork fork)
+    {
+        final ForkAcquisitionEvent event = new ForkAcquisitionEvent();
+        event.begin();
+        if (fork.tryGet())
+        {
+            this.waitForGraph.acquired(philosopher.getSeat(), fork.getIndex());
+            commit(event, fork, false);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records a fork acquisition, if the flight recorder event is enabled.
+     *
+     * @param event The event, begun before the fork was asked for.
+     * @param fork The fork taken.
+     * @param blocked True if the fork was in use and the philosopher had to wait.
+     */
+    private static void commit(final ForkAcquisitionEvent event, final Fork fork, final boolean blocked)
+    {
+        if (event.isEnabled())
+        {
+            event.setFork(fork.getIndex());
+            event.setBlocked(blocked);
+            event.commit();
+        }
+    }
+
+    /**
+     * Puts back a fork.
+     *
+     * @param fork The fork.
+     */
+    protected final void putBack(final Fork fork)
+    {
+        this.waitForGraph.released(fork.getIndex());
+        fork.put();
+    }
+
+    /**
+     * Gets the first fork, marks the philosopher as holding it and waits for the gap before the next fork.
+     *
+     * @param philosopher The hungry philosopher.
+     * @param fork The first fork.
+     * @throws InterruptedException Thrown if the operation was interrupted.
+     * @throws IOException Thrown if a fork kept by a fork manager could not be reached.
+     */
+    protected final void takeFirst(final Philosopher philosopher, final Fork fork) throws InterruptedException, IOException
+    {
+        this.take(philosopher, fork);
+        this.tookFirst(philosopher, fork);
+    }
+
+    /**
+     * Marks the philosopher as holding his first fork and waits for the gap before the next fork.
+     *
+     * @param philosopher The hungry philosopher.
+     * @param fork The first fork.
+     * @throws InterruptedException Thrown if the operation was interrupted.
+     */
+    protected final void tookFirst(final Philosopher philosopher, final Fork fork) throws InterruptedException
+    {
+        philosopher.setPhilosopherState(fork == philosopher.getRightFork() ? PhilosopherState.GOT_RIGHT_FORK : PhilosopherState.GOT_LEFT_FORK);
+        Thread.sleep(this.simulationState.folkGapTime());
+    }
+
+    /**
+     * Gets the number of finished meals.
+     *
+     * @return The number of meals.
+     */
+    public long getMeals()
+    {
+        return this.meals.sum();
+    }
+
+    /**
+     * Gets the total time hungry philosophers waited for their forks.
+     *
+     * @return The wait time in nanoseconds.
+     */
+    public long getWaitTime()
+    {
+        return this.waitTime.sum();
+    }
+
+}
@@ -0,0 +1,230 @@
+package pac.dining_philosophers.model.strategies;
+
+import pac.dining_philosophers.model.entities.Fork;
+import pac.dining_philosophers.model.entities.Philosopher;
+import pac.dining_philosophers.model.states.SimulationState;
+
+import java.io.IOException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A waiter hands out the forks. A hungry philosopher asks the waiter, who gives him all his forks at once as soon as
+ * all are available. Nobody ever holds a single fork while waiting, so no dead-lock can occur. Returned forks only
+ * wake the philosophers sharing them. Forks kept by a fork manager may be taken by other processes the waiter does not
+ * see, so the waiter only tries to take them and never blocks on another process.
+ *
+ * @author Claudia Panoch
+ */
+public class ArbitratorStrategy extends AcquisitionStrategy
+{
+
+    /**
+     * The waiter. Only the waiter takes and puts back forks.
+     */
+    private final Lock waiter = new ReentrantLock();
+
+    /**
+     * Signalled when the waiter got back a fork of the philosopher, indexed by the seat.
+     */
+    private Condition[] forksReturned = new Condition[0];
+
+    /**
+     * The seats sharing every fork, indexed by the fork.
+     */
+    private int[][] forkUsers = new int[0][];
+
+    /**
+     * Creates a new strategy.
+     *
+     * @param simulationState The simulation state of the application.
+     */
+    public ArbitratorStrategy(final SimulationState simulationState)
+    {
+        super(simulationState);
+    }
+
+    /**
+     * Prepares a condition for every seat and the seats sharing every fork.
+     *
+     * @param philosophers The philosophers of the table, indexed by their seat.
+     * @param forks The forks of the table, indexed by their position.
+     */
+    @Override
+    public void prepare(final Philosopher[] philosophers, final Fork[] forks)
+    {
+        super.prepare(philosophers, forks);
+        final Condition[] forksReturned = new Condition[philosophers.length];
+        final int[] userCounts = new int[forks.length];
+        for (final Philosopher philosopher : philosophers)
+        {
+            forksReturned[philosopher.getSeat()] = this.waiter.newCondition();
+            for (final Fork fork : philosopher.getForks())
+            {
+                ++userCounts[fork.getIndex()];
+            }
+        }
+        final int[][] forkUsers = new int[forks.length][];
+        for (int fork = 0; fork < forks.length; ++fork)
+        {
+            forkUsers[fork] = new int[userCounts[fork]];
+            userCounts[fork] = 0;
+        }
+        for (final Philosopher philosopher : philosophers)
+        {
+            for (final Fork fork : philosopher.getForks())
+            {
+                forkUsers[fork.getIndex()][userCounts[fork.getIndex()]++] = philosopher.getSeat();
+            }
+        }
+
+        /* Published under the waiter, which every philosopher asks before reading them. */
+        this.waiter.lock();
+        try
+        {
+            this.forksReturned = forksReturned;
+            this.forkUsers = forkUsers;
+        }
+        finally
+        {
+            this.waiter.unlock();
+        }
+    }
+
+    /**
+     * Waits until the waiter can hand out all forks of the philosopher. The waiter only tries to take the forks, so he
+     * never waits for a fork himself. A fork kept by a philosopher of another process is awaited without the waiter
+     * and without holding any other fork, then given back and the waiter is asked again.
+     *
+     * @param philosopher The hungry philosopher.
+     * @throws InterruptedException Thrown if the operation was interrupted.
+     * @throws IOException Thrown if a fork kept by a fork manager could not be reached.
+     */
+    @Override
+    protected void acquireForks(final Philosopher philosopher) throws InterruptedException, IOException
+    {
+        final Fork[] forks = philosopher.getForks();
+        for (;;)
+        {
+            final Fork keptElsewhere;
+            this.waiter.lockInterruptibly();
+            try
+            {
+                while (isAnyTaken(forks))
+                {
+                    this.forksReturned[philosopher.getSeat()].await();
+                }
+                keptElsewhere = this.tryTakeAll(philosopher, forks);
+            }
+            finally
+            {
+                this.waiter.unlock();
+            }
+            if (keptElsewhere == null)
+            {
+                break;
+            }
+            this.take(philosopher, keptElsewhere);
+            this.waiter.lock();
+            try
+            {
+                this.putBack(keptElsewhere);
+                this.signalUsers(philosopher, keptElsewhere);
+            }
+            finally
+            {
+                this.waiter.unlock();
+            }
+        }
+
+        /* The gap is spent outside the waiter, so the other philosophers are served meanwhile. */
+        this.tookFirst(philosopher, forks[0]);
+    }
+
+    /**
+     * Tries to take all forks of the philosopher. If a fork is not free, the forks taken are put back. Only to be
+     * called by the waiter.
+     *
+     * @param philosopher The hungry philosopher.
+     * @param forks The forks of the philosopher.
+     * @return The fork that was not free, null if all forks were taken.
+     */
+    private Fork tryTakeAll(final Philosopher philosopher, final Fork[] forks)
+    {
+        for (int position = 0; position < forks.length; ++position)
+        {
+            if (!isRepeated(forks, position) && !this.tryTake(philosopher, forks[position]))
+            {
+                for (int taken = 0; taken < position; ++taken)
+                {
+                    if (!isRepeated(forks, taken))
+                    {
+                        this.putBack(forks[taken]);
+                    }
+                }
+                return forks[position];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks if any of the forks is in use.
+     *
+     * @param forks The forks.
+     * @return True if a fork is taken.
+     */
+    private static boolean isAnyTaken(final Fork[] forks)
+    {
+        for (final Fork fork : forks)
+        {
+            if (fork.isTaken())
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gives all forks back to the waiter, who wakes the other philosophers sharing them.
+     *
+     * @param philosopher The philosopher.
+     */
+    @Override
+    protected void releaseForks(final Philosopher philosopher)
+    {
+        this.waiter.lock();
+        try
+        {
+            super.releaseForks(philosopher);
+            for (final Fork fork : philosopher.getForks())
+            {
+                this.signalUsers(philosopher, fork);
+            }
+        }
+        finally
+        {
+            this.waiter.unlock();
+        }
+    }
+
+    /**
+     * Wakes the other philosophers sharing a returned fork. Only to be called by the waiter.
+     *
+     * @param philosopher The philosopher who returned the fork.
+     * @param fork The fork.
+     */
+    private void signalUsers(final Philosopher philosopher, final Fork fork)
+    {
+        for (final int seat : this.forkUsers[fork.getIndex()])
+        {
+            if (seat != philosopher.getSeat())
+            {
+                this.forksReturned[seat].signal();
+            }
+        }
+    }
+
+}
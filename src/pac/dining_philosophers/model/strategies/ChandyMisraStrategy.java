@@ -0,0 +1,245 @@
+package pac.dining_philosophers.model.strategies;
+
+import pac.dining_philosophers.model.entities.Fork;
+import pac.dining_philosophers.model.entities.Philosopher;
+import pac.dining_philosophers.model.states.SimulationState;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The Chandy-Misra solution. Every fork belongs to one of the philosophers sharing it and is either clean or dirty.
+ * A fork gets dirty when its owner ate with it. A hungry philosopher takes a dirty fork from its owner unless the
+ * owner is eating, and cleans it; a clean fork is kept until its owner ate. Initially every fork is dirty and belongs
+ * to the philosopher with the lower seat, so the precedence between the philosophers has no cycle and the table can
+ * not dead-lock.
+ *
+ * @author Claudia Panoch
+ */
+public class ChandyMisraStrategy extends AcquisitionStrategy
+{
+
+    /**
+     * Guards the ownership of every fork, indexed by the fork.
+     */
+    private ReentrantLock[] locks = null;
+
+    /**
+     * Signalled when a fork gets dirty, indexed by the fork.
+     */
+    private Condition[] dirtied = null;
+
+    /**
+     * The owner of every fork, indexed by the fork.
+     */
+    private Philosopher[] owners = null;
+
+    /**
+     * True if the fork is dirty, indexed by the fork.
+     */
+    private boolean[] dirty = null;
+
+    /**
+     * True if the owner of the fork is eating with it, indexed by the fork.
+     */
+    private boolean[] inUse = null;
+
+    /**
+     * Creates a new strategy.
+     *
+     * @param simulationState The simulation state of the application.
+     */
+    public ChandyMisraStrategy(final SimulationState simulationState)
+    {
+        super(simulationState);
+    }
+
+    /**
+     * Hands every dirty fork to the philosopher with the lowest seat sharing it.
+     *
+     * @param philosophers The philosophers of the table, indexed by their seat.
+     * @param forks The forks of the table, indexed by their position.
+     */
+    @Override
+    public void prepare(final Philosopher[] philosophers, final Fork[] forks)
+    {
+        super.prepare(philosophers, forks);
+        final int count = forks.length;
+        this.locks = new ReentrantLock[count];
+        this.dirtied = new Condition[count];
+        this.owners = new Philosopher[count];
+        this.dirty = new boolean[count];
+        this.inUse = new boolean[count];
+        for (int currentFork = 0; currentFork < count; ++currentFork)
+        {
+            this.locks[currentFork] = new ReentrantLock();
+            this.dirtied[currentFork] = this.locks[currentFork].newCondition();
+            this.dirty[currentFork] = true;
+        }
+        for (final Philosopher philosopher : philosophers)
+        {
+            for (final Fork fork : philosopher.getForks())
+            {
+                if (this.owners[fork.getIndex()] == null)
+                {
+                    this.owners[fork.getIndex()] = philosopher;
+                }
+            }
+        }
+    }
+
+    /**
+     * Requests all forks until the philosopher owns all of them at the same time, then picks them up.
+     *
+     * @param philosopher The hungry philosopher.
+     * @throws InterruptedException Thrown if the operation was interrupted.
+     * @throws IOException Thrown if a fork kept by a fork manager could not be reached.
+     */
+    @Override
+    protected void acquireForks(final Philosopher philosopher) throws InterruptedException, IOException
+    {
+        final Fork[] forks = philosopher.getForks();
+        do
+        {
+            for (final Fork fork : forks)
+            {
+                this.request(philosopher, fork.getIndex());
+            }
+        }
+        while (!this.startEating(philosopher, forks));
+
+        /* Only the owner touches the forks now, so they are free. */
+        this.takeFirst(philosopher, forks[0]);
+        for (int position = 1; position < forks.length; ++position)
+        {
+            if (!isRepeated(forks, position))
+            {
+                this.take(philosopher, forks[position]);
+            }
+        }
+    }
+
+    /**
+     * Puts back all forks and leaves them dirty.
+     *
+     * @param philosopher The philosopher.
+     */
+    @Override
+    protected void releaseForks(final Philosopher philosopher)
+    {
+        super.releaseForks(philosopher);
+        final Fork[] forks = philosopher.getForks();
+        for (int position = 0; position < forks.length; ++position)
+        {
+            if (!isRepeated(forks, position))
+            {
+                this.stopEating(forks[position].getIndex());
+            }
+        }
+    }
+
+    /**
+     * Waits until the philosopher owns the fork. A dirty fork not in use is taken from its owner and cleaned.
+     *
+     * @param philosopher The hungry philosopher.
+     * @param fork The index of the fork.
+     * @throws InterruptedException Thrown if the operation was interrupted.
+     */
+    private void request(final Philosopher philosopher, final int fork) throws InterruptedException
+    {
+        this.locks[fork].lockInterruptibly();
+        try
+        {
+            while (this.owners[fork] != philosopher)
+            {
+                if (this.dirty[fork] && !this.inUse[fork])
+                {
+                    this.owners[fork] = philosopher;
+                    this.dirty[fork] = false;
+                }
+                else
+                {
+                    this.dirtied[fork].await();
+                }
+            }
+        }
+        finally
+        {
+            this.locks[fork].unlock();
+        }
+    }
+
+    /**
+     * Marks all forks as used, if the philosopher still owns all of them. A dirty fork of the philosopher may have
+     * been taken by a neighbour meanwhile. The forks are locked in the order of their index.
+     *
+     * @param philosopher The hungry philosopher.
+     * @param forks The forks of the philosopher.
+     * @return True if the philosopher can eat.
+     */
+    private boolean startEating(final Philosopher philosopher, final Fork[] forks)
+    {
+        final int[] indexes = new int[forks.length];
+        for (int position = 0; position < forks.length; ++position)
+        {
+            indexes[position] = forks[position].getIndex();
+        }
+        Arrays.sort(indexes);
+        int locked = 0;
+        try
+        {
+            for (; locked < indexes.length; ++locked)
+            {
+                if (locked == 0 || indexes[locked] != indexes[locked - 1])
+                {
+                    this.locks[indexes[locked]].lock();
+                }
+            }
+            for (final int fork : indexes)
+            {
+                if (this.owners[fork] != philosopher)
+                {
+                    return false;
+                }
+            }
+            for (final int fork : indexes)
+            {
+                this.inUse[fork] = true;
+            }
+            return true;
+        }
+        finally
+        {
+            while (--locked >= 0)
+            {
+                if (locked == 0 || indexes[locked] != indexes[locked - 1])
+                {
+                    this.locks[indexes[locked]].unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Leaves a fork dirty after a meal and wakes up the neighbours waiting for it.
+     *
+     * @param fork The index of the fork.
+     */
+    private void stopEating(final int fork)
+    {
+        this.locks[fork].lock();
+        try
+        {
+            this.inUse[fork] = false;
+            this.dirty[fork] = true;
+            this.dirtied[fork].signalAll();
+        }
+        finally
+        {
+            this.locks[fork].unlock();
+        }
+    }
+
+}
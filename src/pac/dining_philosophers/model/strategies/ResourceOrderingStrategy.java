@@ -0,0 +1,82 @@
+package pac.dining_philosophers.model.strategies;
+
+import pac.dining_philosophers.model.entities.Fork;
+import pac.dining_philosophers.model.entities.Philosopher;
+import pac.dining_philosophers.model.states.SimulationState;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Every philosopher gets the fork with the lower index first. The forks are ordered, so no cycle of waiting
+ * philosophers and no dead-lock can occur.
+ *
+ * @author Claudia Panoch
+ */
+public class ResourceOrderingStrategy extends AcquisitionStrategy
+{
+
+    /**
+     * Orders forks by their index.
+     */
+    private static final Comparator<Fork> BY_INDEX = new Comparator<Fork>()
+    {
+        @Override
+        public int compare(final Fork fork, final Fork otherFork)
+        {
+            return Integer.compare(fork.getIndex(), otherFork.getIndex());
+        }
+    };
+
+    /**
+     * Creates a new strategy.
+     *
+     * @param simulationState The simulation state of the application.
+     */
+    public ResourceOrderingStrategy(final SimulationState simulationState)
+    {
+        super(simulationState);
+    }
+
+    /**
+     * The forks are taken in the order of their index, a fork on both sides only once.
+     *
+     * @param philosopher The philosopher.
+     * @return The distinct forks of the philosopher, lowest index first.
+     */
+    @Override
+    public Fork[] getForkOrder(final Philosopher philosopher)
+    {
+        final Fork[] forks = philosopher.getForks().clone();
+        Arrays.sort(forks, BY_INDEX);
+        int count = 0;
+        for (int position = 0; position < forks.length; ++position)
+        {
+            if (count == 0 || forks[position] != forks[count - 1])
+            {
+                forks[count++] = forks[position];
+            }
+        }
+        return count == forks.length ? forks : Arrays.copyOf(forks, count);
+    }
+
+    /**
+     * Gets the fork with the lowest index, then the other ones in the order of their index.
+     *
+     * @param philosopher The hungry philosopher.
+     * @throws InterruptedException Thrown if the operation was interrupted.
+     * @throws IOException Thrown if a fork kept by a fork manager could not be reached.
+     */
+    @Override
+    protected void acquireForks(final Philosopher philosopher) throws InterruptedException, IOException
+    {
+        final Fork[] forks = this.getForkOrder(philosopher);
+        this.takeFirst(philosopher, forks[0]);
+        for (int position = 1; position < forks.length; ++position)
+        {
+            this.take(philosopher, forks[position]);
+        }
+    }
+
+}
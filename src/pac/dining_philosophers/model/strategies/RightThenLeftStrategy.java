@@ -0,0 +1,60 @@
+package pac.dining_philosophers.model.strategies;
+
+import pac.dining_philosophers.model.entities.Fork;
+import pac.dining_philosophers.model.entities.Philosopher;
+import pac.dining_philosophers.model.states.SimulationState;
+
+import java.io.IOException;
+
+/**
+ * The classic strategy: every philosopher gets his right fork first and the left fork afterwards, with more forks
+ * per seat the forks in between come in the order of the seat. If every philosopher holds his right fork, the table
+ * is dead-locked.
+ *
+ * @author Claudia Panoch
+ */
+public class RightThenLeftStrategy extends AcquisitionStrategy
+{
+
+    /**
+     * Creates a new strategy.
+     *
+     * @param simulationState The simulation state of the application.
+     */
+    public RightThenLeftStrategy(final SimulationState simulationState)
+    {
+        super(simulationState);
+    }
+
+    /**
+     * The forks are taken in the order of the seat.
+     *
+     * @param philosopher The philosopher.
+     * @return The forks of the philosopher, right fork first.
+     */
+    @Override
+    public Fork[] getForkOrder(final Philosopher philosopher)
+    {
+        return philosopher.getForks();
+    }
+
+    /**
+     * Gets the right fork, then the other forks in the order of the seat up to the left fork. A single philosopher
+     * uses the same fork twice and never eats.
+     *
+     * @param philosopher The hungry philosopher.
+     * @throws InterruptedException Thrown if the operation was interrupted.
+     * @throws IOException Thrown if a fork kept by a fork manager could not be reached.
+     */
+    @Override
+    protected void acquireForks(final Philosopher philosopher) throws InterruptedException, IOException
+    {
+        final Fork[] forks = philosopher.getForks();
+        this.takeFirst(philosopher, forks[0]);
+        for (int position = 1; position < forks.length; ++position)
+        {
+            this.take(philosopher, forks[position]);
+        }
+    }
+
+}
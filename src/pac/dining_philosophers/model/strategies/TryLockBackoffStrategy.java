@@ -0,0 +1,79 @@
+package pac.dining_philosophers.model.strategies;
+
+import pac.dining_philosophers.model.entities.Fork;
+import pac.dining_philosophers.model.entities.Philosopher;
+import pac.dining_philosophers.model.states.PhilosopherState;
+import pac.dining_philosophers.model.states.SimulationState;
+
+import java.io.IOException;
+
+/**
+ * Every philosopher gets his right fork and only tries to get the other ones. If one of them is in use, he puts
+ * back the forks taken and tries again after a random, growing pause. Nobody waits while holding a fork, so the
+ * table can not dead-lock.
+ *
+ * @author Claudia Panoch
+ */
+public class TryLockBackoffStrategy extends AcquisitionStrategy
+{
+
+    /**
+     * The pause after the first failed attempt in milliseconds.
+     */
+    private static final long MINIMUM_BACKOFF = 10;
+
+    /**
+     * The longest pause between two attempts in milliseconds.
+     */
+    private static final long MAXIMUM_BACKOFF = 1000;
+
+    /**
+     * Creates a new strategy.
+     *
+     * @param simulationState The simulation state of the application.
+     */
+    public TryLockBackoffStrategy(final SimulationState simulationState)
+    {
+        super(simulationState);
+    }
+
+    /**
+     * Gets the right fork and tries to get the other forks until all are taken.
+     *
+     * @param philosopher The hungry philosopher.
+     * @throws InterruptedException Thrown if the operation was interrupted.
+     * @throws IOException Thrown if a fork kept by a fork manager could not be reached.
+     */
+    @Override
+    protected void acquireForks(final Philosopher philosopher) throws InterruptedException, IOException
+    {
+        final Fork[] forks = philosopher.getForks();
+        long backoff = MINIMUM_BACKOFF;
+        for (;;)
+        {
+            this.takeFirst(philosopher, forks[0]);
+            int taken = 1;
+            while (taken < forks.length && (isRepeated(forks, taken) || this.tryTake(philosopher, forks[taken])))
+            {
+                ++taken;
+            }
+            if (taken == forks.length)
+            {
+                return;
+            }
+
+            /* Back off with a random pause, so neighbours do not retry in lockstep. */
+            while (--taken >= 0)
+            {
+                if (!isRepeated(forks, taken))
+                {
+                    this.putBack(forks[taken]);
+                }
+            }
+            philosopher.setPhilosopherState(PhilosopherState.HUNGRY);
+            Thread.sleep(philosopher.getRandom().nextLong(backoff) + 1);
+            backoff = Math.min(2 * backoff, MAXIMUM_BACKOFF);
+        }
+    }
+
+}
@@ -0,0 +1,22 @@
+package pac.dining_philosophers.model.utils;
+
+import pac.dining_philosophers.model.states.PhilosopherState;
+
+/**
+ * Receives the events read from an event buffer.
+ *
+ * @author Claudia Panoch
+ */
+public interface EventConsumer
+{
+
+    /**
+     * Receives a single state transition.
+     *
+     * @param seat The seat of the philosopher.
+     * @param philosopherState The new state of the philosopher.
+     * @param time The simulation time of the transition in nanoseconds.
+     */
+    void accept(int seat, PhilosopherState philosopherState, long time);
+
+}
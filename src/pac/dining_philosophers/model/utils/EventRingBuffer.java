@@ -0,0 +1,224 @@
+package pac.dining_philosophers.model.utils;
+
+import pac.dining_philosophers.model.states.PhilosopherState;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded buffer of state transitions for many producers and one consumer.
+ * The events are stored as primitive records (seat, state, time) in preallocated arrays, so publishing allocates
+ * nothing and the memory is bounded by the capacity. Producers never wait: if the buffer is full the overflow policy
+ * decides which events are lost, and the lost events are counted.
+ *
+ * @author Claudia Panoch
+ */
+public class EventRingBuffer
+{
+
+    /**
+     * Marks a slot whose record is being written.
+     */
+    private static final long WRITING = -1;
+
+    /**
+     * The number of bits of the packed record holding the state.
+     */
+    private static final int STATE_BITS = 4;
+
+    /**
+     * All states, indexed by their ordinal.
+     */
+    private static final PhilosopherState[] STATES = PhilosopherState.values();
+
+    /**
+     * The behaviour of a full buffer.
+     */
+    private final OverflowPolicy overflowPolicy;
+
+    /**
+     * The number of slots minus one, the capacity is a power of two.
+     */
+    private final int mask;
+
+    /**
+     * The sequence number of the record in every slot, or WRITING.
+     */
+    private final AtomicLongArray sequences;
+
+    /**
+     * The packed seat and state of the record in every slot.
+     */
+    private final int[] seatsAndStates;
+
+    /**
+     * The time of the record in every slot.
+     */
+    private final long[] times;
+
+    /**
+     * The sequence number of the next published event.
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * The sequence number of the next event read by the consumer.
+     */
+    private volatile long tail = 0;
+
+    /**
+     * The number of published events.
+     */
+    private final LongAdder publishedEvents = new LongAdder();
+
+    /**
+     * The number of lost events.
+     */
+    private final LongAdder droppedEvents = new LongAdder();
+
+    /**
+     * Creates a new buffer.
+     *
+     * @param capacity The minimum number of events the buffer holds, rounded up to a power of two.
+     * @param overflowPolicy The behaviour of a full buffer.
+     */
+    public EventRingBuffer(final int capacity, final OverflowPolicy overflowPolicy)
+    {
+        if (capacity < 1 || capacity > (1 << 30))
+        {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        final int slots = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.overflowPolicy = overflowPolicy;
+        this.mask = slots - 1;
+        this.sequences = new AtomicLongArray(slots);
+        this.seatsAndStates = new int[slots];
+        this.times = new long[slots];
+        for (int slot = 0; slot < slots; ++slot)
+        {
+            this.sequences.set(slot, WRITING);
+        }
+    }
+
+    /**
+     * Publishes a state transition. The operation never waits and allocates nothing.
+     *
+     * @param seat The seat of the philosopher.
+     * @param philosopherState The new state of the philosopher.
+     * @param time The simulation time of the transition in nanoseconds.
+     * @return True if the event was stored, false if it was dropped.
+     */
+    public boolean publish(final int seat, final PhilosopherState philosopherState, final long time)
+    {
+        final long sequence;
+        if (this.overflowPolicy == OverflowPolicy.DROP_NEWEST)
+        {
+            long next;
+            do
+            {
+                next = this.head.get();
+                if (next - this.tail > this.mask)
+                {
+                    this.droppedEvents.increment();
+                    return false;
+                }
+            }
+            while (!this.head.compareAndSet(next, next + 1));
+            sequence = next;
+        }
+        else
+        {
+            sequence = this.head.getAndIncrement();
+        }
+
+        /* Hide the slot from the consumer while the record is written. The fence orders the payload stores after the
+         * marker, so a consumer that read part of an overwriting record sees the marker on its second look. */
+        final int slot = (int) sequence & this.mask;
+        this.sequences.set(slot, WRITING);
+        VarHandle.storeStoreFence();
+        this.seatsAndStates[slot] = (seat << STATE_BITS) | philosopherState.ordinal();
+        this.times[slot] = time;
+        this.sequences.lazySet(slot, sequence);
+        this.publishedEvents.increment();
+        return true;
+    }
+
+    /**
+     * Reads all events published so far in their order. Only one consumer may read at a time.
+     *
+     * @param consumer Receives the events.
+     * @return The number of events read.
+     */
+    public synchronized int drain(final EventConsumer consumer)
+    {
+        long tail = this.tail;
+        final long head = this.head.get();
+
+        /* The producers overwrote events the consumer did not read yet. */
+        if (head - tail > this.mask + 1)
+        {
+            this.droppedEvents.add(head - tail - this.mask - 1);
+            tail = head - this.mask - 1;
+        }
+        int read = 0;
+        while (tail < head)
+        {
+            final int slot = (int) tail & this.mask;
+            final long sequence = this.sequences.get(slot);
+            if (sequence == WRITING || sequence < tail)
+            {
+
+                /* Not published yet, continue with the next drain. */
+                break;
+            }
+            final int seatAndState = this.seatsAndStates[slot];
+            final long time = this.times[slot];
+            VarHandle.acquireFence();
+            if (sequence == tail && this.sequences.get(slot) == tail)
+            {
+                consumer.accept(seatAndState >>> STATE_BITS, STATES[seatAndState & ((1 << STATE_BITS) - 1)], time);
+                ++read;
+            }
+            else
+            {
+                this.droppedEvents.increment();
+            }
+            ++tail;
+        }
+        this.tail = tail;
+        return read;
+    }
+
+    /**
+     * Gets the number of published events.
+     *
+     * @return The number of events stored in the buffer so far.
+     */
+    public long getPublishedEvents()
+    {
+        return this.publishedEvents.sum();
+    }
+
+    /**
+     * Gets the number of lost events, dropped on publishing or overwritten before they were read.
+     *
+     * @return The number of lost events.
+     */
+    public long getDroppedEvents()
+    {
+        return this.droppedEvents.sum();
+    }
+
+    /**
+     * Gets the number of events the buffer holds.
+     *
+     * @return The capacity.
+     */
+    public int getCapacity()
+    {
+        return this.mask + 1;
+    }
+
+}
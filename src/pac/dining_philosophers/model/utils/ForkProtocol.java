@@ -0,0 +1,79 @@
+package pac.dining_philosophers.model.utils;
+
+/**
+ * The binary protocol between philosopher processes and a fork manager. All numbers are big-endian.
+ * <p>
+ * A request has {@link #REQUEST_SIZE} bytes: the operation (1 byte), the fork (4 bytes) and the request id chosen by
+ * the client (4 bytes). A response has {@link #RESPONSE_SIZE} bytes: the request id (4 bytes) and the result (1 byte).
+ * Only {@link #ACQUIRE} and {@link #TRY_ACQUIRE} are answered, so clients send releases without waiting and may have
+ * any number of requests in flight. An {@link #ACQUIRE} that has to wait is answered twice, first with {@link #QUEUED}.
+ *
+ * @author Claudia Panoch
+ */
+public final class ForkProtocol
+{
+
+    /**
+     * The port a fork manager listens on by default.
+     */
+    public static final int DEFAULT_PORT = 7357;
+
+    /**
+     * The most forks a fork manager keeps in use at once. A request for a further fork is a protocol error.
+     */
+    public static final int MAX_FORKS = 1 << 20;
+
+    /**
+     * The size of a request in bytes.
+     */
+    public static final int REQUEST_SIZE = 9;
+
+    /**
+     * The size of a response in bytes.
+     */
+    public static final int RESPONSE_SIZE = 5;
+
+    /**
+     * Takes a fork, answered with {@link #GRANTED} as soon as the fork is handed to the client. If the fork is in use,
+     * {@link #QUEUED} is answered at once, so the client learns that it waits without asking first. Waiting clients get
+     * a fork in the order of their requests.
+     */
+    public static final byte ACQUIRE = 1;
+
+    /**
+     * Takes a fork if it is free, answered at once with {@link #GRANTED} or {@link #REFUSED}.
+     */
+    public static final byte TRY_ACQUIRE = 2;
+
+    /**
+     * Puts back a fork held by the client. Not answered.
+     */
+    public static final byte RELEASE = 3;
+
+    /**
+     * Withdraws an {@link #ACQUIRE} of the given request id: a waiting request is dropped, a fork already granted to
+     * it is put back. Not answered.
+     */
+    public static final byte CANCEL = 4;
+
+    /**
+     * The fork was handed to the client.
+     */
+    public static final byte GRANTED = 1;
+
+    /**
+     * The fork is in use.
+     */
+    public static final byte REFUSED = 2;
+
+    /**
+     * The fork is in use and the {@link #ACQUIRE} waits for it. The request is answered again when it is granted.
+     */
+    public static final byte QUEUED = 3;
+
+    /**
+     * Private constructor for static utility classes.
+     */
+    private ForkProtocol() { }
+
+}
@@ -0,0 +1,129 @@
+package pac.dining_philosophers.model.utils;
+
+/**
+ * The latencies of one or more histograms, collected at one point in time. Percentiles are answered from the buckets,
+ * so they are as precise as the buckets of the histograms.
+ *
+ * @author Claudia Panoch
+ */
+public class LatencyDistribution
+{
+
+    /**
+     * The number of values per bucket.
+     */
+    private final long[] counts = new long[LatencyHistogram.BUCKETS];
+
+    /**
+     * The number of values.
+     */
+    private long count = 0;
+
+    /**
+     * The sum of the values in nanoseconds.
+     */
+    private long sum = 0;
+
+    /**
+     * The largest value in nanoseconds.
+     */
+    private long maximum = 0;
+
+    /**
+     * Adds the values of a histogram.
+     *
+     * @param histogram The histogram.
+     * @return This distribution.
+     */
+    public LatencyDistribution add(final LatencyHistogram histogram)
+    {
+        histogram.addTo(this);
+        return this;
+    }
+
+    /**
+     * Gets the number of values.
+     *
+     * @return The number of values.
+     */
+    public long getCount()
+    {
+        return this.count;
+    }
+
+    /**
+     * Gets the average value.
+     *
+     * @return The average in nanoseconds, 0 without values.
+     */
+    public double getMean()
+    {
+        return this.count > 0 ? (double) this.sum / this.count : 0;
+    }
+
+    /**
+     * Gets the largest value.
+     *
+     * @return The maximum in nanoseconds.
+     */
+    public long getMaximum()
+    {
+        return this.maximum;
+    }
+
+    /**
+     * Gets the value a given share of all values does not exceed.
+     *
+     * @param percentile The share in percent, for example 99.9.
+     * @return The value in nanoseconds, 0 without values.
+     */
+    public long getValueAtPercentile(final double percentile)
+    {
+        long total = 0;
+        for (final long bucketCount : this.counts)
+        {
+            total += bucketCount;
+        }
+        if (total == 0)
+        {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int bucket = 0; bucket < this.counts.length; ++bucket)
+        {
+            seen += this.counts[bucket];
+            if (seen >= rank)
+            {
+                return Math.min(LatencyHistogram.valueOf(bucket), this.maximum);
+            }
+        }
+        return this.maximum;
+    }
+
+    /**
+     * Adds the totals of a histogram.
+     *
+     * @param count The number of values.
+     * @param sum The sum of the values in nanoseconds.
+     * @param maximum The largest value in nanoseconds.
+     */
+    void add(final long count, final long sum, final long maximum)
+    {
+        this.count += count;
+        this.sum += sum;
+        this.maximum = Math.max(this.maximum, maximum);
+    }
+
+    /**
+     * Adds values to a bucket.
+     *
+     * @param bucket The index of the bucket.
+     * @param count The number of values.
+     */
+    void addToBucket(final int bucket, final long count)
+    {
+        this.counts[bucket] += count;
+    }
+
+}
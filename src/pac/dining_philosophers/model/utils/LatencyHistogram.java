@@ -0,0 +1,142 @@
+package pac.dining_philosophers.model.utils;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Records latencies into a fixed number of logarithmic buckets. Every power of two between one microsecond and about
+ * 73 minutes is split into eight buckets, so a recorded value is off by at most 12.5%; shorter latencies share the
+ * first bucket and longer ones the last. The memory needed does not grow with the number of recorded values.
+ * <p>
+ * A histogram has a single writer, usually the thread of its philosopher. Recording is a few plain operations and an
+ * ordered store, readers may take a {@link LatencyDistribution} at any time.
+ *
+ * @author Claudia Panoch
+ */
+public class LatencyHistogram
+{
+
+    /**
+     * The number of bits splitting a power of two into buckets.
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+
+    /**
+     * The number of buckets per power of two.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The exponent of the smallest value with its own bucket, one microsecond.
+     */
+    private static final int MINIMUM_EXPONENT = 10;
+
+    /**
+     * The exponent of the largest value with its own bucket, about 73 minutes.
+     */
+    private static final int MAXIMUM_EXPONENT = 42;
+
+    /**
+     * The number of buckets.
+     */
+    static final int BUCKETS = 1 + (MAXIMUM_EXPONENT - MINIMUM_EXPONENT + 1) * SUB_BUCKETS;
+
+    /**
+     * The number of values per bucket.
+     */
+    private final AtomicIntegerArray counts = new AtomicIntegerArray(BUCKETS);
+
+    /**
+     * The number of recorded values.
+     */
+    private volatile long count = 0;
+
+    /**
+     * The sum of the recorded values in nanoseconds.
+     */
+    private volatile long sum = 0;
+
+    /**
+     * The largest recorded value in nanoseconds.
+     */
+    private volatile long maximum = 0;
+
+    /**
+     * Records a latency. Must only be called by the single writer of the histogram.
+     *
+     * @param latency The latency in nanoseconds.
+     */
+    public void record(final long latency)
+    {
+        final int bucket = bucketOf(latency);
+        this.counts.lazySet(bucket, this.counts.get(bucket) + 1);
+        this.sum = this.sum + latency;
+        if (latency > this.maximum)
+        {
+            this.maximum = latency;
+        }
+        this.count = this.count + 1;
+    }
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return The number of values.
+     */
+    public long getCount()
+    {
+        return this.count;
+    }
+
+    /**
+     * Adds the recorded values to a distribution.
+     *
+     * @param distribution The distribution.
+     */
+    void addTo(final LatencyDistribution distribution)
+    {
+        distribution.add(this.count, this.sum, this.maximum);
+        for (int bucket = 0; bucket < BUCKETS; ++bucket)
+        {
+            distribution.addToBucket(bucket, this.counts.get(bucket));
+        }
+    }
+
+    /**
+     * Gets the bucket of a value.
+     *
+     * @param value The value in nanoseconds.
+     * @return The index of the bucket.
+     */
+    static int bucketOf(final long value)
+    {
+        if (value < (1L << MINIMUM_EXPONENT))
+        {
+            return 0;
+        }
+        final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAXIMUM_EXPONENT)
+        {
+            return BUCKETS - 1;
+        }
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return 1 + (exponent - MINIMUM_EXPONENT) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Gets the value representing a bucket, the middle of its range.
+     *
+     * @param bucket The index of the bucket.
+     * @return The value in nanoseconds.
+     */
+    static long valueOf(final int bucket)
+    {
+        if (bucket == 0)
+        {
+            return (1L << MINIMUM_EXPONENT) / 2;
+        }
+        final int exponent = MINIMUM_EXPONENT + (bucket - 1) / SUB_BUCKETS;
+        final long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (1L << exponent) + ((bucket - 1) % SUB_BUCKETS) * width + width / 2;
+    }
+
+}
@@ -0,0 +1,21 @@
+package pac.dining_philosophers.model.utils;
+
+/**
+ * Represents the behaviour of a full event buffer.
+ *
+ * @author Claudia Panoch
+ */
+public enum OverflowPolicy
+{
+
+    /**
+     * New events are dropped until the consumer made room.
+     */
+    DROP_NEWEST,
+
+    /**
+     * New events overwrite the oldest ones the consumer did not read yet.
+     */
+    OVERWRITE_OLDEST
+
+}
@@ -0,0 +1,116 @@
+package pac.dining_philosophers.model.utils;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A gate threads pass at their safe points. While the gate is open, passing it is a single volatile read. While it
+ * is closed, threads arriving at the gate park without spinning until it is opened again. Opening the gate unparks
+ * every parked thread directly from the opening thread, so resuming does not depend on a chain of woken threads.
+ *
+ * @author Claudia Panoch
+ */
+public class SafePointGate
+{
+
+    /**
+     * The threads parked at a closed gate. Every closing of the gate gets a new generation, so a thread never misses
+     * the opening of the generation it parked in.
+     */
+    private static final class Generation
+    {
+
+        /**
+         * True once the generation was opened.
+         */
+        private volatile boolean open = false;
+
+        /**
+         * The threads parked in this generation.
+         */
+        private final Queue<Thread> parkedThreads = new ConcurrentLinkedQueue<>();
+
+    }
+
+    /**
+     * The generation of the closed gate, null while the gate is open.
+     */
+    private volatile Generation generation = null;
+
+    /**
+     * Closes the gate. Threads arriving at their safe point park from now on.
+     */
+    public synchronized void close()
+    {
+        if (this.generation == null)
+        {
+            this.generation = new Generation();
+        }
+    }
+
+    /**
+     * Opens the gate and resumes all parked threads.
+     */
+    public void open()
+    {
+        final Generation generation;
+        synchronized (this)
+        {
+            generation = this.generation;
+            this.generation = null;
+        }
+        if (generation != null)
+        {
+            generation.open = true;
+            for (final Thread thread : generation.parkedThreads)
+            {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    /**
+     * Checks if the gate is closed.
+     *
+     * @return True if threads park at the gate.
+     */
+    public boolean isClosed()
+    {
+        return this.generation != null;
+    }
+
+    /**
+     * Passes the gate: returns at once while it is open, parks until it is opened while it is closed.
+     *
+     * @throws InterruptedException Thrown if the thread was interrupted while parked.
+     */
+    public void await() throws InterruptedException
+    {
+        final Generation generation = this.generation;
+        if (generation == null)
+        {
+            return;
+        }
+        final Thread currentThread = Thread.currentThread();
+
+        /* Enqueue before checking the flag: either the opening thread sees this thread, or this thread sees the flag. */
+        generation.parkedThreads.add(currentThread);
+        try
+        {
+            while (!generation.open)
+            {
+                LockSupport.park(this);
+                if (Thread.interrupted())
+                {
+                    throw new InterruptedException();
+                }
+            }
+        }
+        finally
+        {
+            generation.parkedThreads.remove(currentThread);
+        }
+    }
+
+}
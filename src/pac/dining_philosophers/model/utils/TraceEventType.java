@@ -0,0 +1,100 @@
+package pac.dining_philosophers.model.utils;
+
+/**
+ * The kinds of records of a binary trace, see {@link TraceWriter}.
+ *
+ * @author Claudia Panoch
+ */
+public enum TraceEventType
+{
+
+    /**
+     * A table was set up or resized. Subject: the number of seats, value: the number of forks.
+     */
+    TABLE,
+
+    /**
+     * A philosopher changed his state. Subject: the seat, value: the ordinal of the new state.
+     */
+    STATE,
+
+    /**
+     * A fork was taken. Subject: the fork, value: the seat of the holder.
+     */
+    FORK_ACQUIRED,
+
+    /**
+     * A fork is put back. Subject: the fork, value: unused.
+     */
+    FORK_RELEASED,
+
+    /**
+     * A philosopher starts waiting for a fork. Subject: the fork, value: the seat of the waiting philosopher.
+     */
+    FORK_AWAITED,
+
+    /**
+     * A philosopher stopped waiting without getting the fork. Subject: the seat, value: unused.
+     */
+    WAIT_CANCELLED,
+
+    /**
+     * The way the forks of the next table are shared. Subject: the ordinal of the topology, value: the degree.
+     * Traces without it have rings.
+     */
+    TOPOLOGY,
+
+    /**
+     * Half of the seed the forks of the next table are drawn from. Subject: 0 for the lower, 1 for the upper half,
+     * value: the bits of the half.
+     */
+    SEED;
+
+    /**
+     * All types, indexed by their code minus one.
+     */
+    private static final TraceEventType[] TYPES = values();
+
+    /**
+     * Gets the code of the type in a record. 0 marks a record that was never written.
+     *
+     * @return The code.
+     */
+    int getCode()
+    {
+        return this.ordinal() + 1;
+    }
+
+    /**
+     * Gets the type of a code.
+     *
+     * @param code The code of a record.
+     * @return The type, null for an unwritten record or an unknown code.
+     */
+    static TraceEventType ofCode(final int code)
+    {
+        return code > 0 && code <= TYPES.length ? TYPES[code - 1] : null;
+    }
+
+    /**
+     * Gets the name of the type.
+     *
+     * @return The name.
+     */
+    public String getName()
+    {
+        return this.name().replace('_', ' ').toLowerCase();
+    }
+
+    /**
+     * Returns the name of the type.
+     *
+     * @return The name.
+     */
+    @Override
+    public String toString()
+    {
+        return this.getName();
+    }
+
+}
@@ -0,0 +1,192 @@
+package pac.dining_philosophers.model.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the records of a binary trace written by {@link TraceWriter}, one after the other. The file is mapped in
+ * regions, reading a record is a few reads from memory. Records that were reserved but never completed are skipped.
+ *
+ * @author Claudia Panoch
+ */
+public class TraceReader implements Closeable
+{
+
+    /**
+     * The largest region mapped at once in bytes, a multiple of the record size.
+     */
+    private static final int REGION_SIZE = 1 << 30;
+
+    /**
+     * The file of the trace.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The number of records of the trace.
+     */
+    private final long recordCount;
+
+    /**
+     * The mapped region holding the current record.
+     */
+    private MappedByteBuffer region = null;
+
+    /**
+     * The position of the current region in the file.
+     */
+    private long regionStart = 0;
+
+    /**
+     * The index of the next record.
+     */
+    private long nextRecord = 0;
+
+    /**
+     * The simulation time of the current record in nanoseconds.
+     */
+    private long time = 0;
+
+    /**
+     * The type of the current record.
+     */
+    private TraceEventType type = null;
+
+    /**
+     * The subject of the current record.
+     */
+    private int subject = 0;
+
+    /**
+     * The value of the current record.
+     */
+    private int value = 0;
+
+    /**
+     * Opens a trace file. A trace that was not closed properly is read up to the end of its file.
+     *
+     * @param path The path of the file.
+     * @throws IOException Thrown if the file could not be read or is no trace.
+     */
+    public TraceReader(final Path path) throws IOException
+    {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try
+        {
+            final long size = this.channel.size();
+            if (size < TraceWriter.HEADER_SIZE)
+            {
+                throw new IOException("Not a trace: " + path);
+            }
+            final MappedByteBuffer header = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, TraceWriter.HEADER_SIZE);
+            if (header.getLong(0) != TraceWriter.MAGIC)
+            {
+                throw new IOException("Not a trace: " + path);
+            }
+            final long recordCount = header.getLong(TraceWriter.RECORD_COUNT_POSITION);
+            final long recordsInFile = (size - TraceWriter.HEADER_SIZE) / TraceWriter.RECORD_SIZE;
+            this.recordCount = recordCount > 0 ? Math.min(recordCount, recordsInFile) : recordsInFile;
+        }
+        catch (final IOException e)
+        {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Moves to the next record.
+     *
+     * @return True if there is a next record, false at the end of the trace.
+     * @throws IOException Thrown if the file could not be read.
+     */
+    public boolean next() throws IOException
+    {
+        while (this.nextRecord < this.recordCount)
+        {
+            final long position = TraceWriter.HEADER_SIZE + this.nextRecord++ * TraceWriter.RECORD_SIZE;
+            if (this.region == null || position + TraceWriter.RECORD_SIZE > this.regionStart + this.region.capacity())
+            {
+                this.regionStart = position;
+                this.region = this.channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(REGION_SIZE, this.channel.size() - position));
+            }
+            final int offset = (int) (position - this.regionStart);
+            final int word = this.region.getInt(offset + 8);
+            this.type = TraceEventType.ofCode(word >>> TraceWriter.SUBJECT_BITS);
+            if (this.type != null)
+            {
+                this.time = this.region.getLong(offset);
+                this.subject = word & TraceWriter.SUBJECT_MASK;
+                this.value = this.region.getInt(offset + 12);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of records of the trace, including records never completed.
+     *
+     * @return The number of records.
+     */
+    public long getRecordCount()
+    {
+        return this.recordCount;
+    }
+
+    /**
+     * Gets the simulation time of the current record.
+     *
+     * @return The time in nanoseconds.
+     */
+    public long getTime()
+    {
+        return this.time;
+    }
+
+    /**
+     * Gets the type of the current record.
+     *
+     * @return The type.
+     */
+    public TraceEventType getType()
+    {
+        return this.type;
+    }
+
+    /**
+     * Gets the subject of the current record, see {@link TraceEventType}.
+     *
+     * @return The subject.
+     */
+    public int getSubject()
+    {
+        return this.subject;
+    }
+
+    /**
+     * Gets the value of the current record, see {@link TraceEventType}.
+     *
+     * @return The value.
+     */
+    public int getValue()
+    {
+        return this.value;
+    }
+
+    /**
+     * Closes the trace file.
+     *
+     * @throws IOException Thrown if the file could not be closed.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        this.channel.close();
+    }
+
+}
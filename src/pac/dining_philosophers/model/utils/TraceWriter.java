@@ -0,0 +1,220 @@
+package pac.dining_philosophers.model.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records events into a binary trace file through memory mapped regions of the file. Recording reserves a slot with a
+ * single atomic add and writes it into the mapping, only every {@link #REGION_SIZE} bytes a new region is mapped.
+ * Any number of threads may record at the same time.
+ * <p>
+ * The file starts with a header of {@link #HEADER_SIZE} bytes: the magic number and the number of records, written
+ * when the trace is closed. The records follow with a fixed width of {@link #RECORD_SIZE} bytes, all big-endian: the
+ * simulation time in nanoseconds (8 bytes), the type code in the top byte above the subject (4 bytes) and the value
+ * (4 bytes). Records are in the order their slots were reserved, which is the order of their times up to the few
+ * events recorded at the same moment. The type is written last, a record without type was never completed.
+ *
+ * @author Claudia Panoch
+ */
+public class TraceWriter implements Closeable
+{
+
+    /**
+     * The magic number at the start of every trace, "DPTRACE1".
+     */
+    static final long MAGIC = 0x4450545241434531L;
+
+    /**
+     * The size of the header in bytes.
+     */
+    static final int HEADER_SIZE = 16;
+
+    /**
+     * The position of the number of records in the header.
+     */
+    static final int RECORD_COUNT_POSITION = 8;
+
+    /**
+     * The size of a record in bytes.
+     */
+    static final int RECORD_SIZE = 16;
+
+    /**
+     * The number of bits of a record word holding the subject, the type code is stored above.
+     */
+    static final int SUBJECT_BITS = 24;
+
+    /**
+     * The subject part of a record word.
+     */
+    static final int SUBJECT_MASK = (1 << SUBJECT_BITS) - 1;
+
+    /**
+     * The size of a mapped region in bytes, a multiple of the record size.
+     */
+    private static final int REGION_SIZE = 1 << 22;
+
+    /**
+     * The file of the trace.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The index of the next free record.
+     */
+    private final AtomicLong nextRecord = new AtomicLong();
+
+    /**
+     * The mapped regions of the file, indexed by their position divided by the region size. Grown by copy under the
+     * lock of the writer.
+     */
+    private volatile MappedByteBuffer[] regions = new MappedByteBuffer[0];
+
+    /**
+     * True once the trace was closed.
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * The error that ended the recording, null if there was none.
+     */
+    private volatile IOException failure = null;
+
+    /**
+     * Creates a new trace file, replacing an existing one.
+     *
+     * @param path The path of the file.
+     * @throws IOException Thrown if the file could not be created.
+     */
+    public TraceWriter(final Path path) throws IOException
+    {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try
+        {
+            this.region(0).putLong(0, MAGIC);
+        }
+        catch (final IOException e)
+        {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Records an event. The operation never blocks, apart from mapping the next region of the file. After an error
+     * or once the trace is closed, events are ignored.
+     *
+     * @param type The type of the event.
+     * @param subject The subject, see {@link TraceEventType}.
+     * @param value The value, see {@link TraceEventType}.
+     * @param time The simulation time in nanoseconds.
+     */
+    public void record(final TraceEventType type, final int subject, final int value, final long time)
+    {
+        if (this.closed)
+        {
+            return;
+        }
+        final long position = HEADER_SIZE + this.nextRecord.getAndIncrement() * RECORD_SIZE;
+        final MappedByteBuffer region;
+        try
+        {
+            region = this.region((int) (position / REGION_SIZE));
+        }
+        catch (final IOException e)
+        {
+            this.failure = e;
+            this.closed = true;
+            return;
+        }
+        final int offset = (int) (position % REGION_SIZE);
+        region.putLong(offset, time);
+        region.putInt(offset + 12, value);
+        region.putInt(offset + 8, type.getCode() << SUBJECT_BITS | (subject & SUBJECT_MASK));
+    }
+
+    /**
+     * Gets the number of records reserved so far.
+     *
+     * @return The number of records.
+     */
+    public long getRecordCount()
+    {
+        return this.nextRecord.get();
+    }
+
+    /**
+     * Gets a mapped region of the file, mapping it first if needed.
+     *
+     * @param index The index of the region.
+     * @return The region.
+     * @throws IOException Thrown if the region could not be mapped.
+     */
+    private MappedByteBuffer region(final int index) throws IOException
+    {
+        final MappedByteBuffer[] regions = this.regions;
+        if (index < regions.length && regions[index] != null)
+        {
+            return regions[index];
+        }
+        synchronized (this)
+        {
+            if (index < this.regions.length && this.regions[index] != null)
+            {
+                return this.regions[index];
+            }
+
+            /* Publish a new array, so readers never see a region of the old one change. */
+            final MappedByteBuffer[] grownRegions = Arrays.copyOf(this.regions, Math.max(index + 1, 2 * this.regions.length));
+            grownRegions[index] = this.channel.map(FileChannel.MapMode.READ_WRITE, (long) index * REGION_SIZE, REGION_SIZE);
+            this.regions = grownRegions;
+            return grownRegions[index];
+        }
+    }
+
+    /**
+     * Stops recording and writes the number of records into the header. The file keeps the size of its mapped
+     * regions, readers stop after the counted records.
+     *
+     * @throws IOException Thrown if recording failed before or the file could not be completed.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        synchronized (this)
+        {
+            if (this.closed && !this.channel.isOpen())
+            {
+                return;
+            }
+            this.closed = true;
+            try
+            {
+                final MappedByteBuffer header = this.region(0);
+                header.putLong(RECORD_COUNT_POSITION, this.nextRecord.get());
+                for (final MappedByteBuffer region : this.regions)
+                {
+                    if (region != null)
+                    {
+                        region.force();
+                    }
+                }
+            }
+            finally
+            {
+                this.channel.close();
+            }
+        }
+        if (this.failure != null)
+        {
+            throw this.failure;
+        }
+    }
+
+}
@@ -0,0 +1,195 @@
+package pac.dining_philosophers.view;
+
+import pac.dining_philosophers.model.states.TableSnapshot;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * Draws a table too crowded for images as two coloured rings: the outer ring shows the state of every philosopher,
+ * the inner ring every fork lying on the table. The rings are rendered into an off-screen buffer. Which seat or fork
+ * every pixel of the rings belongs to is computed once per size and table, so a frame only copies one colour per
+ * pixel, no matter how many seats there are.
+ *
+ * @author Claudia Panoch
+ */
+class CompactTableRenderer
+{
+
+    /**
+     * The colours of the states, indexed by the state ordinal.
+     */
+    private static final int[] STATE_COLOURS = {
+        0xFF4A7BD0, /* thinking */
+        0xFFE8A33D, /* hungry */
+        0xFFE8D63D, /* got right fork */
+        0xFFE8D63D, /* got left fork */
+        0xFF4CB050, /* eating */
+    };
+
+    /**
+     * The colour of dead-locked philosophers.
+     */
+    private static final int DEADLOCKED_COLOUR = 0xFFD03A3A;
+
+    /**
+     * The colour of a fork lying on the table.
+     */
+    private static final int FORK_COLOUR = 0xFF000000;
+
+    /**
+     * The colour of a fork in use, the colour of the table.
+     */
+    private static final int TAKEN_FORK_COLOUR = 0xFF404040;
+
+    /**
+     * The inner radius of the philosopher ring, relative to the table size.
+     */
+    private static final double PHILOSOPHERS_INNER = 0.8;
+
+    /**
+     * The outer radius of the philosopher ring, relative to the table size.
+     */
+    private static final double PHILOSOPHERS_OUTER = 1.1;
+
+    /**
+     * The inner radius of the fork ring, relative to the table size.
+     */
+    private static final double FORKS_INNER = 0.4;
+
+    /**
+     * The outer radius of the fork ring, relative to the table size.
+     */
+    private static final double FORKS_OUTER = 0.47;
+
+    /**
+     * The off-screen buffer holding both rings.
+     */
+    private BufferedImage buffer = null;
+
+    /**
+     * The pixels of the buffer.
+     */
+    private int[] pixels = null;
+
+    /**
+     * The offsets of the ring pixels in the buffer.
+     */
+    private int[] ringPixels = null;
+
+    /**
+     * The slot of every ring pixel: the seat for the philosopher ring, the number of seats plus the fork index for
+     * the fork ring.
+     */
+    private int[] ringSlots = null;
+
+    /**
+     * The current colour of every slot.
+     */
+    private int[] slotColours = null;
+
+    /**
+     * The table size in pixels the rings were laid out for.
+     */
+    private int tableSize = -1;
+
+    /**
+     * The number of seats the rings were laid out for.
+     */
+    private int count = -1;
+
+    /**
+     * Draws both rings, centered at the origin of the graphics.
+     *
+     * @param graphics The drawing object, not scaled.
+     * @param snapshot The snapshot of the table.
+     * @param tableSize The table size in pixels.
+     */
+    void paint(final Graphics2D graphics, final TableSnapshot snapshot, final int tableSize)
+    {
+        final int count = snapshot.getSeats();
+        if (tableSize != this.tableSize || count != this.count)
+        {
+            this.layout(tableSize, count);
+        }
+
+        /* Colour every seat once, then the pixels. */
+        final int[] slotColours = this.slotColours;
+        for (int seat = 0; seat < count; ++seat)
+        {
+            slotColours[seat] = snapshot.isDeadlocked(seat) ? DEADLOCKED_COLOUR : STATE_COLOURS[snapshot.getPhilosopherState(seat).ordinal()];
+            slotColours[count + seat] = snapshot.isForkTaken(seat) ? TAKEN_FORK_COLOUR : FORK_COLOUR;
+        }
+        final int[] pixels = this.pixels;
+        final int[] ringPixels = this.ringPixels;
+        final int[] ringSlots = this.ringSlots;
+        for (int pixel = 0; pixel < ringPixels.length; ++pixel)
+        {
+            pixels[ringPixels[pixel]] = slotColours[ringSlots[pixel]];
+        }
+        final int radius = this.buffer.getWidth() / 2;
+        graphics.drawImage(this.buffer, -radius, -radius, null);
+    }
+
+    /**
+     * Assigns every pixel of the rings to its seat or fork. A seat covers the angles closest to its place at the
+     * table, a fork lies between the seats sharing it.
+     *
+     * @param tableSize The table size in pixels.
+     * @param count The number of seats.
+     */
+    private void layout(final int tableSize, final int count)
+    {
+        final int radius = (int) Math.ceil(tableSize * PHILOSOPHERS_OUTER);
+        final int size = 2 * radius + 1;
+        this.buffer = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        this.pixels = ((DataBufferInt) this.buffer.getRaster().getDataBuffer()).getData();
+        final double philosophersInner = Math.pow(tableSize * PHILOSOPHERS_INNER, 2);
+        final double philosophersOuter = Math.pow(tableSize * PHILOSOPHERS_OUTER, 2);
+        final double forksInner = Math.pow(tableSize * FORKS_INNER, 2);
+        final double forksOuter = Math.pow(tableSize * FORKS_OUTER, 2);
+        final double seatsPerRadian = count / (2 * Math.PI);
+        int[] ringPixels = new int[size * 4];
+        int[] ringSlots = new int[size * 4];
+        int rings = 0;
+        for (int y = 0; y < size; ++y)
+        {
+            final int dy = y - radius;
+            for (int x = 0; x < size; ++x)
+            {
+                final int dx = x - radius;
+                final double distance = dx * dx + dy * dy;
+                final boolean philosopher = distance >= philosophersInner && distance <= philosophersOuter;
+                if (!philosopher && (distance < forksInner || distance > forksOuter))
+                {
+                    continue;
+                }
+
+                /* Seat k sits at the angle 2 pi k / count, counted from the top against the clock. */
+                double angle = Math.atan2(-dx, -dy);
+                if (angle < 0)
+                {
+                    angle += 2 * Math.PI;
+                }
+                final int slot = philosopher
+                        ? (int) Math.round(angle * seatsPerRadian) % count
+                        : count + (int) (angle * seatsPerRadian) % count;
+                if (rings == ringPixels.length)
+                {
+                    ringPixels = Arrays.copyOf(ringPixels, 2 * rings);
+                    ringSlots = Arrays.copyOf(ringSlots, 2 * rings);
+                }
+                ringPixels[rings] = y * size + x;
+                ringSlots[rings++] = slot;
+            }
+        }
+        this.ringPixels = Arrays.copyOf(ringPixels, rings);
+        this.ringSlots = Arrays.copyOf(ringSlots, rings);
+        this.slotColours = new int[2 * count];
+        this.tableSize = tableSize;
+        this.count = count;
+    }
+
+}
@@ -1,14 +1,19 @@
 package pac.dining_philosophers.view;
 
-import pac.dining_philosophers.model.entities.Fork;
 import pac.dining_philosophers.model.entities.Philosopher;
+import pac.dining_philosophers.model.states.DeadlockReport;
+import pac.dining_philosophers.model.states.PhilosopherState;
 import pac.dining_philosophers.model.states.SimulationState;
+import pac.dining_philosophers.model.states.TableSnapshot;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.font.FontRenderContext;
 import java.awt.font.TextLayout;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.BitSet;
 import java.util.Observable;
 import java.util.Observer;
 
@@ -74,15 +79,90 @@ public class DinersDrawingSurface extends JPanel implements Observer
     private static final String MESSAGE_DEADLOCKED = "DEADLOCKED";
 
     /**
-     * Deadlock image name.
+     * Deadlock text of a dead-lock of some philosophers, with their number.
      */
-    private static final String NAME_DEADLOCKED = "deadlocked";
+    private static final String MESSAGE_PARTIALLY_DEADLOCKED = "%d DEADLOCKED";
+
+    /**
+     * Above this share of changed seats the whole surface is repainted instead of the single seats.
+     */
+    private static final double FULL_REPAINT_SHARE = 0.25;
+
+    /**
+     * Margin around a repainted seat region in pixels, covering anti-aliasing and rounding.
+     */
+    private static final int REPAINT_MARGIN = 2;
+
+    /**
+     * Below this many pixels per seat along the circle of the philosophers the table is drawn as coloured rings.
+     */
+    private static final double MINIMUM_SEAT_PIXELS = 40;
+
+    /**
+     * Below this many pixels per seat along the circle of the philosophers the names are not drawn.
+     */
+    private static final double MINIMUM_LABEL_PIXELS = 150;
+
+    /**
+     * Measures the labels. The outlines are filled in reference coordinates, so no device transformation is needed.
+     */
+    private static final FontRenderContext FONT_RENDER_CONTEXT = new FontRenderContext(null, false, false);
 
     /**
      * The current state representation of the simulation.
      */
     private SimulationState simulationState = null;
 
+    /**
+     * The philosopher images, loaded once.
+     */
+    private final SpriteCache spriteCache = new SpriteCache();
+
+    /**
+     * Draws crowded tables.
+     */
+    private final CompactTableRenderer compactTableRenderer = new CompactTableRenderer();
+
+    /**
+     * The philosophers the cached geometry belongs to.
+     */
+    private Philosopher[] layoutPhilosophers = null;
+
+    /**
+     * The plate of every seat in reference coordinates.
+     */
+    private Rectangle[] plates = null;
+
+    /**
+     * The fork shape of every seat in reference coordinates.
+     */
+    private Shape[] forkShapes = null;
+
+    /**
+     * The label outline of every seat in reference coordinates, created when it is drawn the first time.
+     */
+    private Shape[] labels = null;
+
+    /**
+     * The region of everything drawn for a seat in reference coordinates.
+     */
+    private Rectangle2D[] seatRegions = null;
+
+    /**
+     * The snapshot of the table drawn by the last frame, reused for every frame.
+     */
+    private TableSnapshot snapshot = null;
+
+    /**
+     * The transformation of the philosopher image, reused for every seat.
+     */
+    private final AffineTransform imageTransformation = new AffineTransform();
+
+    /**
+     * The dead-lock of the last repaint, null if none was found.
+     */
+    private DeadlockReport deadlock = null;
+
     /**
      * Setup the surface.
      */
@@ -94,7 +174,8 @@ public class DinersDrawingSurface extends JPanel implements Observer
     }
 
     /**
-     * Paints a single frame.
+     * Paints a single frame. Crowded tables are drawn as coloured rings; otherwise only the seats within the clip
+     * region are drawn, and names only if there is room for them.
      *
      * @param graphics The drawing object.
      */
@@ -104,12 +185,20 @@ public class DinersDrawingSurface extends JPanel implements Observer
         if (this.simulationState == null) return;
         final SimulationState simulationState = this.simulationState;
         final Philosopher[] philosophers = simulationState.getPhilosophers();
-        final Fork[] forks = simulationState.getForks();
+        final TableSnapshot snapshot = simulationState.snapshot(this.snapshot);
+        this.snapshot = snapshot;
+        if (philosophers == null || snapshot.getSeats() != philosophers.length)
+        {
+
+            /* The table is just being replaced, the new one will be repainted. */
+            return;
+        }
         final double scalingFactor = Math.min((double) this.getWidth() / REFERENCE_WIDTH, (double) this.getHeight() / REFERENCE_HEIGHT);
         final Graphics2D graphics2D = (Graphics2D) graphics;
         graphics2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         graphics2D.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
         graphics2D.translate(this.getWidth() * HALF, this.getHeight() * HALF);
+        final AffineTransform centered = graphics2D.getTransform();
         graphics2D.scale(scalingFactor, scalingFactor);
 
         /* Draw the table */
@@ -120,42 +209,140 @@ public class DinersDrawingSurface extends JPanel implements Observer
 
         /*  */
         final int count = philosophers.length;
-        for (int currentPlace = 0; currentPlace < count; ++currentPlace)
+        final double seatPixels = this.getSeatPixels(count, scalingFactor);
+        if (seatPixels < MINIMUM_SEAT_PIXELS)
         {
-
-            /* Draw philosopher. */
-            final String imageName = simulationState.isDeadlocked() ? NAME_DEADLOCKED : simulationState.getPhilosopher(currentPlace).getPhilosopherState().name().toLowerCase();
-            final Image philosopherImage = this.getImage(imageName);
-            graphics2D.drawImage(this.getImage(imageName), this.getTransformationMatrix(currentPlace, count, philosopherImage.getWidth(this), philosopherImage.getHeight(this), TABLE_SIZE), this);
-
-            /* Draw plate. */
-            final Rectangle plateRectangle = this.getPlateRectangle(currentPlace, count);
-            graphics2D.setColor(Color.LIGHT_GRAY);
-            graphics2D.fillOval((int) plateRectangle.getX(), (int) plateRectangle.getY(), (int) plateRectangle.getWidth(), (int) plateRectangle.getHeight());
-
-            /* Draw fork. */
-            if (!forks[currentPlace].isTaken())
+            graphics2D.setTransform(centered);
+            this.compactTableRenderer.paint(graphics2D, snapshot, (int) Math.round(TABLE_SIZE * scalingFactor));
+            graphics2D.scale(scalingFactor, scalingFactor);
+        }
+        else
+        {
+            this.spriteCache.prepare(scalingFactor, this.getGraphicsConfiguration());
+            this.prepareLayout(philosophers);
+            final boolean labelled = seatPixels >= MINIMUM_LABEL_PIXELS;
+            final Rectangle clip = graphics2D.getClipBounds();
+            for (int currentPlace = 0; currentPlace < count; ++currentPlace)
             {
-                final Shape forkShape = this.getForkShape(currentPlace, count);
-                graphics2D.setColor(Color.BLACK);
-                graphics2D.fill(forkShape);
+                if (clip != null && !this.seatRegions[currentPlace].intersects(clip))
+                {
+                    continue;
+                }
+
+                /* Draw philosopher. The sprite is pre-scaled, so its transformation undoes the scaling. */
+                final PhilosopherState philosopherState = snapshot.getPhilosopherState(currentPlace);
+                final boolean deadlocked = snapshot.isDeadlocked(currentPlace);
+                final BufferedImage sprite = this.spriteCache.getSprite(philosopherState, deadlocked);
+                final Dimension imageSize = this.spriteCache.getOriginalSize(philosopherState, deadlocked);
+                this.setTransformationMatrix(this.imageTransformation, currentPlace, count, imageSize.width, imageSize.height, TABLE_SIZE);
+                this.imageTransformation.scale(1 / scalingFactor, 1 / scalingFactor);
+                graphics2D.drawImage(sprite, this.imageTransformation, this);
+
+                /* Draw plate. */
+                final Rectangle plateRectangle = this.plates[currentPlace];
+                graphics2D.setColor(Color.LIGHT_GRAY);
+                graphics2D.fillOval(plateRectangle.x, plateRectangle.y, plateRectangle.width, plateRectangle.height);
+
+                /* Draw fork. */
+                if (!snapshot.isForkTaken(currentPlace))
+                {
+                    graphics2D.setColor(Color.BLACK);
+                    graphics2D.fill(this.forkShapes[currentPlace]);
+                }
+
+                /* Draw label. */
+                if (labelled)
+                {
+                    if (this.labels[currentPlace] == null)
+                    {
+                        this.labels[currentPlace] = this.getLabel(philosophers[currentPlace].toString(), currentPlace, count);
+                    }
+                    graphics2D.setColor(Color.LIGHT_GRAY);
+                    graphics2D.fill(this.labels[currentPlace]);
+                }
             }
-
-            /* Draw label. */
-            final String name = philosophers[currentPlace].toString();
-            final FontRenderContext fontRenderContext = new FontRenderContext(null, false, false);
-            final TextLayout wordLayout = new TextLayout(name, FONT_SMALL, fontRenderContext);
-            final int labelWidth = (int) FONT_SMALL.getStringBounds(name, fontRenderContext).getWidth();
-            final Shape label = wordLayout.getOutline(this.getTransformationMatrix(currentPlace, count, labelWidth, FONT_SMALL.getSize(), (int) (TABLE_SIZE / 1.8)));
-            graphics2D.setColor(Color.LIGHT_GRAY);
-            graphics2D.fill(label);
         }
-        if (simulationState.isDeadlocked())
+        if (snapshot.isDeadlocked())
         {
+
+            /* Only the philosophers on the cycle are drawn dead-locked, the others may still eat. */
+            final int deadlockedSeats = snapshot.getDeadlockedSeats();
+            final String message = deadlockedSeats == count ? MESSAGE_DEADLOCKED : String.format(MESSAGE_PARTIALLY_DEADLOCKED, deadlockedSeats);
             graphics2D.setColor(Color.WHITE);
             graphics2D.setFont(FONT_BIG);
-            graphics2D.drawString(MESSAGE_DEADLOCKED, -(int)(3.5 * FONT_BIG.getSize()), FONT_BIG.getSize() / 3);
+            graphics2D.drawString(message, -graphics2D.getFontMetrics().stringWidth(message) / 2, FONT_BIG.getSize() / 3);
+        }
+    }
+
+    /**
+     * Gets the room of a seat along the circle of the philosophers.
+     *
+     * @param count The number of seats.
+     * @param scalingFactor The scaling factor of the surface.
+     * @return The room in pixels.
+     */
+    private double getSeatPixels(final int count, final double scalingFactor)
+    {
+        return DOUBLE * Math.PI * TABLE_SIZE * scalingFactor / count;
+    }
+
+    /**
+     * Computes the plates, fork shapes and seat regions of a new table. They do not depend on the size of the
+     * surface, so they are computed once per table.
+     *
+     * @param philosophers The philosophers of the table.
+     */
+    private void prepareLayout(final Philosopher[] philosophers)
+    {
+        if (philosophers == this.layoutPhilosophers)
+        {
+            return;
+        }
+        final int count = philosophers.length;
+        this.plates = new Rectangle[count];
+        this.forkShapes = new Shape[count];
+        this.labels = new Shape[count];
+        this.seatRegions = new Rectangle2D[count];
+        for (int seat = 0; seat < count; ++seat)
+        {
+            this.plates[seat] = this.getPlateRectangle(seat, count);
+            this.forkShapes[seat] = this.getForkShape(seat, count);
+            final Rectangle2D seatRegion = this.getSeatBounds(seat, count);
+            seatRegion.add(this.plates[seat]);
+            seatRegion.add(this.getLabelBounds(philosophers[seat].toString(), seat, count));
+            this.seatRegions[seat] = seatRegion;
         }
+        this.layoutPhilosophers = philosophers;
+    }
+
+    /**
+     * Creates the outline of the name of a philosopher.
+     *
+     * @param name The name.
+     * @param seat The seat.
+     * @param count The number of seats.
+     * @return The outline in reference coordinates.
+     */
+    private Shape getLabel(final String name, final int seat, final int count)
+    {
+        final TextLayout wordLayout = new TextLayout(name, FONT_SMALL, FONT_RENDER_CONTEXT);
+        final int labelWidth = (int) FONT_SMALL.getStringBounds(name, FONT_RENDER_CONTEXT).getWidth();
+        return wordLayout.getOutline(this.getTransformationMatrix(seat, count, labelWidth, FONT_SMALL.getSize(), (int) (TABLE_SIZE / 1.8)));
+    }
+
+    /**
+     * Gets the region covered by the name of a philosopher, without creating its outline.
+     *
+     * @param name The name.
+     * @param seat The seat.
+     * @param count The number of seats.
+     * @return The region in reference coordinates.
+     */
+    private Rectangle2D getLabelBounds(final String name, final int seat, final int count)
+    {
+        final Rectangle2D textBounds = FONT_SMALL.getStringBounds(name, FONT_RENDER_CONTEXT);
+        final int labelWidth = (int) textBounds.getWidth();
+        return this.getTransformationMatrix(seat, count, labelWidth, FONT_SMALL.getSize(), (int) (TABLE_SIZE / 1.8)).createTransformedShape(textBounds).getBounds2D();
     }
 
     /**
@@ -168,10 +355,26 @@ public class DinersDrawingSurface extends JPanel implements Observer
      * @return
      */
     private AffineTransform getTransformationMatrix(final int number, final int count, final int width, final int height, final int diameter)
+    {
+        return this.setTransformationMatrix(new AffineTransform(), number, count, width, height, diameter);
+    }
+
+    /**
+     * Sets a transformation to the one of {@link #getTransformationMatrix(int, int, int, int, int)}, so a single
+     * instance can be reused for many seats.
+     *
+     * @param transformationMatrix The transformation to set.
+     * @param number The seat.
+     * @param count The number of seats.
+     * @param width The width of the object to place.
+     * @param height The height of the object to place.
+     * @param diameter The distance of the object from the center.
+     * @return The transformation.
+     */
+    private AffineTransform setTransformationMatrix(final AffineTransform transformationMatrix, final int number, final int count, final int width, final int height, final int diameter)
     {
         final double radians = this.getRadiansForPlace(number, count);
-        final AffineTransform transformationMatrix = new AffineTransform();
-        transformationMatrix.rotate(radians);
+        transformationMatrix.setToRotation(radians);
         transformationMatrix.translate(0, -diameter);
         transformationMatrix.translate(-(width * HALF), -(height * HALF));
         return transformationMatrix;
@@ -218,7 +421,7 @@ public class DinersDrawingSurface extends JPanel implements Observer
     }
 
     /**
-     * The model has been updated, so the view must be re-rendered with the new model information.
+     * A new table has been set up, so the view must be re-rendered with the new model information.
      *
      * @param observable The model.
      * @param argument An additional argument. Not used here.
@@ -231,14 +434,53 @@ public class DinersDrawingSurface extends JPanel implements Observer
     }
 
     /**
-     * Gets an image resource.
+     * Requests a repaint of the regions of changed seats. Called by the render tick on the event dispatch thread.
+     * Many changed seats, crowded tables drawn as rings and newly found dead-locks repaint the whole surface.
+     *
+     * @param changedSeats The seats changed since the last repaint.
+     */
+    public void repaintSeats(final BitSet changedSeats)
+    {
+        final SimulationState simulationState = this.simulationState;
+        if (simulationState == null)
+        {
+            return;
+        }
+        final DeadlockReport deadlock = simulationState.getWaitForGraph().getDeadlock();
+        final int count = simulationState.getPhilosophers().length;
+        final double scalingFactor = Math.min((double) this.getWidth() / REFERENCE_WIDTH, (double) this.getHeight() / REFERENCE_HEIGHT);
+        if (deadlock != this.deadlock || changedSeats.cardinality() > count * FULL_REPAINT_SHARE || this.getSeatPixels(count, scalingFactor) < MINIMUM_SEAT_PIXELS)
+        {
+            this.deadlock = deadlock;
+            this.repaint();
+            return;
+        }
+        final AffineTransform toDevice = new AffineTransform();
+        toDevice.translate(this.getWidth() * HALF, this.getHeight() * HALF);
+        toDevice.scale(scalingFactor, scalingFactor);
+        for (int seat = changedSeats.nextSetBit(0); seat >= 0 && seat < count; seat = changedSeats.nextSetBit(seat + 1))
+        {
+            final Rectangle region = toDevice.createTransformedShape(this.getSeatBounds(seat, count)).getBounds();
+            region.grow(REPAINT_MARGIN, REPAINT_MARGIN);
+            this.repaint(region);
+        }
+    }
+
+    /**
+     * Gets the region of a seat that changes with the state of the philosopher: his image and his fork.
      *
-     * @param name The name of the image.
-     * @return The image resource.
+     * @param seat The seat.
+     * @param count The number of seats.
+     * @return The region in reference coordinates.
      */
-    private Image getImage(final String name)
+    private Rectangle2D getSeatBounds(final int seat, final int count)
     {
-        return new ImageIcon("res/" + name + ".png").getImage();
+        final Dimension imageSize = this.spriteCache.getMaximumSize();
+        final int width = imageSize.width;
+        final int height = imageSize.height;
+        final Rectangle2D bounds = this.getTransformationMatrix(seat, count, width, height, TABLE_SIZE).createTransformedShape(new Rectangle(0, 0, width, height)).getBounds2D();
+        bounds.add(this.getForkShape(seat, count).getBounds2D());
+        return bounds;
     }
 
 }
@@ -0,0 +1,224 @@
+package pac.dining_philosophers.view;
+
+import pac.dining_philosophers.model.states.PhilosopherState;
+import pac.dining_philosophers.model.states.SimulationState;
+import pac.dining_philosophers.model.utils.EventConsumer;
+
+import javax.swing.*;
+import java.util.BitSet;
+import java.util.Locale;
+
+/**
+ * List model over a bounded window of the most recent log entries, newest first. Only the entries matching the
+ * filter are listed. Rows are formatted when the list asks for them, so only the visible rows cost text. Times are
+ * shown since the start of the simulation.
+ *
+ * @author Claudia Panoch
+ */
+class LogListModel extends AbstractListModel<String> implements EventConsumer
+{
+
+    /**
+     * Serial version of the model.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * All recent entries, used to apply a new filter.
+     */
+    private final LogWindow entries;
+
+    /**
+     * The recent entries matching the filter.
+     */
+    private final LogWindow matchingEntries;
+
+    /**
+     * The simulation providing the philosopher names.
+     */
+    private SimulationState simulationState = null;
+
+    /**
+     * The simulation time the simulation was started at in nanoseconds.
+     */
+    private long startTime = 0;
+
+    /**
+     * The listed state, null for all states.
+     */
+    private PhilosopherState stateFilter = null;
+
+    /**
+     * The listed philosophers, a part of their name, empty for all philosophers.
+     */
+    private String nameFilter = "";
+
+    /**
+     * The seats whose philosopher matches the name filter, null for all seats.
+     */
+    private BitSet matchingSeats = null;
+
+    /**
+     * The number of rows the list knows about.
+     */
+    private int listedSize = 0;
+
+    /**
+     * The number of matching entries added since the last flush.
+     */
+    private int addedRows = 0;
+
+    /**
+     * Creates a new model.
+     *
+     * @param capacity The number of recent entries kept.
+     */
+    LogListModel(final int capacity)
+    {
+        this.entries = new LogWindow(capacity);
+        this.matchingEntries = new LogWindow(capacity);
+    }
+
+    /**
+     * Sets the simulation providing the philosopher names and the start time, used when a new table was set up. The
+     * entries of a previous start are dropped.
+     *
+     * @param simulationState The simulation.
+     */
+    void setSimulationState(final SimulationState simulationState)
+    {
+        final long startTime = simulationState.getStartTime();
+        if (simulationState != this.simulationState || startTime != this.startTime)
+        {
+            this.entries.clear();
+        }
+        this.simulationState = simulationState;
+        this.startTime = startTime;
+        this.setFilter(this.stateFilter, this.nameFilter);
+    }
+
+    /**
+     * Changes the filter and lists the recent entries matching it.
+     *
+     * @param stateFilter The listed state, null for all states.
+     * @param nameFilter The listed philosophers, a part of their name, empty for all philosophers.
+     */
+    void setFilter(final PhilosopherState stateFilter, final String nameFilter)
+    {
+        this.stateFilter = stateFilter;
+        this.nameFilter = nameFilter.trim().toLowerCase(Locale.ROOT);
+        this.matchingSeats = null;
+        if (!this.nameFilter.isEmpty() && this.simulationState != null && this.simulationState.getPhilosophers() != null)
+        {
+            final int count = this.simulationState.getPhilosophers().length;
+            this.matchingSeats = new BitSet(count);
+            for (int seat = 0; seat < count; ++seat)
+            {
+                if (this.simulationState.getPhilosopherName(seat).toLowerCase(Locale.ROOT).contains(this.nameFilter))
+                {
+                    this.matchingSeats.set(seat);
+                }
+            }
+        }
+        this.matchingEntries.clear();
+        for (int age = this.entries.size() - 1; age >= 0; --age)
+        {
+            this.addIfMatching(this.entries.getSeat(age), this.entries.getState(age), this.entries.getTime(age));
+        }
+
+        /* All rows changed, list them anew. */
+        final int listedSize = this.listedSize;
+        this.listedSize = 0;
+        this.addedRows = 0;
+        if (listedSize > 0)
+        {
+            this.fireIntervalRemoved(this, 0, listedSize - 1);
+        }
+        this.listedSize = this.matchingEntries.size();
+        if (this.listedSize > 0)
+        {
+            this.fireIntervalAdded(this, 0, this.listedSize - 1);
+        }
+    }
+
+    /**
+     * Receives a new log entry. The list is informed by the next flush.
+     *
+     * @param seat The seat of the philosopher.
+     * @param philosopherState The new state of the philosopher.
+     * @param time The simulation time of the transition in nanoseconds.
+     */
+    @Override
+    public void accept(final int seat, final PhilosopherState philosopherState, final long time)
+    {
+        this.entries.add(seat, philosopherState, time);
+        this.addIfMatching(seat, philosopherState, time);
+    }
+
+    /**
+     * Informs the list about the entries received since the last flush: the oldest rows that fell out of the window
+     * were removed at the bottom, the new rows added at the top.
+     */
+    void flush()
+    {
+        final int size = this.matchingEntries.size();
+        final int addedRows = Math.min(this.addedRows, size);
+        final int removedRows = Math.max(0, this.listedSize + addedRows - size);
+        this.addedRows = 0;
+        if (removedRows > 0)
+        {
+            this.listedSize -= removedRows;
+            this.fireIntervalRemoved(this, this.listedSize, this.listedSize + removedRows - 1);
+        }
+        if (addedRows > 0)
+        {
+            this.listedSize += addedRows;
+            this.fireIntervalAdded(this, 0, addedRows - 1);
+        }
+    }
+
+    /**
+     * Keeps an entry in the listed ones, if it matches the filter.
+     *
+     * @param seat The seat of the philosopher.
+     * @param philosopherState The new state of the philosopher.
+     * @param time The simulation time of the transition in nanoseconds.
+     */
+    private void addIfMatching(final int seat, final PhilosopherState philosopherState, final long time)
+    {
+        if ((this.stateFilter == null || this.stateFilter == philosopherState) && (this.nameFilter.isEmpty() || (this.matchingSeats != null && this.matchingSeats.get(seat))))
+        {
+            this.matchingEntries.add(seat, philosopherState, time);
+            ++this.addedRows;
+        }
+    }
+
+    /**
+     * Gets the number of listed rows.
+     *
+     * @return The number of rows.
+     */
+    @Override
+    public int getSize()
+    {
+        return this.listedSize;
+    }
+
+    /**
+     * Formats a listed row.
+     *
+     * @param index The row, 0 is the newest entry.
+     * @return The text of the row.
+     */
+    @Override
+    public String getElementAt(final int index)
+    {
+        if (index >= this.matchingEntries.size())
+        {
+            return "";
+        }
+        final String name = this.simulationState != null ? this.simulationState.getPhilosopherName(this.matchingEntries.getSeat(index)) : "";
+        return String.format(Locale.ROOT, "%10.3f s  %s: %s", (this.matchingEntries.getTime(index) - this.startTime) / 1e9, name, this.matchingEntries.getState(index).getName());
+    }
+
+}
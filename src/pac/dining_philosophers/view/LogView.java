@@ -0,0 +1,145 @@
+package pac.dining_philosophers.view;
+
+import pac.dining_philosophers.model.states.PhilosopherState;
+import pac.dining_philosophers.model.states.SimulationState;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+
+/**
+ * Shows the most recent log entries, newest first, filtered by philosopher and state.
+ * The view keeps a bounded window of entries and renders only the visible rows, so its cost per update stays the
+ * same however long the simulation runs.
+ *
+ * @author Claudia Panoch
+ */
+public class LogView extends JPanel
+{
+
+    /**
+     * Serial version of the view.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The number of recent entries kept.
+     */
+    public static final int WINDOW_SIZE = 10000;
+
+    /**
+     * Entry of the state filter for all states.
+     */
+    private static final String ALL_STATES = "all states";
+
+    /**
+     * The entries of the list.
+     */
+    private final LogListModel model = new LogListModel(WINDOW_SIZE);
+
+    /**
+     * Filter for the state.
+     */
+    private final JComboBox<Object> stateFilter = new JComboBox<>();
+
+    /**
+     * Filter for the philosopher name.
+     */
+    private final JTextField nameFilter = new JTextField();
+
+    /**
+     * The simulation whose log is shown.
+     */
+    private SimulationState simulationState = null;
+
+    /**
+     * Setup the view.
+     */
+    public LogView()
+    {
+        super(new BorderLayout());
+        this.setBorder(BorderFactory.createTitledBorder("Log"));
+
+        /* The list uses fixed cell sizes, so it never measures its rows. */
+        final JList<String> list = new JList<>(this.model);
+        list.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        list.setPrototypeCellValue("0000000.000 s  Herr Dr. Oetker: got right fork");
+        list.setEnabled(false);
+        this.add(BorderLayout.CENTER, new JScrollPane(list, ScrollPaneConstants.VERTICAL_SCROLLBAR_ALWAYS, ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER));
+
+        /* Add the filters. */
+        this.stateFilter.addItem(ALL_STATES);
+        for (final PhilosopherState philosopherState : PhilosopherState.values())
+        {
+            this.stateFilter.addItem(philosopherState);
+        }
+        this.stateFilter.addActionListener(new ActionListener()
+        {
+            @Override
+            public void actionPerformed(final ActionEvent event)
+            {
+                LogView.this.applyFilter();
+            }
+        });
+        this.nameFilter.setToolTipText("Philosopher");
+        this.nameFilter.getDocument().addDocumentListener(new DocumentListener()
+        {
+            @Override
+            public void insertUpdate(final DocumentEvent event)
+            {
+                LogView.this.applyFilter();
+            }
+
+            @Override
+            public void removeUpdate(final DocumentEvent event)
+            {
+                LogView.this.applyFilter();
+            }
+
+            @Override
+            public void changedUpdate(final DocumentEvent event)
+            {
+                LogView.this.applyFilter();
+            }
+        });
+        final JPanel filters = new JPanel(new GridLayout(1, 2));
+        filters.add(this.nameFilter);
+        filters.add(this.stateFilter);
+        this.add(BorderLayout.NORTH, filters);
+    }
+
+    /**
+     * Sets the simulation whose log is shown, used when a new table was set up.
+     *
+     * @param simulationState The simulation.
+     */
+    public void setSimulationState(final SimulationState simulationState)
+    {
+        this.simulationState = simulationState;
+        this.model.setSimulationState(simulationState);
+    }
+
+    /**
+     * Reads the log entries added since the last refresh. Called by the render tick on the event dispatch thread.
+     */
+    public void refresh()
+    {
+        if (this.simulationState != null && this.simulationState.drainLog(this.model) > 0)
+        {
+            this.model.flush();
+        }
+    }
+
+    /**
+     * Lists the recent entries matching the current filter.
+     */
+    private void applyFilter()
+    {
+        final Object state = this.stateFilter.getSelectedItem();
+        this.model.setFilter(state instanceof PhilosopherState ? (PhilosopherState) state : null, this.nameFilter.getText());
+    }
+
+}
@@ -0,0 +1,128 @@
+package pac.dining_philosophers.view;
+
+import pac.dining_philosophers.model.states.PhilosopherState;
+
+/**
+ * Bounded window of the most recent log entries, stored as primitive records. Adding an entry to a full window
+ * evicts the oldest one.
+ *
+ * @author Claudia Panoch
+ */
+class LogWindow
+{
+
+    /**
+     * All states, indexed by their ordinal.
+     */
+    private static final PhilosopherState[] STATES = PhilosopherState.values();
+
+    /**
+     * The seat of every entry.
+     */
+    private final int[] seats;
+
+    /**
+     * The state ordinal of every entry.
+     */
+    private final byte[] states;
+
+    /**
+     * The time of every entry.
+     */
+    private final long[] times;
+
+    /**
+     * The number of entries ever added.
+     */
+    private long added = 0;
+
+    /**
+     * Creates a new window.
+     *
+     * @param capacity The number of entries kept.
+     */
+    LogWindow(final int capacity)
+    {
+        this.seats = new int[capacity];
+        this.states = new byte[capacity];
+        this.times = new long[capacity];
+    }
+
+    /**
+     * Adds an entry.
+     *
+     * @param seat The seat of the philosopher.
+     * @param philosopherState The new state of the philosopher.
+     * @param time The simulation time of the transition in nanoseconds.
+     */
+    void add(final int seat, final PhilosopherState philosopherState, final long time)
+    {
+        final int slot = (int) (this.added++ % this.seats.length);
+        this.seats[slot] = seat;
+        this.states[slot] = (byte) philosopherState.ordinal();
+        this.times[slot] = time;
+    }
+
+    /**
+     * Removes all entries.
+     */
+    void clear()
+    {
+        this.added = 0;
+    }
+
+    /**
+     * Gets the number of entries in the window.
+     *
+     * @return The number of entries.
+     */
+    int size()
+    {
+        return (int) Math.min(this.added, this.seats.length);
+    }
+
+    /**
+     * Gets the slot of an entry.
+     *
+     * @param age The age of the entry, 0 is the newest one.
+     * @return The slot in the arrays.
+     */
+    private int slot(final int age)
+    {
+        return (int) ((this.added - 1 - age) % this.seats.length);
+    }
+
+    /**
+     * Gets the seat of an entry.
+     *
+     * @param age The age of the entry, 0 is the newest one.
+     * @return The seat of the philosopher.
+     */
+    int getSeat(final int age)
+    {
+        return this.seats[this.slot(age)];
+    }
+
+    /**
+     * Gets the state of an entry.
+     *
+     * @param age The age of the entry, 0 is the newest one.
+     * @return The new state of the philosopher.
+     */
+    PhilosopherState getState(final int age)
+    {
+        return STATES[this.states[this.slot(age)]];
+    }
+
+    /**
+     * Gets the time of an entry.
+     *
+     * @param age The age of the entry, 0 is the newest one.
+     * @return The simulation time of the transition in nanoseconds.
+     */
+    long getTime(final int age)
+    {
+        return this.times[this.slot(age)];
+    }
+
+}
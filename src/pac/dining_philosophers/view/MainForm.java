@@ -1,14 +1,28 @@
 package pac.dining_philosophers.view;
 
+import pac.dining_philosophers.model.states.AcquisitionStrategyType;
+import pac.dining_philosophers.model.states.ExecutionMode;
+import pac.dining_philosophers.model.states.ForkType;
 import pac.dining_philosophers.model.states.SimulationState;
+import pac.dining_philosophers.model.states.SimulationStatistics;
+import pac.dining_philosophers.model.states.Topology;
+import pac.dining_philosophers.model.utils.TraceReader;
 
 import javax.swing.*;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 import java.awt.*;
 import java.awt.event.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Observable;
 import java.util.Observer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * The main frame of the application.
@@ -22,15 +36,57 @@ public class MainForm extends JFrame implements Observer
     private final DinersDrawingSurface dinersDrawingSurface = new DinersDrawingSurface();
 
     /**
-     * Text-field for log output.
+     * View of the log output.
      */
-    private final JTextArea log = new JTextArea("Log:\n");
+    private final LogView log = new LogView();
+
+    /**
+     * Label for the throughput of the simulation.
+     */
+    private final JLabel throughput = new JLabel();
 
     /**
      * The current state model of the simulation (speed, running and so on...).
      */
     private final SimulationState simulationState = new SimulationState();
 
+    /**
+     * The interval of the render tick in milliseconds, 60 frames per second.
+     */
+    private static final int RENDER_INTERVAL = 1000 / 60;
+
+    /**
+     * The seats changed since the last render tick.
+     */
+    private final BitSet changedSeats = new BitSet();
+
+    /**
+     * Picks up the model changes at a fixed rate.
+     */
+    private final Timer renderTimer = new Timer(RENDER_INTERVAL, new ActionListener()
+    {
+        @Override
+        public void actionPerformed(final ActionEvent event)
+        {
+            MainForm.this.render();
+        }
+    });
+
+    /**
+     * Changes the table one after the other in the order they were requested. A resize waits for the philosophers to
+     * reach their safe point, so the table is never changed on the event dispatch thread.
+     */
+    private final ExecutorService tableChanges = Executors.newSingleThreadExecutor(new ThreadFactory()
+    {
+        @Override
+        public Thread newThread(final Runnable runnable)
+        {
+            final Thread thread = new Thread(runnable, "Table changes");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
     /**
      * The application title.
      */
@@ -71,7 +127,7 @@ public class MainForm extends JFrame implements Observer
 
         /* Add a drop down for changing the number of participants. */
         final JComboBox<Integer> scale = new JComboBox<>();
-        for (final int i : new int[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 15, 20, 25, 30, 50, 75, 100, 125, 150, 200, 250, 333, 500, 1000, 2000, 5000, 10000 })
+        for (final int i : SimulationState.getSeatCounts())
         {
             scale.addItem(i);
         }
@@ -81,7 +137,129 @@ public class MainForm extends JFrame implements Observer
             @Override
             public void actionPerformed(final ActionEvent event)
             {
-                simulationState.changeNumberOfPhilosphers((Integer) scale.getSelectedItem());
+                final Integer seats = (Integer) scale.getSelectedItem();
+                MainForm.this.changeTable(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        simulationState.changeNumberOfPhilosphers(seats);
+                    }
+                });
+            }
+        });
+
+        /* Add a drop down for changing the fork acquisition strategy, offering the strategies of the execution mode. */
+        final JComboBox<AcquisitionStrategyType> acquisitionStrategy = new JComboBox<>(supportedStrategies(this.simulationState.getExecutionMode()));
+        acquisitionStrategy.setSelectedItem(this.simulationState.getAcquisitionStrategyType());
+        acquisitionStrategy.addActionListener(new ActionListener()
+        {
+            @Override
+            public void actionPerformed(final ActionEvent event)
+            {
+                final AcquisitionStrategyType strategy = (AcquisitionStrategyType) acquisitionStrategy.getSelectedItem();
+                MainForm.this.changeTable(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        simulationState.stop();
+                        simulationState.setAcquisitionStrategyType(strategy);
+                        simulationState.start();
+                    }
+                });
+            }
+        });
+
+        /* Add a drop down for changing the fork implementation. */
+        final JComboBox<ForkType> forkType = new JComboBox<>(supportedForkTypes(this.simulationState.getExecutionMode()));
+        forkType.setSelectedItem(this.simulationState.getForkType());
+        forkType.addActionListener(new ActionListener()
+        {
+            @Override
+            public void actionPerformed(final ActionEvent event)
+            {
+                final ForkType type = (ForkType) forkType.getSelectedItem();
+                MainForm.this.changeTable(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        simulationState.stop();
+                        simulationState.setForkType(type);
+                        simulationState.start();
+                    }
+                });
+            }
+        });
+
+        /* Add a drop down for changing the execution mode of the philosophers. */
+        final JComboBox<ExecutionMode> executionMode = new JComboBox<>();
+        for (final ExecutionMode mode : ExecutionMode.values())
+        {
+            if (mode.isAvailable())
+            {
+                executionMode.addItem(mode);
+            }
+        }
+        executionMode.setSelectedItem(this.simulationState.getExecutionMode());
+        executionMode.addActionListener(new ActionListener()
+        {
+            @Override
+            public void actionPerformed(final ActionEvent event)
+            {
+                final ExecutionMode mode = (ExecutionMode) executionMode.getSelectedItem();
+
+                /* Fall back to the classic strategy if the mode can not run the selected one. */
+                final AcquisitionStrategyType selectedStrategy = (AcquisitionStrategyType) acquisitionStrategy.getSelectedItem();
+                final AcquisitionStrategyType strategy = mode.supports(selectedStrategy) ? selectedStrategy : AcquisitionStrategyType.RIGHT_THEN_LEFT;
+                final DefaultComboBoxModel<AcquisitionStrategyType> strategies = new DefaultComboBoxModel<>(supportedStrategies(mode));
+                strategies.setSelectedItem(strategy);
+                acquisitionStrategy.setModel(strategies);
+
+                /* Fall back to lock forks if the mode can not use the selected fork type. */
+                final ForkType selectedForkType = (ForkType) forkType.getSelectedItem();
+                final ForkType type = mode.supports(selectedForkType) ? selectedForkType : ForkType.LOCK;
+                final DefaultComboBoxModel<ForkType> forkTypes = new DefaultComboBoxModel<>(supportedForkTypes(mode));
+                forkTypes.setSelectedItem(type);
+                forkType.setModel(forkTypes);
+                MainForm.this.changeTable(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        simulationState.stop();
+                        simulationState.setAcquisitionStrategyType(strategy);
+
+                        /* Lock forks are supported by every mode, so the old fork type never blocks the new mode. */
+                        simulationState.setForkType(ForkType.LOCK);
+                        simulationState.setExecutionMode(mode);
+                        simulationState.setForkType(type);
+                        simulationState.start();
+                    }
+                });
+            }
+        });
+
+        /* Add a drop down for changing the way the forks are shared. */
+        final JComboBox<Topology> topology = new JComboBox<>(Topology.values());
+        topology.setSelectedItem(this.simulationState.getTopology());
+        topology.addActionListener(new ActionListener()
+        {
+            @Override
+            public void actionPerformed(final ActionEvent event)
+            {
+                final Topology selectedTopology = (Topology) topology.getSelectedItem();
+                MainForm.this.changeTable(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        simulationState.stop();
+                        simulationState.setTopology(selectedTopology);
+                        simulationState.start();
+                    }
+                });
             }
         });
 
@@ -92,12 +270,19 @@ public class MainForm extends JFrame implements Observer
             @Override
             public void actionPerformed(final ActionEvent event)
             {
-                if (simulationState.isDeadlocked())
+                MainForm.this.changeTable(new Runnable()
                 {
-                    simulationState.stop();
-                    simulationState.start();
-                }
-                simulationState.thaw();
+                    @Override
+                    public void run()
+                    {
+                        if (simulationState.isDeadlocked())
+                        {
+                            simulationState.stop();
+                            simulationState.start();
+                        }
+                        simulationState.thaw();
+                    }
+                });
             }
         });
 
@@ -108,7 +293,14 @@ public class MainForm extends JFrame implements Observer
             @Override
             public void actionPerformed(final ActionEvent event)
             {
-                simulationState.freeze();
+                MainForm.this.changeTable(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        simulationState.freeze();
+                    }
+                });
             }
         });
 
@@ -120,9 +312,21 @@ public class MainForm extends JFrame implements Observer
         mainPanel.add(BorderLayout.LINE_END, scale);
         mainPanel.add(BorderLayout.WEST, freeze);
 
+        /* Place the simulation settings above the controls. */
+        final JPanel settingsPanel = new JPanel();
+        settingsPanel.setLayout(new FlowLayout(FlowLayout.RIGHT));
+        settingsPanel.add(this.throughput);
+        settingsPanel.add(executionMode);
+        settingsPanel.add(forkType);
+        settingsPanel.add(topology);
+        settingsPanel.add(acquisitionStrategy);
+        mainPanel.add(BorderLayout.NORTH, settingsPanel);
+
+        /* Add the trace menu. */
+        this.setJMenuBar(this.createMenuBar());
+
         /* Enable the logging component. */
         this.log.setPreferredSize(new Dimension(300, 0));
-        this.log.setEnabled(false);
         this.add(BorderLayout.EAST, this.log);
 
         this.add(BorderLayout.SOUTH, mainPanel);
@@ -133,23 +337,239 @@ public class MainForm extends JFrame implements Observer
     }
 
     /**
-     * Updates the user interface on model changes. Currently only the log is updated.
+     * Creates the menu bar with the trace menu: recording the state and fork changes into a binary trace file and
+     * replaying a trace at a chosen speed.
+     *
+     * @return The menu bar.
+     */
+    private JMenuBar createMenuBar()
+    {
+        final JFileChooser fileChooser = new JFileChooser();
+        final JMenuItem record = new JMenuItem("Record...");
+        final JMenuItem stopRecording = new JMenuItem("Stop recording");
+        final JMenuItem replay = new JMenuItem("Replay...");
+        stopRecording.setEnabled(false);
+        record.addActionListener(new ActionListener()
+        {
+            @Override
+            public void actionPerformed(final ActionEvent event)
+            {
+                if (fileChooser.showSaveDialog(MainForm.this) != JFileChooser.APPROVE_OPTION)
+                {
+                    return;
+                }
+                try
+                {
+                    simulationState.startTrace(fileChooser.getSelectedFile().toPath());
+                    stopRecording.setEnabled(true);
+                }
+                catch (final IOException e)
+                {
+                    MainForm.this.showError("The trace could not be created.", e);
+                }
+            }
+        });
+        stopRecording.addActionListener(new ActionListener()
+        {
+            @Override
+            public void actionPerformed(final ActionEvent event)
+            {
+                stopRecording.setEnabled(false);
+                try
+                {
+                    simulationState.stopTrace();
+                }
+                catch (final IOException e)
+                {
+                    MainForm.this.showError("The trace could not be completed.", e);
+                }
+            }
+        });
+        replay.addActionListener(new ActionListener()
+        {
+            @Override
+            public void actionPerformed(final ActionEvent event)
+            {
+                if (fileChooser.showOpenDialog(MainForm.this) != JFileChooser.APPROVE_OPTION)
+                {
+                    return;
+                }
+                final String speed = JOptionPane.showInputDialog(MainForm.this, "Speed multiplier (0 as fast as possible):", "1");
+                if (speed == null)
+                {
+                    return;
+                }
+                final Path path = fileChooser.getSelectedFile().toPath();
+                MainForm.this.changeTable(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        try
+                        {
+                            simulationState.replay(new TraceReader(path), Double.parseDouble(speed));
+                        }
+                        catch (final IOException | NumberFormatException e)
+                        {
+                            MainForm.this.showError("The trace could not be replayed.", e);
+                        }
+                    }
+                });
+            }
+        });
+        final JMenu traceMenu = new JMenu("Trace");
+        traceMenu.add(record);
+        traceMenu.add(stopRecording);
+        traceMenu.addSeparator();
+        traceMenu.add(replay);
+        final JMenuBar menuBar = new JMenuBar();
+        menuBar.add(traceMenu);
+        return menuBar;
+    }
+
+    /**
+     * Gets the strategies an execution mode can run.
+     *
+     * @param executionMode The execution mode.
+     * @return The supported strategies.
+     */
+    private static AcquisitionStrategyType[] supportedStrategies(final ExecutionMode executionMode)
+    {
+        final List<AcquisitionStrategyType> strategies = new ArrayList<>();
+        for (final AcquisitionStrategyType strategy : AcquisitionStrategyType.values())
+        {
+            if (executionMode.supports(strategy))
+            {
+                strategies.add(strategy);
+            }
+        }
+        return strategies.toArray(new AcquisitionStrategyType[0]);
+    }
+
+    /**
+     * Gets the available fork types an execution mode can use.
+     *
+     * @param executionMode The execution mode.
+     * @return The supported fork types.
+     */
+    private static ForkType[] supportedForkTypes(final ExecutionMode executionMode)
+    {
+        final List<ForkType> forkTypes = new ArrayList<>();
+        for (final ForkType forkType : ForkType.values())
+        {
+            if (forkType.isAvailable() && executionMode.supports(forkType))
+            {
+                forkTypes.add(forkType);
+            }
+        }
+        return forkTypes.toArray(new ForkType[0]);
+    }
+
+    /**
+     * Changes the table on the thread for table changes, after all changes requested before. A table of remote forks
+     * can not be set up while the fork manager can not be reached, the error is shown then.
+     *
+     * @param change The change of the table.
+     */
+    private void changeTable(final Runnable change)
+    {
+        this.tableChanges.execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    change.run();
+                }
+                catch (final IllegalStateException e)
+                {
+                    MainForm.this.showError("The fork manager could not be reached.", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Shows an error message. Errors of table changes are handed to the event dispatch thread.
+     *
+     * @param message The message.
+     * @param cause The error.
+     */
+    private void showError(final String message, final Exception cause)
+    {
+        if (!SwingUtilities.isEventDispatchThread())
+        {
+            SwingUtilities.invokeLater(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    MainForm.this.showError(message, cause);
+                }
+            });
+            return;
+        }
+        JOptionPane.showMessageDialog(this, message + "\n" + cause.getMessage(), TITLE, JOptionPane.ERROR_MESSAGE);
+    }
+
+    /**
+     * Updates the user interface when a new table is set up. Changes of single seats are picked up by the render tick.
+     * A replay sets up its tables on its own thread and philosophers report a lost fork manager on theirs, so the update
+     * is handed to the event dispatch thread.
      *
      * @param observable The changed model.
-     * @param argument Additional arguments (currently not used).
+     * @param argument The error that stopped a replay or the philosophers, otherwise null.
      */
     @Override
     public void update(final Observable observable, final Object argument)
     {
-        this.log.insert(((SimulationState) observable).getLog(), 0);
+        if (!SwingUtilities.isEventDispatchThread())
+        {
+            SwingUtilities.invokeLater(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    MainForm.this.update(observable, argument);
+                }
+            });
+            return;
+        }
+        if (argument instanceof IOException)
+        {
+            final boolean forkManagerLost = argument == ((SimulationState) observable).getForkManagerError();
+            this.showError(forkManagerLost ? "The philosophers stopped." : "The replay stopped.", (IOException) argument);
+            return;
+        }
+        this.changedSeats.clear();
+        this.log.setSimulationState((SimulationState) observable);
+    }
+
+    /**
+     * Render tick: picks up the seats changed since the last tick, repaints their regions and updates the log and the
+     * throughput. Nothing is done if the model did not change.
+     */
+    private void render()
+    {
+        if (!this.simulationState.collectChanges(this.changedSeats))
+        {
+            return;
+        }
+        this.dinersDrawingSurface.repaintSeats(this.changedSeats);
+        this.changedSeats.clear();
+        this.log.refresh();
+        this.throughput.setText(String.format("%.2f meals/s, %.0f ms wait", this.simulationState.getMealsPerSecond(), this.simulationState.getAverageWaitTime()));
     }
 
     /**
-     * Start the simulation.
+     * Start the simulation and the render tick, and expose the statistics through JMX.
      */
     public void start()
     {
+        SimulationStatistics.register(this.simulationState);
         this.simulationState.start();
+        this.renderTimer.start();
     }
 
 }
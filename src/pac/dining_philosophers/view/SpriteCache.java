@@ -0,0 +1,172 @@
+package pac.dining_philosophers.view;
+
+import pac.dining_philosophers.model.states.PhilosopherState;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * Holds the philosopher images. The images are loaded once from the class path and pre-rendered for the current
+ * scaling factor of the drawing surface. The pre-rendered sprites are only rebuilt when the scaling factor changes.
+ *
+ * @author Claudia Panoch
+ */
+class SpriteCache
+{
+
+    /**
+     * All states, indexed by their ordinal.
+     */
+    private static final PhilosopherState[] STATES = PhilosopherState.values();
+
+    /**
+     * Index of the dead-lock image, behind the images of the states.
+     */
+    private static final int DEADLOCKED = STATES.length;
+
+    /**
+     * Deadlock image name.
+     */
+    private static final String NAME_DEADLOCKED = "deadlocked";
+
+    /**
+     * The directory of the images relative to the working directory, used if they are not on the class path.
+     */
+    private static final String RESOURCE_DIRECTORY = "res";
+
+    /**
+     * The loaded images in their original size, indexed by the state ordinal and the dead-lock index.
+     */
+    private final BufferedImage[] originals = new BufferedImage[STATES.length + 1];
+
+    /**
+     * The images pre-rendered for the scaling factor, indexed like the originals.
+     */
+    private final BufferedImage[] sprites = new BufferedImage[STATES.length + 1];
+
+    /**
+     * The scaling factor of the pre-rendered images.
+     */
+    private double scalingFactor = Double.NaN;
+
+    /**
+     * The size of the biggest original image.
+     */
+    private final Dimension maximumSize = new Dimension();
+
+    /**
+     * Loads all images.
+     */
+    SpriteCache()
+    {
+        for (final PhilosopherState philosopherState : STATES)
+        {
+            this.originals[philosopherState.ordinal()] = load(philosopherState.name().toLowerCase());
+        }
+        this.originals[DEADLOCKED] = load(NAME_DEADLOCKED);
+        for (final BufferedImage original : this.originals)
+        {
+            this.maximumSize.width = Math.max(this.maximumSize.width, original.getWidth());
+            this.maximumSize.height = Math.max(this.maximumSize.height, original.getHeight());
+        }
+    }
+
+    /**
+     * Pre-renders all images for a scaling factor, unless they are rendered for it already.
+     *
+     * @param scalingFactor The scaling factor of the drawing surface.
+     * @param graphicsConfiguration The configuration of the drawing surface, null for a default image format.
+     */
+    void prepare(final double scalingFactor, final GraphicsConfiguration graphicsConfiguration)
+    {
+        if (scalingFactor == this.scalingFactor)
+        {
+            return;
+        }
+        for (int image = 0; image < this.originals.length; ++image)
+        {
+            final BufferedImage original = this.originals[image];
+            final int width = Math.max(1, (int) Math.round(original.getWidth() * scalingFactor));
+            final int height = Math.max(1, (int) Math.round(original.getHeight() * scalingFactor));
+            final BufferedImage sprite = graphicsConfiguration != null
+                    ? graphicsConfiguration.createCompatibleImage(width, height, Transparency.TRANSLUCENT)
+                    : new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            final Graphics2D graphics = sprite.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(original, 0, 0, width, height, null);
+            graphics.dispose();
+            this.sprites[image] = sprite;
+        }
+        this.scalingFactor = scalingFactor;
+    }
+
+    /**
+     * Gets the pre-rendered image of a philosopher.
+     *
+     * @param philosopherState The state of the philosopher.
+     * @param deadlocked True if the philosopher is dead-locked.
+     * @return The image, scaled by the prepared scaling factor.
+     */
+    BufferedImage getSprite(final PhilosopherState philosopherState, final boolean deadlocked)
+    {
+        return this.sprites[deadlocked ? DEADLOCKED : philosopherState.ordinal()];
+    }
+
+    /**
+     * Gets the size of the original image of a philosopher.
+     *
+     * @param philosopherState The state of the philosopher.
+     * @param deadlocked True if the philosopher is dead-locked.
+     * @return The image size before scaling.
+     */
+    Dimension getOriginalSize(final PhilosopherState philosopherState, final boolean deadlocked)
+    {
+        final BufferedImage original = this.originals[deadlocked ? DEADLOCKED : philosopherState.ordinal()];
+        return new Dimension(original.getWidth(), original.getHeight());
+    }
+
+    /**
+     * Gets the size of the biggest original image, so a region covers the images of all states.
+     *
+     * @return The maximum image size before scaling.
+     */
+    Dimension getMaximumSize()
+    {
+        return new Dimension(this.maximumSize);
+    }
+
+    /**
+     * Loads an image from the class path, or from the resource directory if it is not on the class path.
+     *
+     * @param name The name of the image.
+     * @return The image, an empty image if it could not be loaded.
+     */
+    private static BufferedImage load(final String name)
+    {
+        final String fileName = name + ".png";
+        try
+        {
+            URL resource = SpriteCache.class.getResource("/" + fileName);
+            if (resource == null)
+            {
+                resource = SpriteCache.class.getResource("/" + RESOURCE_DIRECTORY + "/" + fileName);
+            }
+            final BufferedImage image = resource != null ? ImageIO.read(resource) : ImageIO.read(new File(RESOURCE_DIRECTORY, fileName));
+            if (image != null)
+            {
+                return image;
+            }
+        }
+        catch (final IOException e)
+        {
+            e.printStackTrace();
+        }
+        return new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+    }
+
+}